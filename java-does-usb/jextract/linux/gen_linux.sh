@@ -15,6 +15,7 @@ $JEXTRACT --output ../../src/main/java \
   --include-constant EINVAL \
   --include-constant ENODEV \
   --include-constant EINTR \
+  --include-constant ENOBUFS \
   --include-constant ENOENT \
   /usr/include/errno.h
 
@@ -98,3 +99,13 @@ $JEXTRACT --output ../../src/main/java \
   --include-constant EPOLLWAKEUP \
   epoll.h
 
+# socket.h and netlink.h
+$JEXTRACT --output ../../src/main/java \
+  --header-class-name socket \
+  --target-package net.codecrete.usb.linux.gen.socket \
+  --include-struct sockaddr_nl \
+  --include-constant AF_NETLINK \
+  --include-constant NETLINK_KOBJECT_UEVENT \
+  --include-constant SOCK_CLOEXEC \
+  --include-constant SOCK_RAW \
+  socket.h
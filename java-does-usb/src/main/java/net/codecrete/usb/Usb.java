@@ -7,7 +7,10 @@
 
 package net.codecrete.usb;
 
+import net.codecrete.usb.common.TransferBufferPool;
 import net.codecrete.usb.common.UsbDeviceRegistry;
+import net.codecrete.usb.common.UsbSelectorImpl;
+import net.codecrete.usb.linux.LinuxSysfsDeviceRegistry;
 import net.codecrete.usb.linux.LinuxUsbDeviceRegistry;
 import net.codecrete.usb.macos.MacosUsbDeviceRegistry;
 import net.codecrete.usb.windows.WindowsUsbDeviceRegistry;
@@ -16,10 +19,13 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Provides access to USB devices.
@@ -37,7 +43,7 @@ public class Usb {
         } else if (osName.startsWith("Windows") && (osArch.equals("amd64") || osArch.equals("aarch64"))) {
             impl = new WindowsUsbDeviceRegistry();
         } else if (osName.equals("Linux") && (osArch.equals("amd64") || osArch.equals("aarch64"))) {
-            impl = new LinuxUsbDeviceRegistry();
+            impl = LinuxSysfsDeviceRegistry.isSelected() ? new LinuxSysfsDeviceRegistry() : new LinuxUsbDeviceRegistry();
         } else {
             throw new UnsupportedOperationException(String.format(
                     "The \"Java Does USB\" library has no implementation for JRE/JDK %s/%s",
@@ -47,11 +53,24 @@ public class Usb {
     }
 
     private static UsbDeviceRegistry singletonInstance = null;
+    private static UsbDeviceFilter deviceFilter = null;
 
-    private static synchronized UsbDeviceRegistry instance() {
+    private static UsbDeviceRegistry instance() {
+        var registry = startRegistry(null);
+        // wait outside the lock so asynchronous initialization is not blocked
+        registry.awaitInitialEnumeration();
+        return registry;
+    }
+
+    private static synchronized UsbDeviceRegistry startRegistry(IntConsumer progressHandler) {
         if (singletonInstance == null) {
-            singletonInstance = createInstance();
-            singletonInstance.start();
+            var registry = createInstance();
+            registry.setDeviceFilter(deviceFilter);
+            registry.setEnumerationProgressHandler(progressHandler);
+            registry.startAsync();
+            singletonInstance = registry;
+        } else if (progressHandler != null) {
+            singletonInstance.setEnumerationProgressHandler(progressHandler);
         }
         return singletonInstance;
     }
@@ -60,6 +79,68 @@ public class Usb {
     private Usb() {
     }
 
+    /**
+     * Sets the filter for the USB devices of interest.
+     * <p>
+     * Devices not matching the filter are ignored: they are not part of the device list,
+     * and no handlers are called if they are connected or disconnected. The vendor and product ID
+     * are checked before the device details are retrieved. So devices not of interest cause
+     * almost no work during the initial enumeration and when they are connected.
+     * </p>
+     * <p>
+     * Class code and serial number conditions require the device details. On platforms loading
+     * them on first access (currently Linux), they are read for each device with matching IDs.
+     * </p>
+     * <p>
+     * This method must be called before any other method of this class.
+     * </p>
+     *
+     * @param filter the filter, or {@code null} for all devices
+     * @throws IllegalStateException if the list of USB devices has already been built
+     */
+    public static synchronized void setDeviceFilter(@Nullable UsbDeviceFilter filter) {
+        if (singletonInstance != null)
+            throw new IllegalStateException("the device filter must be set before USB devices are accessed");
+        deviceFilter = filter;
+    }
+
+    /**
+     * Starts the initial enumeration of the USB devices without waiting for it to complete.
+     * <p>
+     * Usually, the enumeration is started by the first call to a method of this class, which then blocks
+     * until the enumeration is complete. This method allows the enumeration to overlap with other
+     * initialization work. Methods of this class called before the enumeration is complete still block.
+     * </p>
+     * <p>
+     * If the enumeration has already been started, the returned future refers to that enumeration.
+     * Each call returns a new future. Completing or cancelling it does not affect the enumeration.
+     * </p>
+     *
+     * @return future completed with the list of USB devices, or completed exceptionally with a
+     * {@link UsbException} if the enumeration has failed
+     */
+    public static @NotNull CompletableFuture<List<UsbDevice>> initAsync() {
+        return initAsync(null);
+    }
+
+    /**
+     * Starts the initial enumeration of the USB devices without waiting for it to complete
+     * and reports its progress.
+     * <p>
+     * The progress handler is called with the number of devices found so far. It is called from
+     * a background thread and should return quickly.
+     * </p>
+     *
+     * @param progressHandler handler called with the number of devices found so far, or {@code null}
+     * @return future completed with the list of USB devices, or completed exceptionally with a
+     * {@link UsbException} if the enumeration has failed
+     * @see #initAsync()
+     */
+    public static @NotNull CompletableFuture<List<UsbDevice>> initAsync(@Nullable IntConsumer progressHandler) {
+        // copy so callers cannot complete the registry's future
+        return startRegistry(progressHandler).getInitialEnumeration().copy();
+    }
+
     /**
      * Gets a list of all connected USB devices.
      *
@@ -71,7 +152,7 @@ public class Usb {
      * @return list of USB devices
      */
     public static @NotNull @Unmodifiable Collection<UsbDevice> getDevices() {
-        return Collections.unmodifiableCollection(instance().getAllDevices());
+        return instance().getAllDevices();
     }
 
     /**
@@ -102,7 +183,243 @@ public class Usb {
      * @return optional USB device
      */
     public static Optional<UsbDevice> findDevice(int vendorId, int productId) {
-        return findDevice(device -> device.getVendorId() == vendorId && device.getProductId() == productId);
+        var devices = instance().findDevices(vendorId, productId);
+        return devices.isEmpty() ? Optional.empty() : Optional.of(devices.getFirst());
+    }
+
+    /**
+     * Gets the connected USB devices with the specified vendor and product ID.
+     * <p>
+     * The devices are looked up in an index. So the lookup takes constant time.
+     * </p>
+     *
+     * @param vendorId vendor ID
+     * @param productId product ID
+     * @return list of USB devices
+     */
+    public static @NotNull @Unmodifiable List<UsbDevice> findDevices(int vendorId, int productId) {
+        return instance().findDevices(vendorId, productId);
+    }
+
+    /**
+     * Gets the connected USB device with the specified serial number.
+     * <p>
+     * The device is looked up in an index. So the lookup takes constant time (except for the
+     * first lookup after a device has been connected or disconnected).
+     * If several devices have the same serial number, the first one is returned.
+     * </p>
+     * <p>
+     * Building the index requires the serial numbers of all devices. On platforms loading the
+     * product strings on first access (currently Linux), the first lookup reads them for all devices
+     * not accessed so far.
+     * </p>
+     *
+     * @param serialNumber serial number
+     * @return optional USB device
+     */
+    public static Optional<UsbDevice> findDeviceBySerialNumber(@NotNull String serialNumber) {
+        return Optional.ofNullable(instance().findDeviceBySerialNumber(serialNumber));
+    }
+
+    /**
+     * Gets the hub the specified device is connected to.
+     * <p>
+     * Together with {@link UsbDevice#getBusNumber()} and {@link UsbDevice#getPortPath()},
+     * it allows to navigate the USB topology. It is currently only available on Linux.
+     * </p>
+     *
+     * @param device the device
+     * @return optional hub (empty for root hubs or if the topology is not known)
+     */
+    public static Optional<UsbDevice> getParentHub(@NotNull UsbDevice device) {
+        return Optional.ofNullable(instance().findParentHub(device));
+    }
+
+    /**
+     * Gets the bandwidth declared by the connected devices, grouped by bus (root hub).
+     * <p>
+     * The result can be used to place high-throughput devices on host controllers with little load.
+     * The bandwidth is computed from the endpoint descriptors. So it reflects the bandwidth reserved for
+     * periodic transfers, not the actual traffic. It is currently only available on Linux.
+     * </p>
+     *
+     * @return list of bus loads, sorted by bus number
+     */
+    public static @NotNull @Unmodifiable List<UsbBusLoad> getBusLoads() {
+        return List.copyOf(instance().getBusLoads());
+    }
+
+    /**
+     * Gets the version of the device list.
+     * <p>
+     * The version is incremented each time devices are connected or disconnected. It can be used
+     * with {@link #getDeviceChangesSince(long)} and {@link #awaitDeviceChange(long, int)} to efficiently
+     * poll for changes.
+     * </p>
+     *
+     * @return the version
+     */
+    public static long getDeviceListVersion() {
+        return instance().getVersion();
+    }
+
+    /**
+     * Gets the devices connected and disconnected since the specified version of the device list.
+     * <p>
+     * Devices connected and disconnected in between are not included. The returned changes contain
+     * the current version, which can be used for the next call.
+     * </p>
+     * <p>
+     * Only a limited number of changes are retained. If the specified version is too old,
+     * an empty optional is returned, and the caller should fall back to {@link #getDevices()}.
+     * </p>
+     *
+     * @param version the version (from {@link #getDeviceListVersion()} or a previous call)
+     * @return optional changes
+     */
+    public static Optional<UsbDeviceChanges> getDeviceChangesSince(long version) {
+        return Optional.ofNullable(instance().getChangesSince(version));
+    }
+
+    /**
+     * Waits until the device list has changed beyond the specified version.
+     *
+     * @param version the version (from {@link #getDeviceListVersion()} or a previous call)
+     * @param timeout the maximum time to wait (in ms)
+     * @return the current version (equal to {@code version} if the timeout has expired)
+     * @throws InterruptedException if the thread has been interrupted while waiting
+     */
+    public static long awaitDeviceChange(long version, int timeout) throws InterruptedException {
+        return instance().awaitChange(version, timeout);
+    }
+
+    /**
+     * Opens a new selector for serving endpoints of multiple devices from a single thread.
+     *
+     * @return the new selector
+     * @see UsbSelector
+     */
+    public static @NotNull UsbSelector openSelector() {
+        return new UsbSelectorImpl();
+    }
+
+    /**
+     * Gets the statistics of the native buffer pool used for transfer buffers.
+     *
+     * @return the statistics
+     */
+    public static @NotNull UsbBufferPoolStatistics getBufferPoolStatistics() {
+        return TransferBufferPool.shared().getStatistics();
+    }
+
+    /**
+     * Sets the capacity of the native buffer pool used for transfer buffers.
+     * <p>
+     * The capacity is the maximum number of bytes kept in the pool for reuse while not in use.
+     * Buffers returned when the pool is full are freed. The default capacity is 16 MB.
+     * </p>
+     *
+     * @param capacity capacity (in bytes)
+     */
+    public static void setBufferPoolCapacity(long capacity) {
+        TransferBufferPool.shared().setCapacity(capacity);
+    }
+
+    /**
+     * Subscribes to USB device events.
+     * <p>
+     * In contrast to the handlers set with {@link #setOnDeviceConnected(Consumer)} and
+     * {@link #setOnDeviceDisconnected(Consumer)}, any number of listeners can subscribe. They do not
+     * run on the background thread monitoring the devices. So slow listeners do not delay
+     * the processing of other device events.
+     * </p>
+     * <p>
+     * Each subscription has its own queue. The events are delivered in order, one at a time, using the
+     * specified executor. The predicate is evaluated on the executor as well. If the listener
+     * cannot keep up and the queue is full, events are dropped.
+     * </p>
+     * <p>
+     * Events for devices that are already connected when subscribing are not delivered.
+     * </p>
+     *
+     * @param filter   predicate selecting the devices of interest, or {@code null} for all devices
+     * @param listener listener receiving the events
+     * @param executor executor for delivering the events
+     * @return the subscription
+     */
+    public static @NotNull UsbDeviceSubscription subscribe(@Nullable UsbDevicePredicate filter,
+                                                           @NotNull Consumer<UsbDeviceEvent> listener,
+                                                           @NotNull Executor executor) {
+        return instance().subscribe(filter, listener, executor);
+    }
+
+    /**
+     * Subscribes to USB device events, delivered on a virtual thread.
+     * <p>
+     * See {@link #subscribe(UsbDevicePredicate, Consumer, Executor)} for details.
+     * </p>
+     *
+     * @param filter   predicate selecting the devices of interest, or {@code null} for all devices
+     * @param listener listener receiving the events
+     * @return the subscription
+     */
+    public static @NotNull UsbDeviceSubscription subscribe(@Nullable UsbDevicePredicate filter,
+                                                           @NotNull Consumer<UsbDeviceEvent> listener) {
+        return instance().subscribe(filter, listener, null);
+    }
+
+    /**
+     * Gets a publisher of USB device events.
+     * <p>
+     * Each subscriber has its own buffer. The events are delivered in order on virtual threads,
+     * respecting the subscriber's demand. If the buffer is full, events are dropped.
+     * </p>
+     *
+     * @return the publisher
+     */
+    public static @NotNull Flow.Publisher<UsbDeviceEvent> getDeviceEventPublisher() {
+        return instance().getEventPublisher();
+    }
+
+    /**
+     * Sets the coalescing window for device changes.
+     * <p>
+     * If many devices are connected or disconnected within a short time (e.g. when a hub is power-cycled),
+     * the changes can be coalesced: they are collected for the duration of the window (starting with the
+     * first change) and then applied to the device list at once. The handler set with
+     * {@link #setOnDevicesChanged(Consumer)} is then called once for all changes. Devices connected and
+     * disconnected within the same window are dropped and not reported at all.
+     * </p>
+     * <p>
+     * Disconnected devices can no longer be used. So {@link #getDevices()} and the other lookup methods
+     * skip them immediately, even though they are only removed from the device list at the end of the window.
+     * </p>
+     * <p>
+     * By default, changes are not coalesced.
+     * </p>
+     *
+     * @param window the window (in ms), or 0 to apply each change immediately
+     */
+    public static void setDeviceChangeCoalescing(int window) {
+        instance().setCoalescingWindow(window);
+    }
+
+    /**
+     * Sets the handler to be called when USB devices have been connected or disconnected.
+     * <p>
+     * If changes are coalesced (see {@link #setDeviceChangeCoalescing(int)}), the handler is called once
+     * per coalescing window. Otherwise, it is called for each device. It is called after the handlers for
+     * the individual devices.
+     * </p>
+     * <p>
+     * The handler is called from a background thread. It should not execute any time-consuming operations
+     * but rather return quickly.
+     * </p>
+     *
+     * @param handler handler function, or {@code null} to remove a previous handler
+     */
+    public static void setOnDevicesChanged(@Nullable Consumer<UsbDeviceChanges> handler) {
+        instance().setOnDevicesChanged(handler);
     }
 
     /**
@@ -0,0 +1,33 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+/**
+ * Statistics of the native buffer pool used for transfer buffers.
+ * <p>
+ * All transfer buffers of endpoint streams, channels, transfer rings and
+ * synchronous transfers are taken from a process-wide pool and returned
+ * to it when the stream, channel or transfer is finished.
+ * </p>
+ *
+ * @param capacity       maximum number of bytes kept in the pool while not in use
+ * @param idleBytes      number of bytes currently kept in the pool while not in use
+ * @param inUseBytes     number of bytes currently in use by transfers
+ * @param allocatedBytes total number of bytes of native memory allocated by the pool since the start
+ * @param numAcquired    total number of buffers handed out since the start
+ * @param numReused      number of buffers handed out that were served from the pool without allocation
+ */
+public record UsbBufferPoolStatistics(
+        long capacity,
+        long idleBytes,
+        long inUseBytes,
+        long allocatedBytes,
+        long numAcquired,
+        long numReused
+) {
+}
@@ -0,0 +1,44 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import java.util.List;
+
+/**
+ * Bandwidth declared by the devices connected to a single bus (root hub).
+ * <p>
+ * The periodic bandwidth is the sum of the bandwidth declared by the interrupt and isochronous endpoints
+ * of the current alternate settings. Bulk endpoints do not declare a bandwidth. They share the bandwidth
+ * not used by periodic transfers and are only counted.
+ * </p>
+ *
+ * @param busNumber         bus number
+ * @param speed             speed of the root hub
+ * @param devices           devices connected to the bus (immutable list)
+ * @param periodicBandwidth declared bandwidth of interrupt and isochronous endpoints (in bytes/s)
+ * @param numBulkEndpoints  number of bulk endpoints
+ */
+public record UsbBusLoad(
+        int busNumber,
+        UsbSpeed speed,
+        List<UsbDevice> devices,
+        long periodicBandwidth,
+        int numBulkEndpoints
+) {
+
+    /**
+     * Gets the periodic bandwidth as a fraction of the bus's bit rate.
+     *
+     * @return the load (between 0 and 1), or {@code NaN} if the speed is not known
+     */
+    public double periodicLoad() {
+        if (speed.getBitRate() == 0)
+            return Double.NaN;
+        return periodicBandwidth * 8.0 / speed.getBitRate();
+    }
+}
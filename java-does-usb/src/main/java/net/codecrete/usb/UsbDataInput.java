@@ -0,0 +1,151 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+/**
+ * Decoder for primitive values received from a bulk endpoint.
+ * <p>
+ * The values are decoded directly from the native transfer buffers of the underlying
+ * input stream in the specified byte order. Arrays are decoded in bulk. The bytes of a value
+ * are only copied if the value spans two transfers.
+ * </p>
+ * <p>
+ * The decoder is a view of the input stream. Reads on the decoder and on the stream
+ * can be mixed. The decoder does not need to be closed; close the stream instead.
+ * If a read timeout expires in the middle of a value, the bytes already read are lost.
+ * </p>
+ * <p>
+ * Instances are created with {@link UsbInputStream#asDataInput(ByteOrder)}.
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public interface UsbDataInput {
+
+    /**
+     * Gets the byte order used for decoding values.
+     *
+     * @return the byte order
+     */
+    @NotNull ByteOrder order();
+
+    /**
+     * Reads a byte.
+     *
+     * @return the byte value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    byte readByte() throws IOException;
+
+    /**
+     * Reads a 16-bit integer value.
+     *
+     * @return the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    short readShort() throws IOException;
+
+    /**
+     * Reads a 32-bit integer value.
+     *
+     * @return the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    int readInt() throws IOException;
+
+    /**
+     * Reads a 64-bit integer value.
+     *
+     * @return the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    long readLong() throws IOException;
+
+    /**
+     * Reads a 32-bit floating-point value.
+     *
+     * @return the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    float readFloat() throws IOException;
+
+    /**
+     * Reads a 64-bit floating-point value.
+     *
+     * @return the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    double readDouble() throws IOException;
+
+    /**
+     * Reads the specified number of bytes.
+     * <p>
+     * The method blocks until all bytes have been received.
+     * </p>
+     *
+     * @param dst array receiving the data
+     * @param off offset within the array
+     * @param len number of bytes
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readFully(byte @NotNull [] dst, int off, int len) throws IOException;
+
+    /**
+     * Reads the specified number of 16-bit integer values.
+     *
+     * @param dst array receiving the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readShorts(short @NotNull [] dst, int off, int len) throws IOException;
+
+    /**
+     * Reads the specified number of 32-bit integer values.
+     *
+     * @param dst array receiving the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readInts(int @NotNull [] dst, int off, int len) throws IOException;
+
+    /**
+     * Reads the specified number of 64-bit integer values.
+     *
+     * @param dst array receiving the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readLongs(long @NotNull [] dst, int off, int len) throws IOException;
+
+    /**
+     * Reads the specified number of 32-bit floating-point values.
+     *
+     * @param dst array receiving the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readFloats(float @NotNull [] dst, int off, int len) throws IOException;
+
+    /**
+     * Reads the specified number of 64-bit floating-point values.
+     *
+     * @param dst array receiving the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readDoubles(double @NotNull [] dst, int off, int len) throws IOException;
+}
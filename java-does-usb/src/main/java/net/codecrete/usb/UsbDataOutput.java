@@ -0,0 +1,153 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+/**
+ * Encoder for primitive values sent to a bulk endpoint.
+ * <p>
+ * The values are encoded directly into the native transfer buffers of the underlying
+ * output stream in the specified byte order. Arrays are encoded in bulk.
+ * </p>
+ * <p>
+ * The encoder is a view of the output stream. Writes on the encoder and on the stream
+ * can be mixed. The encoder does not need to be closed; close the stream instead.
+ * </p>
+ * <p>
+ * Instances are created with {@link UsbOutputStream#asDataOutput(ByteOrder)}.
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public interface UsbDataOutput {
+
+    /**
+     * Gets the byte order used for encoding values.
+     *
+     * @return the byte order
+     */
+    @NotNull ByteOrder order();
+
+    /**
+     * Writes a byte.
+     *
+     * @param value the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeByte(byte value) throws IOException;
+
+    /**
+     * Writes a 16-bit integer value.
+     *
+     * @param value the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeShort(short value) throws IOException;
+
+    /**
+     * Writes a 32-bit integer value.
+     *
+     * @param value the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeInt(int value) throws IOException;
+
+    /**
+     * Writes a 64-bit integer value.
+     *
+     * @param value the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeLong(long value) throws IOException;
+
+    /**
+     * Writes a 32-bit floating-point value.
+     *
+     * @param value the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeFloat(float value) throws IOException;
+
+    /**
+     * Writes a 64-bit floating-point value.
+     *
+     * @param value the value
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeDouble(double value) throws IOException;
+
+    /**
+     * Writes the specified bytes.
+     *
+     * @param src array containing the data
+     * @param off offset within the array
+     * @param len number of bytes
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void write(byte @NotNull [] src, int off, int len) throws IOException;
+
+    /**
+     * Writes the specified 16-bit integer values.
+     *
+     * @param src array containing the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeShorts(short @NotNull [] src, int off, int len) throws IOException;
+
+    /**
+     * Writes the specified 32-bit integer values.
+     *
+     * @param src array containing the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeInts(int @NotNull [] src, int off, int len) throws IOException;
+
+    /**
+     * Writes the specified 64-bit integer values.
+     *
+     * @param src array containing the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeLongs(long @NotNull [] src, int off, int len) throws IOException;
+
+    /**
+     * Writes the specified 32-bit floating-point values.
+     *
+     * @param src array containing the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeFloats(float @NotNull [] src, int off, int len) throws IOException;
+
+    /**
+     * Writes the specified 64-bit floating-point values.
+     *
+     * @param src array containing the values
+     * @param off offset within the array
+     * @param len number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeDoubles(double @NotNull [] src, int off, int len) throws IOException;
+
+    /**
+     * Sends the buffered data (see {@link UsbOutputStream#flush()}).
+     *
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void flush() throws IOException;
+}
@@ -8,11 +8,22 @@
 package net.codecrete.usb;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
-import java.io.InputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
 
 /**
  * USB device.
@@ -25,6 +36,14 @@ import java.util.List;
  * Information about the device can be queried in both the open and the
  * closed state.
  * </p>
+ * <p>
+ * On some platforms (currently Linux), the descriptors and the product strings are
+ * only loaded on first access. So the methods returning information derived from them
+ * (e.g. {@link #getManufacturer()}, {@link #getClassCode()}, {@link #getInterfaces()}
+ * or {@link #getEndpoint(UsbDirection, int)}) can throw a {@link UsbException}
+ * if the device has been unplugged before they were first called. Once loaded, the
+ * information remains available.
+ * </p>
  */
 public interface UsbDevice {
 
@@ -71,6 +90,7 @@ public interface UsbDevice {
      * USB device class code ({@code bDeviceClass} from device descriptor).
      *
      * @return class code
+     * @exception UsbException if the descriptors cannot be loaded (e.g. the device has been unplugged)
      */
     int getClassCode();
 
@@ -102,6 +122,39 @@ public interface UsbDevice {
      */
     @NotNull Version getDeviceVersion();
 
+    /**
+     * Gets the number of the bus the device is connected to.
+     * <p>
+     * Each bus corresponds to a root hub of a host controller. This information is currently
+     * only available on Linux.
+     * </p>
+     *
+     * @return bus number, or 0 if not known
+     */
+    int getBusNumber();
+
+    /**
+     * Gets the chain of hub port numbers leading from the root hub to this device.
+     * <p>
+     * For a device connected to port 3 of a hub, which itself is connected to port 1
+     * of the root hub, the path is [1, 3]. For root hubs, the path is empty.
+     * This information is currently only available on Linux.
+     * </p>
+     *
+     * @return list of port numbers (empty for root hubs or if not known)
+     */
+    @NotNull @Unmodifiable List<Integer> getPortPath();
+
+    /**
+     * Gets the negotiated link speed.
+     * <p>
+     * This information is currently only available on Linux.
+     * </p>
+     *
+     * @return the speed
+     */
+    @NotNull UsbSpeed getSpeed();
+
     /**
      * Detaches the standard operating-system drivers of this device.
      * <p>
@@ -188,6 +241,7 @@ public interface UsbDevice {
      * </p>
      *
      * @return a list of USB interfaces
+     * @exception UsbException if the descriptors cannot be loaded (e.g. the device has been unplugged)
      */
     @NotNull
     @Unmodifiable
@@ -208,7 +262,7 @@ public interface UsbDevice {
      * @param direction      the endpoint direction
      * @param endpointNumber the endpoint number (between 1 and 127)
      * @return the endpoint
-     * @exception UsbException if the endpoint does not exist
+     * @exception UsbException if the endpoint does not exist or the descriptors cannot be loaded
      */
     @NotNull UsbEndpoint getEndpoint(UsbDirection direction, int endpointNumber);
 
@@ -381,6 +435,47 @@ public interface UsbDevice {
      */
     byte @NotNull [] transferIn(int endpointNumber, int timeout);
 
+    /**
+     * Sends the data of several buffers to this device as a single transfer (gathering write).
+     * <p>
+     * The remaining bytes of all buffers are assembled in a single native transfer buffer.
+     * So there is no need to concatenate them first. After the data has been sent, the position
+     * of each buffer is set to its limit.
+     * </p>
+     * <p>
+     * This method blocks until the data has been sent, the timeout period has expired
+     * or an error has occurred. If the timeout expires, a {@link UsbTimeoutException} is thrown.
+     * This method will not send a zero-length packet: if the buffers have no remaining bytes,
+     * it returns immediately without sending anything.
+     * </p>
+     *
+     * @param endpointNumber the endpoint number (in the range between 1 and 127)
+     * @param srcs           buffers containing the data
+     * @param timeout        the timeout period, in milliseconds (0 for no timeout)
+     */
+    void transferOut(int endpointNumber, @NotNull ByteBuffer[] srcs, int timeout);
+
+    /**
+     * Receives data from this device into several buffers (scattering read).
+     * <p>
+     * A single transfer is submitted with the size of the remaining bytes of all buffers.
+     * The total size should be a multiple of the endpoint's packet size. The received data
+     * fills the buffers in order and their positions are advanced accordingly.
+     * </p>
+     * <p>
+     * This method blocks until a packet shorter than the packet size has been received,
+     * all buffers are full, the timeout period has expired or an error has occurred.
+     * If the timeout expires, a {@link UsbTimeoutException} is thrown.
+     * </p>
+     *
+     * @param endpointNumber the endpoint number (in the range between 1 and 127)
+     * @param dsts           buffers receiving the data
+     * @param timeout        the timeout period, in milliseconds (0 for no timeout)
+     * @return the number of bytes received
+     * @throws IllegalArgumentException if the buffers have no space remaining
+     */
+    int transferIn(int endpointNumber, @NotNull ByteBuffer[] dsts, int timeout);
+
     /**
      * Opens a new output stream to send data to a bulk endpoint.
      * <p>
@@ -400,7 +495,7 @@ public interface UsbDevice {
      * @param bufferSize approximate buffer size (in bytes)
      * @return the new output stream
      */
-    @NotNull OutputStream openOutputStream(int endpointNumber, int bufferSize);
+    @NotNull UsbOutputStream openOutputStream(int endpointNumber, int bufferSize);
 
     /**
      * Opens a new output stream to send data to a bulk endpoint.
@@ -411,7 +506,7 @@ public interface UsbDevice {
      * @param endpointNumber bulk endpoint number (in the range between 1 and 127)
      * @return the new output stream
      */
-    default @NotNull OutputStream openOutputStream(int endpointNumber) {
+    default @NotNull UsbOutputStream openOutputStream(int endpointNumber) {
         return openOutputStream(endpointNumber, 1);
     }
 
@@ -431,7 +526,7 @@ public interface UsbDevice {
      * @param bufferSize approximate buffer size (in bytes)
      * @return the new input stream
      */
-    @NotNull InputStream openInputStream(int endpointNumber, int bufferSize);
+    @NotNull UsbInputStream openInputStream(int endpointNumber, int bufferSize);
 
     /**
      * Opens a new input stream to receive data from a bulk endpoint.
@@ -443,10 +538,225 @@ public interface UsbDevice {
      * @param endpointNumber bulk endpoint number (in the range between 1 and 127, i.e. without the direction bit)
      * @return the new input stream
      */
-    default @NotNull InputStream openInputStream(int endpointNumber) {
+    default @NotNull UsbInputStream openInputStream(int endpointNumber) {
         return openInputStream(endpointNumber, 1);
     }
 
+    /**
+     * Opens a new channel to receive data from a bulk endpoint.
+     * <p>
+     * The channel works like the input stream returned by {@link #openInputStream(int, int)}.
+     * However, data is copied directly from the native transfer buffers into the
+     * provided {@link java.nio.ByteBuffer} without an intermediate copy into a byte array.
+     * Direct byte buffers are the most efficient choice.
+     * </p>
+     * <p>
+     * The channel is blocking: {@link ReadableByteChannel#read(java.nio.ByteBuffer)} blocks until
+     * at least one byte has been received.
+     * </p>
+     *
+     * @param endpointNumber bulk endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @return the new channel
+     */
+    @NotNull ReadableByteChannel openReadableChannel(int endpointNumber, int bufferSize);
+
+    /**
+     * Opens a new channel to send data to a bulk endpoint.
+     * <p>
+     * The channel works like the output stream returned by {@link #openOutputStream(int, int)}.
+     * However, data is copied directly from the provided {@link java.nio.ByteBuffer} into the
+     * native transfer buffers without an intermediate copy into a byte array.
+     * </p>
+     * <p>
+     * Data is buffered until a transfer is full. When the channel is closed, the remaining
+     * data is sent (followed by a zero-length packet if needed).
+     * </p>
+     *
+     * @param endpointNumber bulk endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @return the new channel
+     */
+    @NotNull WritableByteChannel openWritableChannel(int endpointNumber, int bufferSize);
+
+    /**
+     * Opens a new asynchronous channel for a bulk or interrupt endpoint.
+     * <p>
+     * Each read or write operation is submitted as a single USB transfer. If a direct
+     * {@link java.nio.ByteBuffer} is used, the transfer reads into or writes from the buffer's memory
+     * without any copying. For heap buffers, and for reads with less space than a packet,
+     * an internal buffer is used.
+     * </p>
+     * <p>
+     * A channel for an IN endpoint only supports reading, a channel for an OUT endpoint
+     * only supports writing. Only a single operation can be pending at a time.
+     * </p>
+     * <p>
+     * Completion handlers are called from a background thread that handles all IO completions.
+     * They should not execute any time-consuming operations but rather return quickly.
+     * Initiating the next read or write from within the completion handler is fine.
+     * </p>
+     * <p>
+     * Write operations send the data as is. If the data is a multiple of the packet size and
+     * the device expects a zero-length packet to terminate a data unit, write an empty buffer.
+     * </p>
+     *
+     * @param direction      endpoint direction
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @return the new channel
+     */
+    @NotNull AsynchronousByteChannel openAsynchronousChannel(@NotNull UsbDirection direction, int endpointNumber);
+
+    /**
+     * Opens a new publisher of the data received from a bulk or interrupt endpoint.
+     * <p>
+     * Each item is the data received in a single transfer. The number of transfers
+     * submitted to the operating system is limited by the subscriber's demand and by
+     * the buffer size. So a slow subscriber throttles the device.
+     * </p>
+     * <p>
+     * The subscriber is called on the specified executor. The byte buffer passed to
+     * {@link Flow.Subscriber#onNext(Object)} is only valid during the call. Zero-length packets are skipped.
+     * </p>
+     * <p>
+     * The publisher supports a single subscriber. It never completes normally.
+     * The subscription is terminated with an error if a transfer fails, e.g. because
+     * the device has been disconnected. Cancel the subscription to stop receiving data.
+     * </p>
+     *
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @param executor       executor for calling the subscriber
+     * @return the new publisher
+     */
+    @NotNull Flow.Publisher<ByteBuffer> openPublisher(int endpointNumber, int bufferSize, @NotNull Executor executor);
+
+    /**
+     * Opens a new publisher of the data received from a bulk or interrupt endpoint.
+     * <p>
+     * The subscriber is called using the common fork-join pool. In all other aspects,
+     * this method works like {@link #openPublisher(int, int, Executor)}.
+     * </p>
+     *
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @return the new publisher
+     */
+    default @NotNull Flow.Publisher<ByteBuffer> openPublisher(int endpointNumber, int bufferSize) {
+        return openPublisher(endpointNumber, bufferSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Opens a new subscriber sending the received data to a bulk or interrupt endpoint.
+     *
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @return the new subscriber
+     * @see UsbEndpointSubscriber
+     */
+    @NotNull UsbEndpointSubscriber openSubscriber(int endpointNumber, int bufferSize);
+
+    /**
+     * Opens a new ring of transfers permanently queued on a bulk or interrupt endpoint.
+     * <p>
+     * The transfer ring provides direct access to the transfer buffers and is suitable for continuous
+     * data acquisition at the maximum rate. See {@link UsbTransferRing} for details.
+     * </p>
+     * <p>
+     * For IN endpoints, the transfer size must be a multiple of the endpoint's maximum packet size.
+     * </p>
+     *
+     * @param direction      endpoint direction
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param numTransfers   number of transfers in the ring
+     * @param transferSize   size of each transfer buffer (in bytes)
+     * @return the new transfer ring
+     */
+    @NotNull UsbTransferRing openTransferRing(@NotNull UsbDirection direction, int endpointNumber, int numTransfers,
+                                              int transferSize);
+
+    /**
+     * Opens a new ring buffer receiving the data from a bulk or interrupt IN endpoint.
+     * <p>
+     * The received data is made available as a single contiguous memory segment,
+     * even if it spans several transfers or wraps around the end of the ring.
+     * See {@link UsbRingBuffer} for details.
+     * </p>
+     *
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param capacity       maximum number of bytes that can be accessed at once (in bytes)
+     * @return the new ring buffer
+     */
+    @NotNull UsbRingBuffer openRingBuffer(int endpointNumber, int capacity);
+
+    /**
+     * Starts recording the data received from a bulk or interrupt IN endpoint to a file.
+     * <p>
+     * The data is written on a dedicated thread directly from the native transfer buffers.
+     * If writing cannot keep up, received data is discarded instead of stalling the endpoint.
+     * See {@link UsbRecorder} for details.
+     * </p>
+     * <p>
+     * The buffer size determines the number and size of the transfers. Twice the buffer size
+     * is allocated as the transfer buffers are double-buffered.
+     * </p>
+     *
+     * @param endpointNumber endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param channel        file channel to write the data to (at its current position)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @param maxLength      maximum number of bytes to record (use {@link Long#MAX_VALUE} for no limit)
+     * @return the recorder
+     */
+    @NotNull UsbRecorder startRecording(int endpointNumber, @NotNull FileChannel channel, int bufferSize,
+                                        long maxLength);
+
+    /**
+     * Sends the contents of a file to a bulk or interrupt endpoint.
+     * <p>
+     * The file is memory-mapped and the transfers are submitted with consecutive slices
+     * of the mapped file. So the data is not copied in user space. Up to the specified number
+     * of transfers are outstanding at any time.
+     * </p>
+     * <p>
+     * This method blocks until the entire file has been sent or an error has occurred.
+     * If the file length is a multiple of the packet size, a zero-length packet is sent
+     * at the end.
+     * </p>
+     * <p>
+     * The progress listener is called on the calling thread with the number of bytes sent so far.
+     * </p>
+     *
+     * @param endpointNumber   endpoint number (in the range between 1 and 127, i.e. without the direction bit)
+     * @param path             path of the file to send
+     * @param numTransfers     maximum number of outstanding transfers
+     * @param transferSize     maximum size of each transfer (in bytes)
+     * @param progressListener listener notified about the progress (or {@code null})
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    void sendFile(int endpointNumber, @NotNull Path path, int numTransfers, int transferSize,
+                  @Nullable LongConsumer progressListener) throws IOException;
+
+    /**
+     * Opens a pipe forwarding the data received from a bulk or interrupt IN endpoint of this device
+     * to a bulk or interrupt OUT endpoint of the target device.
+     * <p>
+     * The buffers circulate between the two endpoints without copying the data.
+     * See {@link UsbForwardingPipe} for details.
+     * </p>
+     * <p>
+     * The target device can be this device. It must be open and the interface with the
+     * OUT endpoint must be claimed.
+     * </p>
+     *
+     * @param inEndpointNumber  IN endpoint number of this device (in the range between 1 and 127)
+     * @param target            target device
+     * @param outEndpointNumber OUT endpoint number of the target device (in the range between 1 and 127)
+     * @param bufferSize        approximate buffer size (in bytes)
+     * @return the forwarding pipe
+     */
+    @NotNull UsbForwardingPipe openForwardingPipe(int inEndpointNumber, @NotNull UsbDevice target,
+                                                  int outEndpointNumber, int bufferSize);
+
     /**
      * Aborts all transfers on an endpoint.
      * <p>
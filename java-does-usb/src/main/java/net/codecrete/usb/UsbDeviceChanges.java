@@ -0,0 +1,32 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import java.util.List;
+
+/**
+ * Set of USB devices that have been connected and disconnected.
+ * <p>
+ * Each change of the device list increments the version. The changes lead from the previous
+ * version to {@code version} (or from the version passed to {@link Usb#getDeviceChangesSince(long)}).
+ * </p>
+ * <p>
+ * If device changes are coalesced, a device that has been connected and disconnected within
+ * the same coalescing window is not part of either list.
+ * </p>
+ *
+ * @param version version of the device list after the changes
+ * @param added   devices that have been connected (immutable list)
+ * @param removed devices that have been disconnected (immutable list)
+ */
+public record UsbDeviceChanges(
+        long version,
+        List<UsbDevice> added,
+        List<UsbDevice> removed
+) {
+}
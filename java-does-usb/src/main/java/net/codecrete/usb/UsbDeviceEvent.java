@@ -0,0 +1,38 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+/**
+ * Event reporting a USB device being connected or disconnected.
+ * <p>
+ * When a disconnect event is delivered, the {@link UsbDevice} instance has already been closed.
+ * Descriptive information can still be accessed.
+ * </p>
+ *
+ * @param type   event type
+ * @param device USB device
+ */
+public record UsbDeviceEvent(
+        Type type,
+        UsbDevice device
+) {
+
+    /**
+     * Type of device event.
+     */
+    public enum Type {
+        /**
+         * The device has been connected.
+         */
+        CONNECTED,
+        /**
+         * The device has been disconnected.
+         */
+        DISCONNECTED
+    }
+}
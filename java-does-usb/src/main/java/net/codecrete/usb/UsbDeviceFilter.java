@@ -0,0 +1,152 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Filter for USB devices based on vendor and product ID, class code and serial number.
+ * <p>
+ * A device matches if all specified conditions are met:
+ * </p>
+ * <ul>
+ *     <li>Its vendor and product ID matches any of the specified ID pairs (if ID pairs have been specified).</li>
+ *     <li>Its class code is equal to the specified class code (if a class code has been specified).</li>
+ *     <li>Its serial number matches the specified pattern (if a pattern has been specified).</li>
+ * </ul>
+ * <p>
+ * Instances are immutable. The {@code with} and {@code or} methods return a new instance.
+ * </p>
+ * <p>
+ * If the filter is registered with {@link Usb#setDeviceFilter(UsbDeviceFilter)}, the vendor and product ID
+ * are checked before the device details are retrieved. So devices not of interest cause almost no work.
+ * </p>
+ * <p>
+ * The class code and serial number conditions are more costly. On platforms loading the device
+ * details on first access (currently Linux), checking them reads the descriptors or the product
+ * strings of each device with matching IDs. Combine them with vendor and product IDs to limit
+ * this work to the relevant devices.
+ * </p>
+ */
+public final class UsbDeviceFilter implements UsbDevicePredicate {
+
+    /**
+     * Wildcard for the product ID matching any product of the vendor.
+     */
+    public static final int ANY_PRODUCT = -1;
+
+    private final List<Ids> ids;
+    private final int classCode;
+    private final Pattern serialNumberPattern;
+
+    private UsbDeviceFilter(List<Ids> ids, int classCode, Pattern serialNumberPattern) {
+        this.ids = ids;
+        this.classCode = classCode;
+        this.serialNumberPattern = serialNumberPattern;
+    }
+
+    /**
+     * Creates a filter matching all devices.
+     *
+     * @return the filter
+     */
+    public static @NotNull UsbDeviceFilter any() {
+        return new UsbDeviceFilter(List.of(), -1, null);
+    }
+
+    /**
+     * Creates a filter matching the devices with the specified vendor and product ID.
+     *
+     * @param vendorId  vendor ID
+     * @param productId product ID (or {@link #ANY_PRODUCT})
+     * @return the filter
+     */
+    public static @NotNull UsbDeviceFilter ofIds(int vendorId, int productId) {
+        return any().orIds(vendorId, productId);
+    }
+
+    /**
+     * Returns a filter additionally matching the devices with the specified vendor and product ID.
+     *
+     * @param vendorId  vendor ID
+     * @param productId product ID (or {@link #ANY_PRODUCT})
+     * @return the new filter
+     */
+    public @NotNull UsbDeviceFilter orIds(int vendorId, int productId) {
+        var newIds = new ArrayList<>(ids);
+        newIds.add(new Ids(vendorId, productId));
+        return new UsbDeviceFilter(List.copyOf(newIds), classCode, serialNumberPattern);
+    }
+
+    /**
+     * Returns a filter additionally requiring the specified device class code.
+     *
+     * @param classCode the class code
+     * @return the new filter
+     */
+    public @NotNull UsbDeviceFilter withClassCode(int classCode) {
+        return new UsbDeviceFilter(ids, classCode, serialNumberPattern);
+    }
+
+    /**
+     * Returns a filter additionally requiring the serial number to match the specified pattern.
+     * <p>
+     * Devices without serial number do not match.
+     * </p>
+     *
+     * @param pattern the regular expression for the entire serial number
+     * @return the new filter
+     */
+    public @NotNull UsbDeviceFilter withSerialNumber(@NotNull Pattern pattern) {
+        return new UsbDeviceFilter(ids, classCode, pattern);
+    }
+
+    /**
+     * Checks if the vendor and product ID match this filter.
+     * <p>
+     * This check is only based on the IDs. The device might still fail to match the other conditions.
+     * </p>
+     *
+     * @param vendorId  vendor ID
+     * @param productId product ID
+     * @return {@code true} if the IDs match, {@code false} otherwise
+     */
+    public boolean matchesIds(int vendorId, int productId) {
+        if (ids.isEmpty())
+            return true;
+
+        for (var id : ids) {
+            if (id.vendorId() == vendorId && (id.productId() == ANY_PRODUCT || id.productId() == productId))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean matches(@NotNull UsbDevice device) {
+        if (!matchesIds(device.getVendorId(), device.getProductId()))
+            return false;
+
+        if (classCode >= 0 && device.getClassCode() != classCode)
+            return false;
+
+        if (serialNumberPattern != null) {
+            var serialNumber = device.getSerialNumber();
+            return serialNumber != null && serialNumberPattern.matcher(serialNumber).matches();
+        }
+
+        return true;
+    }
+
+    private record Ids(int vendorId, int productId) {
+    }
+}
@@ -0,0 +1,29 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import java.io.Closeable;
+
+/**
+ * Subscription for USB device events.
+ * <p>
+ * See {@link Usb#subscribe(UsbDevicePredicate, java.util.function.Consumer, java.util.concurrent.Executor)}.
+ * </p>
+ */
+@FunctionalInterface
+public interface UsbDeviceSubscription extends Closeable {
+
+    /**
+     * Cancels the subscription.
+     * <p>
+     * Events that have already been queued for the listener might still be delivered.
+     * </p>
+     */
+    @Override
+    void close();
+}
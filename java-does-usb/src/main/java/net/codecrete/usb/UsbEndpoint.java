@@ -59,4 +59,16 @@ public interface UsbEndpoint {
      * @return the packet size, in bytes.
      */
     int getPacketSize();
+
+    /**
+     * Gets the polling interval.
+     * <p>
+     * This is the raw {@code bInterval} field from the endpoint descriptor. For interrupt and
+     * isochronous endpoints, it declares the service interval. Its unit depends on the transfer
+     * type and the device speed (frames of 1ms or microframes of 125µs, possibly as an exponent).
+     * </p>
+     *
+     * @return the polling interval
+     */
+    int getInterval();
 }
@@ -0,0 +1,44 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber sending the data of the received items to a bulk or interrupt OUT endpoint.
+ * <p>
+ * Items are requested one at a time, and only when the item can be copied into a free transfer buffer.
+ * So the rate of the publisher is limited by the throughput of the USB endpoint.
+ * </p>
+ * <p>
+ * The items are sent as a continuous stream of data: each item is split into one or more transfers,
+ * and empty items are skipped. When the publisher completes and the data ends with a full packet
+ * (i.e. the last transfer was a multiple of the maximum packet size), a zero-length packet is sent
+ * to terminate the data.
+ * </p>
+ * <p>
+ * The byte buffer is no longer accessed after the next item has been requested.
+ * </p>
+ */
+public interface UsbEndpointSubscriber extends Flow.Subscriber<ByteBuffer> {
+
+    /**
+     * Gets the future indicating the completion of the subscriber.
+     * <p>
+     * The future completes normally when the publisher has completed and all data has been sent.
+     * It completes exceptionally if the publisher signals an error or if a USB transfer fails.
+     * </p>
+     *
+     * @return future
+     */
+    @NotNull CompletableFuture<Void> completion();
+}
@@ -0,0 +1,60 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipe forwarding the data received from a bulk or interrupt IN endpoint to a bulk or interrupt
+ * OUT endpoint, possibly of another device.
+ * <p>
+ * A fixed set of native buffers circulates between the two endpoints: when a transfer on the
+ * IN endpoint completes, the buffer is submitted to the OUT endpoint as is. When the OUT transfer
+ * completes, the buffer is resubmitted to the IN endpoint. So the data is not copied and
+ * the memory use is bounded. Transfers are forwarded in the order they are received, including
+ * zero-length packets.
+ * </p>
+ * <p>
+ * Forwarding ends when the pipe is closed or when an error occurs on either endpoint.
+ * The result is reported by {@link #completion()}.
+ * </p>
+ */
+public interface UsbForwardingPipe extends Closeable {
+
+    /**
+     * Gets the number of bytes sent to the OUT endpoint.
+     *
+     * @return length (in bytes)
+     */
+    long forwardedLength();
+
+    /**
+     * Gets the future completing when forwarding has ended.
+     * <p>
+     * The future completes with the number of bytes forwarded, or exceptionally with
+     * an {@link java.io.IOException} if a transfer on either endpoint has failed.
+     * </p>
+     *
+     * @return the future
+     */
+    @NotNull CompletableFuture<Long> completion();
+
+    /**
+     * Stops forwarding.
+     * <p>
+     * The transfers on the IN endpoint are aborted. Data that has already been received
+     * is still sent to the OUT endpoint. The method waits (for a limited time) until
+     * all transfers have completed.
+     * </p>
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,126 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+
+/**
+ * Input stream receiving data from a bulk endpoint.
+ * <p>
+ * In addition to the standard input stream operations, the stream supports a read timeout
+ * and non-blocking reads.
+ * </p>
+ * <p>
+ * Instances are created with {@link UsbDevice#openInputStream(int, int)}.
+ * </p>
+ */
+public abstract class UsbInputStream extends InputStream {
+
+    /**
+     * Creates a new instance.
+     */
+    protected UsbInputStream() {
+    }
+
+    /**
+     * Sets the read timeout.
+     * <p>
+     * If a read operation has to wait for data longer than the timeout, an
+     * {@link InterruptedIOException} is thrown. The stream remains open and its
+     * transfers remain submitted. Data arriving later can be read with the next read operation.
+     * </p>
+     *
+     * @param timeout the timeout, in milliseconds (0 for no timeout)
+     */
+    public abstract void setReadTimeout(int timeout);
+
+    /**
+     * Gets the read timeout.
+     *
+     * @return the timeout, in milliseconds (0 for no timeout)
+     */
+    public abstract int getReadTimeout();
+
+    /**
+     * Reads the data that is available without blocking.
+     * <p>
+     * If no data has been received, the method returns 0 immediately.
+     * </p>
+     *
+     * @param b   buffer receiving the data
+     * @param off offset within buffer
+     * @param len maximum number of bytes to read
+     * @return number of bytes read (0 if no data is available)
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    public abstract int tryRead(byte @NotNull [] b, int off, int len) throws IOException;
+
+    /**
+     * Returns a view decoding primitive values from this stream in the specified byte order.
+     *
+     * @param order the byte order
+     * @return the decoder
+     */
+    public abstract @NotNull UsbDataInput asDataInput(@NotNull ByteOrder order);
+
+    /**
+     * Sets the idle timeout for adaptive prefetching.
+     * <p>
+     * The stream starts with a single outstanding transfer. For each transfer with data,
+     * the number of outstanding transfers is increased by one until the full number is reached.
+     * By default, the transfers then remain outstanding for the entire lifetime of the stream.
+     * </p>
+     * <p>
+     * If an idle timeout is set and no transfer completes for the specified time, the stream
+     * cancels all outstanding transfers, independent of whether a read operation is waiting.
+     * As the canceled transfers are read, all but one are not resubmitted, and their buffers
+     * are returned to the buffer pool. Data received before the cancellation is retained.
+     * As soon as data is received again, the number of outstanding transfers is increased again.
+     * </p>
+     * <p>
+     * So the memory of mostly idle streams is reduced to a single transfer.
+     * </p>
+     *
+     * @param timeout the idle timeout, in milliseconds (0 to keep all transfers outstanding)
+     */
+    public abstract void setPrefetchIdleTimeout(int timeout);
+
+    /**
+     * Gets the idle timeout for adaptive prefetching.
+     *
+     * @return the idle timeout, in milliseconds (0 if adaptive prefetching is disabled)
+     */
+    public abstract int getPrefetchIdleTimeout();
+
+    /**
+     * Sets the listener for stalls that have been recovered from.
+     * <p>
+     * By default, a stall of the endpoint is treated as an error: the stream is closed
+     * and the read operation throws an exception.
+     * </p>
+     * <p>
+     * If a listener is set, the stream recovers from stalls instead: it clears the halt condition
+     * and resubmits the stalled transfer. The other outstanding transfers remain queued.
+     * Transfers submitted before the halt condition was cleared and failing because of the same
+     * stall are resubmitted without notifying the listener again.
+     * </p>
+     * <p>
+     * The listener is called on the reading thread.
+     * </p>
+     *
+     * @param listener the listener, or {@code null} to disable stall recovery
+     */
+    public abstract void setStallRecoveryListener(@Nullable Consumer<UsbStallException> listener);
+}
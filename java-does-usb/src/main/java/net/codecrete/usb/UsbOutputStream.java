@@ -0,0 +1,113 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+
+/**
+ * Output stream sending data to a bulk endpoint.
+ * <p>
+ * In addition to the standard output stream operations, the stream supports a write timeout
+ * and non-blocking writes.
+ * </p>
+ * <p>
+ * Instances are created with {@link UsbDevice#openOutputStream(int, int)}.
+ * </p>
+ */
+public abstract class UsbOutputStream extends OutputStream {
+
+    /**
+     * Creates a new instance.
+     */
+    protected UsbOutputStream() {
+    }
+
+    /**
+     * Sets the write timeout.
+     * <p>
+     * If a write or flush operation has to wait for a free transfer longer than the timeout,
+     * an {@link InterruptedIOException} is thrown. {@link InterruptedIOException#bytesTransferred}
+     * indicates how many bytes have been accepted. The stream remains open and the submitted
+     * transfers remain intact.
+     * </p>
+     *
+     * @param timeout the timeout, in milliseconds (0 for no timeout)
+     */
+    public abstract void setWriteTimeout(int timeout);
+
+    /**
+     * Gets the write timeout.
+     *
+     * @return the timeout, in milliseconds (0 for no timeout)
+     */
+    public abstract int getWriteTimeout();
+
+    /**
+     * Writes as much data as possible without blocking.
+     * <p>
+     * Data is buffered and sent when a transfer is full. If no free transfer is available,
+     * fewer bytes than requested (possibly 0) are accepted.
+     * </p>
+     *
+     * @param b   buffer containing the data
+     * @param off offset within buffer
+     * @param len number of bytes to write
+     * @return number of bytes accepted
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    public abstract int tryWrite(byte @NotNull [] b, int off, int len) throws IOException;
+
+    /**
+     * Submits the buffered data (and a zero-length packet if needed) without blocking.
+     * <p>
+     * Unlike {@link #flush()}, this method does not wait until the data has been sent.
+     * </p>
+     *
+     * @return {@code true} if all buffered data has been submitted, {@code false} if no free
+     * transfer was available and the operation needs to be retried later
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    public abstract boolean tryFlush() throws IOException;
+
+    /**
+     * Sets the maximum delay for coalescing small writes.
+     * <p>
+     * By default, buffered data is only sent when a transfer is full or when the stream is flushed.
+     * If a coalescing delay is set, buffered data is also sent when the delay has expired since
+     * the data was buffered. So many small writes are combined into few transfers, and the latency
+     * is still bounded. There is no need to call {@link #flush()} after each write.
+     * </p>
+     * <p>
+     * Unlike {@link #flush()}, the delayed submission does not send a zero-length packet.
+     * A shared timer thread is used for all streams.
+     * </p>
+     *
+     * @param delay the maximum delay, in milliseconds (0 to disable coalescing)
+     */
+    public abstract void setCoalescingDelay(int delay);
+
+    /**
+     * Gets the maximum delay for coalescing small writes.
+     *
+     * @return the maximum delay, in milliseconds (0 if coalescing is disabled)
+     */
+    public abstract int getCoalescingDelay();
+
+    /**
+     * Returns a view encoding primitive values to this stream in the specified byte order.
+     *
+     * @param order the byte order
+     * @return the encoder
+     */
+    public abstract @NotNull UsbDataOutput asDataOutput(@NotNull ByteOrder order);
+}
@@ -0,0 +1,75 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Recorder writing the data received from a bulk or interrupt IN endpoint to a file.
+ * <p>
+ * Transfers are continuously submitted. Completed transfers are handed to a dedicated
+ * writer thread, which writes the data directly from the native transfer buffer to the
+ * file channel. Each transfer is immediately resubmitted with a spare buffer (double buffering).
+ * </p>
+ * <p>
+ * If the writer thread cannot keep up and no spare buffer is available, the received
+ * data is discarded instead of stalling the endpoint. The number of discarded bytes
+ * is reported by {@link #droppedLength()}.
+ * </p>
+ * <p>
+ * Recording ends when the maximum length has been recorded, when the recorder is closed,
+ * or when an error occurs. The result is reported by {@link #completion()}.
+ * </p>
+ */
+public interface UsbRecorder extends Closeable {
+
+    /**
+     * Gets the endpoint number.
+     *
+     * @return endpoint number (in the range between 1 and 127)
+     */
+    int endpointNumber();
+
+    /**
+     * Gets the number of bytes written to the file.
+     *
+     * @return length (in bytes)
+     */
+    long recordedLength();
+
+    /**
+     * Gets the number of received bytes discarded because the writer thread could not keep up.
+     *
+     * @return length (in bytes)
+     */
+    long droppedLength();
+
+    /**
+     * Gets the future completing when the recording has ended.
+     * <p>
+     * The future completes with the number of bytes written to the file, or exceptionally
+     * with an {@link java.io.IOException} if receiving or writing data has failed.
+     * </p>
+     *
+     * @return the future
+     */
+    @NotNull CompletableFuture<Long> completion();
+
+    /**
+     * Stops the recording.
+     * <p>
+     * Outstanding transfers are aborted. The method waits until all received data has been
+     * written to the file. The file channel is not closed.
+     * </p>
+     */
+    @Override
+    void close();
+}
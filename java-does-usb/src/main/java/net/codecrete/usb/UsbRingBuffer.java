@@ -0,0 +1,102 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Ring buffer receiving the data from a bulk or interrupt IN endpoint.
+ * <p>
+ * Transfers are continuously submitted and complete directly into consecutive regions of
+ * the ring. The received data that has not been consumed yet is made available as a
+ * single contiguous memory segment (the window), even if it spans several transfers or
+ * wraps around the end of the ring. The window never exceeds the capacity.
+ * </p>
+ * <p>
+ * On Linux, the ring is mapped twice back-to-back in virtual memory so that wrapping around
+ * does not require copying data. On other operating systems, the wrapped part of the window
+ * is copied each time the window is requested.
+ * </p>
+ * <p>
+ * If a transfer completes with less data than requested (e.g. a short packet) while further
+ * transfers are outstanding, the entire unconsumed data is moved forward to close the gap, i.e.
+ * up to the capacity is copied. After a short transfer, only a single transfer is kept outstanding
+ * until a transfer is completely filled again. So the copying only occurs for the transfers already
+ * outstanding when the short transfer completes, at the cost of reduced throughput while the
+ * device keeps sending short packets.
+ * </p>
+ * <p>
+ * A window is valid until the next call of {@link #window()}, {@link #awaitWindow(int, int)},
+ * {@link #consume(int)} or {@link #close()}.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe with the exception of {@link #close()}.
+ * </p>
+ */
+public interface UsbRingBuffer extends Closeable {
+
+    /**
+     * Gets the endpoint number.
+     *
+     * @return endpoint number (in the range between 1 and 127)
+     */
+    int endpointNumber();
+
+    /**
+     * Gets the capacity, i.e. the maximum size of the window.
+     *
+     * @return the capacity (in bytes)
+     */
+    int capacity();
+
+    /**
+     * Gets the data received and not consumed yet.
+     * <p>
+     * This method does not block. The returned window might be empty.
+     * </p>
+     *
+     * @return window with received data
+     */
+    @NotNull MemorySegment window();
+
+    /**
+     * Waits until at least the specified number of bytes have been received and not consumed yet,
+     * and returns the data.
+     * <p>
+     * The returned window might be larger than the specified minimum length.
+     * </p>
+     *
+     * @param minLength minimum length (in bytes, at most the capacity)
+     * @param timeout   timeout (in ms, 0 for no timeout)
+     * @return window with received data
+     * @throws UsbTimeoutException if the data is not received within the timeout
+     */
+    @NotNull MemorySegment awaitWindow(int minLength, int timeout);
+
+    /**
+     * Consumes the specified number of bytes at the start of the window.
+     * <p>
+     * The space is reused for receiving further data.
+     * </p>
+     *
+     * @param length number of bytes (at most the size of the current window)
+     */
+    void consume(int length);
+
+    /**
+     * Closes the ring buffer.
+     * <p>
+     * Outstanding transfers are aborted. Unconsumed data is discarded.
+     * </p>
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,178 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Registration of an endpoint with a {@link UsbSelector}.
+ * <p>
+ * The data methods of this interface never block. They are intended to be called
+ * after the selector has reported the endpoint as ready.
+ * </p>
+ */
+public interface UsbSelectionKey {
+
+    /**
+     * Operation-set bit for reading from an IN endpoint.
+     */
+    int OP_READ = 1;
+
+    /**
+     * Operation-set bit for writing to an OUT endpoint.
+     */
+    int OP_WRITE = 4;
+
+    /**
+     * Gets the selector this key has been registered with.
+     *
+     * @return the selector
+     */
+    @NotNull UsbSelector selector();
+
+    /**
+     * Gets the USB device of the endpoint.
+     *
+     * @return the USB device
+     */
+    @NotNull UsbDevice device();
+
+    /**
+     * Gets the endpoint direction.
+     *
+     * @return the direction
+     */
+    @NotNull UsbDirection direction();
+
+    /**
+     * Gets the endpoint number.
+     *
+     * @return endpoint number (in the range between 1 and 127)
+     */
+    int endpointNumber();
+
+    /**
+     * Gets the interest set of this key.
+     * <p>
+     * The selector only reports the endpoint as ready for the operations in the interest set.
+     * </p>
+     *
+     * @return the interest set ({@link #OP_READ}, {@link #OP_WRITE} or 0)
+     */
+    int interestOps();
+
+    /**
+     * Sets the interest set of this key.
+     * <p>
+     * An OUT endpoint without pending data is always writable. In order to wait for data from
+     * IN endpoints, remove {@link #OP_WRITE} from the interest set of idle OUT endpoints.
+     * Otherwise, the selection operations return immediately.
+     * </p>
+     * <p>
+     * The change takes effect with the next selection operation, or immediately if a selection
+     * operation is in progress.
+     * </p>
+     *
+     * @param ops the new interest set ({@link #OP_READ} for IN endpoints, {@link #OP_WRITE} for OUT endpoints, or 0)
+     * @return this key
+     * @throws IllegalArgumentException if the operation is not valid for the endpoint direction
+     */
+    @NotNull UsbSelectionKey interestOps(int ops);
+
+    /**
+     * Indicates if data can be read without blocking.
+     * <p>
+     * This is the case for IN endpoints with a completed transfer, including transfers
+     * that have completed with an error. In the latter case, {@link #read(byte[], int, int)}
+     * will throw an exception.
+     * </p>
+     *
+     * @return {@code true} if the endpoint is ready for reading
+     */
+    boolean isReadable();
+
+    /**
+     * Indicates if data can be written without blocking.
+     *
+     * @return {@code true} if the endpoint is ready for writing
+     */
+    boolean isWritable();
+
+    /**
+     * Reads the data available from an IN endpoint without blocking.
+     *
+     * @param buffer buffer receiving the data
+     * @param offset offset within buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read (0 if no data is available)
+     * @throws IOException if the transfer has failed or the key has been cancelled
+     */
+    int read(byte @NotNull [] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Writes as much data to an OUT endpoint as possible without blocking.
+     * <p>
+     * Data is buffered and submitted when a transfer is full. Call {@link #flush()}
+     * to submit partially filled transfers.
+     * </p>
+     *
+     * @param buffer buffer containing the data
+     * @param offset offset within buffer
+     * @param length number of bytes to write
+     * @return number of bytes accepted (possibly 0)
+     * @throws IOException if a transfer has failed or the key has been cancelled
+     */
+    int write(byte @NotNull [] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Submits the data buffered for an OUT endpoint without blocking.
+     * <p>
+     * If the last packet was a full packet, a zero-length packet is sent as well.
+     * </p>
+     *
+     * @return {@code true} if all buffered data has been submitted, {@code false} if no
+     * transfer was available and flushing needs to be retried when the key is writable again
+     * @throws IOException if a transfer has failed or the key has been cancelled
+     */
+    boolean flush() throws IOException;
+
+    /**
+     * Attaches an object to this key.
+     *
+     * @param attachment the object to attach, or {@code null} to remove the attachment
+     * @return the previously attached object
+     */
+    Object attach(Object attachment);
+
+    /**
+     * Gets the object attached to this key.
+     *
+     * @return the attached object, or {@code null}
+     */
+    Object attachment();
+
+    /**
+     * Indicates if this key is valid.
+     * <p>
+     * A key is valid until it is cancelled or its selector is closed.
+     * </p>
+     *
+     * @return {@code true} if it is valid
+     */
+    boolean isValid();
+
+    /**
+     * Cancels the registration of the endpoint.
+     * <p>
+     * All outstanding transfers of the endpoint are aborted. Buffered data is discarded.
+     * </p>
+     */
+    void cancel();
+}
@@ -0,0 +1,155 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.io.Closeable;
+import java.util.Set;
+
+/**
+ * Multiplexor for endpoints of multiple USB devices.
+ * <p>
+ * A selector allows a single thread to serve many bulk and interrupt endpoints across many devices,
+ * similar to {@link java.nio.channels.Selector}. Endpoints are registered with the selector,
+ * which returns a {@link UsbSelectionKey} for each of them. A call to {@link #select()} then
+ * waits until at least one of the registered endpoints is ready for an operation in its interest set:
+ * </p>
+ * <ul>
+ *     <li>an IN endpoint is ready for {@link UsbSelectionKey#OP_READ} if a completed transfer can be
+ *     consumed without blocking,</li>
+ *     <li>an OUT endpoint is ready for {@link UsbSelectionKey#OP_WRITE} if data can be written without
+ *     blocking.</li>
+ * </ul>
+ * <p>
+ * As an OUT endpoint without pending data is always writable, its interest set should only include
+ * {@link UsbSelectionKey#OP_WRITE} while there is data to write (see {@link UsbSelectionKey#interestOps(int)}).
+ * </p>
+ * <p>
+ * The ready endpoints are available from {@link #selectedKeys()}. Data is read and written
+ * using the non-blocking methods of {@link UsbSelectionKey}.
+ * </p>
+ * <p>
+ * Internally, each registered endpoint is backed by the same machinery as the streams returned by
+ * {@link UsbDevice#openInputStream(int, int)} and {@link UsbDevice#openOutputStream(int, int)}:
+ * multiple transfers are kept queued with the operating system. The selector is woken up by
+ * their completion. No additional thread is required per endpoint.
+ * </p>
+ * <p>
+ * A selector is safe for use by multiple threads. However, data should be read from and written to
+ * a particular endpoint by a single thread at a time.
+ * </p>
+ */
+public interface UsbSelector extends Closeable {
+
+    /**
+     * Registers a bulk or interrupt endpoint with this selector.
+     * <p>
+     * The device must be open and the interface of the endpoint must be claimed.
+     * The endpoint must not be used by any other transfer method or stream while it is registered.
+     * </p>
+     *
+     * @param device         USB device
+     * @param direction      endpoint direction
+     * @param endpointNumber endpoint number (in the range between 1 and 127)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @param ops            the interest set ({@link UsbSelectionKey#OP_READ} for IN endpoints,
+     *                       {@link UsbSelectionKey#OP_WRITE} for OUT endpoints, or 0)
+     * @return the selection key representing the registration
+     * @throws IllegalArgumentException if the operation is not valid for the endpoint direction
+     */
+    @NotNull UsbSelectionKey register(@NotNull UsbDevice device, @NotNull UsbDirection direction, int endpointNumber,
+                                      int bufferSize, int ops);
+
+    /**
+     * Registers a bulk or interrupt endpoint with this selector, with interest in reading (IN endpoints)
+     * or writing (OUT endpoints).
+     * <p>
+     * See {@link #register(UsbDevice, UsbDirection, int, int, int)} for details.
+     * </p>
+     *
+     * @param device         USB device
+     * @param direction      endpoint direction
+     * @param endpointNumber endpoint number (in the range between 1 and 127)
+     * @param bufferSize     approximate buffer size (in bytes)
+     * @return the selection key representing the registration
+     */
+    default @NotNull UsbSelectionKey register(@NotNull UsbDevice device, @NotNull UsbDirection direction,
+                                              int endpointNumber, int bufferSize) {
+        return register(device, direction, endpointNumber, bufferSize,
+                direction == UsbDirection.IN ? UsbSelectionKey.OP_READ : UsbSelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Waits until at least one registered endpoint is ready.
+     * <p>
+     * This method returns when at least one endpoint is ready, {@link #wakeup()} has been called,
+     * the selector has been closed or the calling thread has been interrupted.
+     * </p>
+     *
+     * @return the number of ready endpoints (possibly 0)
+     */
+    int select();
+
+    /**
+     * Waits until at least one registered endpoint is ready or the timeout period has expired.
+     * <p>
+     * In all other aspects, this method works like {@link #select()}.
+     * </p>
+     *
+     * @param timeout the timeout period, in milliseconds (0 for no timeout)
+     * @return the number of ready endpoints (possibly 0)
+     */
+    int select(long timeout);
+
+    /**
+     * Checks which endpoints are ready without blocking.
+     *
+     * @return the number of ready endpoints (possibly 0)
+     */
+    int selectNow();
+
+    /**
+     * Gets the keys of the endpoints found ready by the last selection operation.
+     * <p>
+     * The set is replaced with each selection operation.
+     * </p>
+     *
+     * @return set of selection keys
+     */
+    @NotNull @Unmodifiable Set<UsbSelectionKey> selectedKeys();
+
+    /**
+     * Gets the keys of all endpoints registered with this selector.
+     *
+     * @return set of selection keys
+     */
+    @NotNull @Unmodifiable Set<UsbSelectionKey> keys();
+
+    /**
+     * Causes a blocked or the next selection operation to return immediately.
+     */
+    void wakeup();
+
+    /**
+     * Indicates if this selector is open.
+     *
+     * @return {@code true} if it is open, {@code false} if it has been closed
+     */
+    boolean isOpen();
+
+    /**
+     * Closes this selector.
+     * <p>
+     * All registered keys are cancelled.
+     * </p>
+     */
+    @Override
+    void close();
+}
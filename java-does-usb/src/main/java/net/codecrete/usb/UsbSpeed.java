@@ -0,0 +1,57 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+/**
+ * Negotiated USB link speed.
+ */
+public enum UsbSpeed {
+    /**
+     * Speed is not known
+     */
+    UNKNOWN(0),
+    /**
+     * Low speed (1.5 Mbit/s)
+     */
+    LOW(1_500_000L),
+    /**
+     * Full speed (12 Mbit/s)
+     */
+    FULL(12_000_000L),
+    /**
+     * High speed (480 Mbit/s)
+     */
+    HIGH(480_000_000L),
+    /**
+     * SuperSpeed (5 Gbit/s)
+     */
+    SUPER(5_000_000_000L),
+    /**
+     * SuperSpeed+ (10 Gbit/s)
+     */
+    SUPER_PLUS(10_000_000_000L),
+    /**
+     * SuperSpeed+ with two lanes (20 Gbit/s)
+     */
+    SUPER_PLUS_X2(20_000_000_000L);
+
+    private final long bitRate;
+
+    UsbSpeed(long bitRate) {
+        this.bitRate = bitRate;
+    }
+
+    /**
+     * Gets the signaling bit rate.
+     *
+     * @return the bit rate (in bit/s), or 0 if the speed is not known
+     */
+    public long getBitRate() {
+        return bitRate;
+    }
+}
@@ -0,0 +1,148 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Ring of transfers permanently queued on a bulk or interrupt endpoint.
+ * <p>
+ * The ring consists of a fixed number of transfers, each with its own native buffer.
+ * Transfers are identified by a sequence number. The transfer with sequence number
+ * {@code seq} uses the buffer with index {@code seq % numTransfers}. When a transfer
+ * is resubmitted, it gets the sequence number {@code seq + numTransfers}.
+ * </p>
+ * <p>
+ * Completed transfers are returned in sequence order by {@link #awaitCompletion(int)} and
+ * {@link #pollCompletion()}. After a completed transfer has been returned, the application
+ * owns its buffer until it resubmits it with {@link #submit(long)} or {@link #submit(long, int)}.
+ * Transfers must be resubmitted in the order they have completed.
+ * </p>
+ * <p>
+ * For an IN endpoint, all transfers are submitted when the ring is opened. For an OUT endpoint,
+ * all transfers are initially owned by the application: they are immediately returned as completed
+ * transfers with a length of 0, ready to be filled and submitted.
+ * </p>
+ * <p>
+ * Once the ring has been set up, no memory is allocated for receiving or sending data.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe with the exception of {@link #close()}.
+ * </p>
+ */
+public interface UsbTransferRing extends Closeable {
+
+    /**
+     * Gets the endpoint direction.
+     *
+     * @return the direction
+     */
+    @NotNull UsbDirection direction();
+
+    /**
+     * Gets the endpoint number.
+     *
+     * @return endpoint number (in the range between 1 and 127)
+     */
+    int endpointNumber();
+
+    /**
+     * Gets the number of transfers in the ring.
+     *
+     * @return number of transfers
+     */
+    int numTransfers();
+
+    /**
+     * Gets the size of each transfer buffer.
+     *
+     * @return size (in bytes)
+     */
+    int transferSize();
+
+    /**
+     * Waits for the completion of the next transfer.
+     * <p>
+     * If the calling thread is interrupted, the method returns -1 and the thread's interrupt status is set.
+     * </p>
+     *
+     * @param timeout the timeout period, in milliseconds (0 for no timeout)
+     * @return the sequence number of the completed transfer, or -1 if the timeout has expired
+     * @throws IllegalStateException if all transfers are owned by the application
+     */
+    long awaitCompletion(int timeout);
+
+    /**
+     * Returns the next completed transfer without waiting.
+     *
+     * @return the sequence number of the completed transfer, or -1 if the next transfer has not completed
+     */
+    long pollCompletion();
+
+    /**
+     * Gets the result status of a completed transfer.
+     *
+     * @param sequenceNumber the sequence number of a completed transfer owned by the application
+     * @return status code (0 for success, an operating-system specific error code otherwise)
+     */
+    int status(long sequenceNumber);
+
+    /**
+     * Gets the number of bytes transferred by a completed transfer.
+     *
+     * @param sequenceNumber the sequence number of a completed transfer owned by the application
+     * @return the number of bytes transferred
+     */
+    int length(long sequenceNumber);
+
+    /**
+     * Gets the buffer of the transfer.
+     * <p>
+     * The buffer must only be accessed while the transfer is owned by the application
+     * and the ring is open. When the ring is closed, the buffers are reused for other transfers.
+     * </p>
+     *
+     * @param sequenceNumber the sequence number of a completed transfer owned by the application
+     * @return the buffer (with a size of {@link #transferSize()})
+     */
+    @NotNull MemorySegment buffer(long sequenceNumber);
+
+    /**
+     * Resubmits a transfer using the full buffer.
+     * <p>
+     * For IN transfers, this is the regular way to resubmit a transfer.
+     * </p>
+     *
+     * @param sequenceNumber the sequence number of the oldest completed transfer owned by the application
+     */
+    void submit(long sequenceNumber);
+
+    /**
+     * Resubmits a transfer with the specified data length.
+     * <p>
+     * For IN transfers, the length must be a multiple of the endpoint's maximum packet size.
+     * For OUT transfers, a length of 0 sends a zero-length packet.
+     * </p>
+     *
+     * @param sequenceNumber the sequence number of the oldest completed transfer owned by the application
+     * @param length         the length of the data (in bytes)
+     */
+    void submit(long sequenceNumber, int length);
+
+    /**
+     * Closes the ring.
+     * <p>
+     * Outstanding transfers are aborted.
+     * </p>
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,131 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbBusLoad;
+import net.codecrete.usb.UsbDevice;
+import net.codecrete.usb.UsbEndpoint;
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbSpeed;
+import net.codecrete.usb.UsbTransferType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.lang.System.Logger.Level.INFO;
+
+/**
+ * Computes the bandwidth declared by the endpoints of the devices, grouped by bus.
+ */
+class BusLoadCalculator {
+
+    private static final System.Logger LOG = System.getLogger(BusLoadCalculator.class.getName());
+
+    private BusLoadCalculator() {
+    }
+
+    /**
+     * Computes the load of each bus.
+     * <p>
+     * Devices with an unknown bus number are ignored.
+     * </p>
+     *
+     * @param devices the devices
+     * @return list of bus loads, sorted by bus number
+     */
+    static List<UsbBusLoad> computeBusLoads(List<UsbDevice> devices) {
+        Map<Integer, List<UsbDevice>> devicesByBus = new TreeMap<>();
+        for (var device : devices) {
+            var busNumber = device.getBusNumber();
+            if (busNumber != 0)
+                devicesByBus.computeIfAbsent(busNumber, _ -> new ArrayList<>()).add(device);
+        }
+
+        var result = new ArrayList<UsbBusLoad>(devicesByBus.size());
+        devicesByBus.forEach((busNumber, busDevices) -> result.add(computeBusLoad(busNumber, busDevices)));
+        return result;
+    }
+
+    private static UsbBusLoad computeBusLoad(int busNumber, List<UsbDevice> devices) {
+        var busSpeed = getBusSpeed(devices);
+        var periodicBandwidth = 0L;
+        var numBulkEndpoints = 0;
+
+        for (var device : devices) {
+            var deviceSpeed = device.getSpeed() != UsbSpeed.UNKNOWN ? device.getSpeed() : busSpeed;
+            try {
+                for (var intf : device.getInterfaces()) {
+                    for (var endpoint : intf.getCurrentAlternate().getEndpoints()) {
+                        if (endpoint.getTransferType() == UsbTransferType.BULK)
+                            numBulkEndpoints += 1;
+                        else
+                            periodicBandwidth += getEndpointBandwidth(endpoint, deviceSpeed);
+                    }
+                }
+            } catch (UsbException e) {
+                LOG.log(INFO, "failed to retrieve endpoints of device - ignoring device", e);
+            }
+        }
+
+        return new UsbBusLoad(busNumber, busSpeed, List.copyOf(devices), periodicBandwidth, numBulkEndpoints);
+    }
+
+    /**
+     * Gets the speed of the bus.
+     * <p>
+     * It is the speed of the root hub, if present. Otherwise, it is the highest speed of the devices.
+     * </p>
+     */
+    private static UsbSpeed getBusSpeed(List<UsbDevice> devices) {
+        var speed = UsbSpeed.UNKNOWN;
+        for (var device : devices) {
+            if (device.getPortPath().isEmpty())
+                return device.getSpeed();
+            if (device.getSpeed().compareTo(speed) > 0)
+                speed = device.getSpeed();
+        }
+        return speed;
+    }
+
+    /**
+     * Gets the bandwidth declared by the endpoint.
+     * <p>
+     * Only interrupt and isochronous endpoints declare a bandwidth: a maximum packet size
+     * (including the additional transactions per microframe for high-speed endpoints) per service interval.
+     * If the device speed is not known, the endpoint is assumed to be a high-speed endpoint.
+     * The burst size of SuperSpeed endpoints is not considered.
+     * </p>
+     *
+     * @param endpoint the endpoint
+     * @param speed    the speed of the device
+     * @return the bandwidth (in bytes/s)
+     */
+    static long getEndpointBandwidth(UsbEndpoint endpoint, UsbSpeed speed) {
+        var transferType = endpoint.getTransferType();
+        if (transferType != UsbTransferType.INTERRUPT && transferType != UsbTransferType.ISOCHRONOUS)
+            return 0;
+
+        var packetSize = endpoint.getPacketSize() & 0x7ff;
+        var interval = endpoint.getInterval();
+
+        if (speed == UsbSpeed.LOW || speed == UsbSpeed.FULL) {
+            // interval in frames (1ms); exponent for isochronous endpoints
+            var intervalMicros = transferType == UsbTransferType.INTERRUPT
+                    ? Math.max(interval, 1) * 1000L
+                    : 1000L << (Math.clamp(interval, 1, 16) - 1);
+            return packetSize * 1_000_000L / intervalMicros;
+        }
+
+        // interval in microframes (125µs) as an exponent
+        var numTransactions = ((endpoint.getPacketSize() >> 11) & 0x03) + 1;
+        var intervalMicros = 125L << (Math.clamp(interval, 1, 16) - 1);
+        return packetSize * numTransactions * 1_000_000L / intervalMicros;
+    }
+}
@@ -134,7 +134,7 @@ public class ConfigurationParser {
         var desc = new EndpointDescriptor(descriptor, offset);
         var address = desc.endpointAddress();
         return new UsbEndpointImpl(getEndpointNumber(address), getEndpointDirection(address),
-                getEndpointType(desc.attributes()), desc.maxPacketSize());
+                getEndpointType(desc.attributes()), desc.maxPacketSize(), desc.interval());
     }
 
     private static UsbDirection getEndpointDirection(int address) {
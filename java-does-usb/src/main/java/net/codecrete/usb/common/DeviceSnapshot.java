@@ -0,0 +1,137 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDevice;
+import net.codecrete.usb.UsbException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable snapshot of the connected devices, indexed by unique ID, by vendor/product ID and by serial number.
+ * <p>
+ * A new snapshot with an incremented version is created for each change. The index by serial number is built on first use
+ * as retrieving the serial number might require loading it from the device.
+ * </p>
+ */
+final class DeviceSnapshot {
+
+    private final long version;
+    private final List<UsbDevice> devices;
+    private final UnaryOperator<Object> idNormalizer;
+    private final Map<Object, UsbDevice> devicesById;
+    private final Map<Integer, List<UsbDevice>> devicesByVidPid;
+    // lazily built; a race only results in the index being built twice
+    private volatile Map<String, UsbDevice> devicesBySerialNumber;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param version      the version
+     * @param deviceList   the devices
+     * @param idNormalizer function normalizing unique device IDs for the lookup
+     */
+    DeviceSnapshot(long version, List<UsbDevice> deviceList, UnaryOperator<Object> idNormalizer) {
+        this.version = version;
+        devices = List.copyOf(deviceList);
+        this.idNormalizer = idNormalizer;
+
+        var byId = HashMap.<Object, UsbDevice>newHashMap(devices.size());
+        var byVidPid = HashMap.<Integer, List<UsbDevice>>newHashMap(devices.size());
+        for (var device : devices) {
+            byId.put(idNormalizer.apply(((UsbDeviceImpl) device).getUniqueId()), device);
+            byVidPid.computeIfAbsent(vidPidKey(device.getVendorId(), device.getProductId()), _ -> new ArrayList<>())
+                    .add(device);
+        }
+        byVidPid.replaceAll((_, list) -> List.copyOf(list));
+
+        devicesById = Map.copyOf(byId);
+        devicesByVidPid = Map.copyOf(byVidPid);
+    }
+
+    /**
+     * Gets the version of this snapshot.
+     *
+     * @return the version
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * Gets all devices.
+     *
+     * @return immutable list of devices
+     */
+    List<UsbDevice> devices() {
+        return devices;
+    }
+
+    /**
+     * Gets the device with the specified unique ID.
+     *
+     * @param deviceId the unique device ID
+     * @return the device, or {@code null} if not found
+     */
+    UsbDevice findById(Object deviceId) {
+        return devicesById.get(idNormalizer.apply(deviceId));
+    }
+
+    /**
+     * Gets the devices with the specified vendor and product ID.
+     *
+     * @param vendorId  vendor ID
+     * @param productId product ID
+     * @return immutable list of devices (possibly empty)
+     */
+    List<UsbDevice> findByIds(int vendorId, int productId) {
+        return devicesByVidPid.getOrDefault(vidPidKey(vendorId, productId), List.of());
+    }
+
+    /**
+     * Gets the device with the specified serial number.
+     * <p>
+     * If several devices have the same serial number, the first one is returned.
+     * </p>
+     * <p>
+     * The index is built on first use. It requires the serial numbers of all devices,
+     * which might have to be loaded (I/O). Devices whose serial number cannot be loaded
+     * (e.g. because they have been unplugged in the meantime) are skipped.
+     * </p>
+     *
+     * @param serialNumber the serial number
+     * @return the device, or {@code null} if not found
+     */
+    UsbDevice findBySerialNumber(String serialNumber) {
+        var bySerialNumber = devicesBySerialNumber;
+        if (bySerialNumber == null) {
+            var map = HashMap.<String, UsbDevice>newHashMap(devices.size());
+            for (var device : devices) {
+                try {
+                    var serial = device.getSerialNumber();
+                    if (serial != null)
+                        map.putIfAbsent(serial, device);
+                } catch (UsbException _) {
+                    // device has likely been unplugged
+                }
+            }
+            bySerialNumber = Map.copyOf(map);
+            devicesBySerialNumber = bySerialNumber;
+        }
+
+        return bySerialNumber.get(serialNumber);
+    }
+
+    private static Integer vidPidKey(int vendorId, int productId) {
+        return (vendorId << 16) | (productId & 0xffff);
+    }
+}
@@ -0,0 +1,360 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadPendingException;
+import java.nio.channels.WritePendingException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static net.codecrete.usb.common.EndpointStreams.toIOException;
+
+/**
+ * Asynchronous byte channel for bulk and interrupt endpoints.
+ *
+ * <p>
+ * Each read or write operation is executed as a single asynchronous transfer.
+ * Direct byte buffers are used as the transfer buffer. Heap buffers, and direct buffers
+ * too small to hold a full packet, use an internal native buffer instead.
+ * </p>
+ * <p>
+ * If an IN transfer using the internal buffer receives more data than fits into
+ * the byte buffer, the surplus is kept and returned by the next read operation.
+ * </p>
+ */
+class EndpointAsynchronousChannel implements AsynchronousByteChannel {
+
+    // Maximum size of internal buffer (in packets)
+    private static final int MAX_INTERNAL_BUFFER_PACKETS = 32;
+
+    private final UsbDeviceImpl device;
+    private final UsbDirection direction;
+    private final int endpointNumber;
+    private final int packetSize;
+    // Transfer reused for all operations (as only one can be pending)
+    private final Transfer transfer;
+    private volatile boolean open = true;
+    // Operation currently pending, or null (guarded by this)
+    private PendingOperation<?> pendingOperation;
+    // Internal buffer (lazily allocated, guarded by this)
+    private MemorySegment internalBuffer;
+    // Data in internal buffer not yet returned by a read operation (guarded by this)
+    private int surplusOffset;
+    private int surplusLength;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param device         USB device
+     * @param direction      endpoint direction
+     * @param endpointNumber endpoint number
+     */
+    EndpointAsynchronousChannel(UsbDeviceImpl device, UsbDirection direction, int endpointNumber) {
+        this.device = device;
+        this.direction = direction;
+        this.endpointNumber = endpointNumber;
+
+        packetSize = device.getEndpoint(direction, endpointNumber).getPacketSize();
+        device.configureForAsyncTransfers(direction, endpointNumber);
+
+        transfer = device.createTransfer();
+        transfer.setCompletion(this::onCompletion);
+    }
+
+    @Override
+    public <A> void read(ByteBuffer dst, A attachment, CompletionHandler<Integer, ? super A> handler) {
+        Objects.requireNonNull(handler);
+        if (direction != UsbDirection.IN)
+            throw new NonReadableChannelException();
+        if (dst.isReadOnly())
+            throw new IllegalArgumentException("read-only buffer");
+
+        var operation = new PendingOperation<>(dst, attachment, handler);
+        int result;
+        synchronized (this) {
+            if (pendingOperation != null)
+                throw new ReadPendingException();
+
+            if (!open) {
+                result = -1;
+            } else if (!dst.hasRemaining()) {
+                // nothing to read into (the internal buffer might not even exist yet)
+                result = 0;
+            } else if (surplusLength > 0) {
+                result = copySurplus(dst);
+            } else {
+                prepareReadTransfer(dst, operation);
+                pendingOperation = operation;
+                result = -2;
+            }
+        }
+
+        if (result == -1)
+            operation.failed(new ClosedChannelException());
+        else if (result >= 0)
+            operation.completed(result);
+        else
+            submitTransfer(operation);
+    }
+
+    @Override
+    public Future<Integer> read(ByteBuffer dst) {
+        var future = new CompletableFuture<Integer>();
+        read(dst, future, new FutureCompletion());
+        return future;
+    }
+
+    @Override
+    public <A> void write(ByteBuffer src, A attachment, CompletionHandler<Integer, ? super A> handler) {
+        Objects.requireNonNull(handler);
+        if (direction != UsbDirection.OUT)
+            throw new NonWritableChannelException();
+
+        var operation = new PendingOperation<>(src, attachment, handler);
+        boolean isClosed;
+        synchronized (this) {
+            if (pendingOperation != null)
+                throw new WritePendingException();
+
+            isClosed = !open;
+            if (!isClosed) {
+                prepareWriteTransfer(src, operation);
+                pendingOperation = operation;
+            }
+        }
+
+        if (isClosed)
+            operation.failed(new ClosedChannelException());
+        else
+            submitTransfer(operation);
+    }
+
+    @Override
+    public Future<Integer> write(ByteBuffer src) {
+        var future = new CompletableFuture<Integer>();
+        write(src, future, new FutureCompletion());
+        return future;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean hasPendingOperation;
+        synchronized (this) {
+            if (!open)
+                return;
+            open = false;
+            hasPendingOperation = pendingOperation != null;
+            if (!hasPendingOperation)
+                releaseInternalBuffer();
+        }
+
+        if (hasPendingOperation) {
+            try {
+                device.abortTransfers(direction, endpointNumber);
+
+            } catch (UsbException _) {
+                // If aborting the transfer is not possible, the device has
+                // likely been closed or unplugged. So the outstanding
+                // transfer will terminate anyway.
+            }
+        }
+    }
+
+    private void prepareReadTransfer(ByteBuffer dst, PendingOperation<?> operation) {
+        var remaining = dst.remaining();
+        MemorySegment data;
+        if (dst.isDirect() && remaining >= packetSize) {
+            // transfer directly into buffer (multiple of packet size to prevent overflow)
+            data = MemorySegment.ofBuffer(dst).asSlice(0, remaining - remaining % packetSize);
+        } else {
+            var size = Math.min((remaining + packetSize - 1) / packetSize, MAX_INTERNAL_BUFFER_PACKETS) * packetSize;
+            data = getInternalBuffer(size).asSlice(0, size);
+            operation.usesInternalBuffer = true;
+        }
+
+        transfer.setData(data);
+        transfer.setDataSize((int) data.byteSize());
+    }
+
+    private void prepareWriteTransfer(ByteBuffer src, PendingOperation<?> operation) {
+        MemorySegment data;
+        if (src.isDirect()) {
+            // transfer directly from buffer
+            data = MemorySegment.ofBuffer(src);
+        } else {
+            var size = Math.min(src.remaining(), MAX_INTERNAL_BUFFER_PACKETS * packetSize);
+            data = getInternalBuffer(size).asSlice(0, size);
+            MemorySegment.copy(MemorySegment.ofBuffer(src), 0, data, 0, size);
+            operation.usesInternalBuffer = true;
+        }
+
+        transfer.setData(data);
+        transfer.setDataSize((int) data.byteSize());
+    }
+
+    // must be called while holding the lock
+    private MemorySegment getInternalBuffer(int size) {
+        if (internalBuffer == null || internalBuffer.byteSize() < size) {
+            releaseInternalBuffer();
+            internalBuffer = TransferBufferPool.shared().acquire(Math.max(size, packetSize));
+        }
+        return internalBuffer;
+    }
+
+    // must be called while holding the lock and while no transfer is pending
+    private void releaseInternalBuffer() {
+        if (internalBuffer != null) {
+            TransferBufferPool.shared().release(internalBuffer);
+            internalBuffer = null;
+            surplusLength = 0;
+        }
+    }
+
+    private int copySurplus(ByteBuffer dst) {
+        var n = Math.min(surplusLength, dst.remaining());
+        MemorySegment.copy(internalBuffer, surplusOffset, MemorySegment.ofBuffer(dst), 0, n);
+        dst.position(dst.position() + n);
+        surplusOffset += n;
+        surplusLength -= n;
+        return n;
+    }
+
+    private void submitTransfer(PendingOperation<?> operation) {
+        try {
+            device.submitAsyncTransfer(direction, endpointNumber, transfer);
+
+        } catch (UsbException e) {
+            synchronized (this) {
+                pendingOperation = null;
+                if (!open)
+                    releaseInternalBuffer();
+            }
+            operation.failed(toIOException(e));
+        }
+    }
+
+    /**
+     * Handles the completion of the transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param completedTransfer the completed transfer
+     */
+    private void onCompletion(Transfer completedTransfer) {
+        PendingOperation<?> operation;
+        Throwable failure = null;
+        var result = 0;
+        var resubmit = false;
+
+        synchronized (this) {
+            operation = pendingOperation;
+
+            if (completedTransfer.resultCode() != 0) {
+                failure = getFailure(completedTransfer.resultCode());
+
+            } else if (direction == UsbDirection.IN && completedTransfer.resultSize() == 0) {
+                // skip zero-length packet and read again (unless closed in the meantime)
+                if (open)
+                    resubmit = true;
+                else
+                    failure = new AsynchronousCloseException();
+
+            } else {
+                result = completedTransfer.resultSize();
+                var buffer = operation.buffer;
+                if (direction == UsbDirection.IN && operation.usesInternalBuffer) {
+                    surplusOffset = 0;
+                    surplusLength = result;
+                    result = copySurplus(buffer);
+                } else {
+                    buffer.position(buffer.position() + result);
+                }
+            }
+
+            if (!resubmit) {
+                pendingOperation = null;
+                if (!open)
+                    releaseInternalBuffer();
+            }
+        }
+
+        if (resubmit)
+            submitTransfer(operation);
+        else if (failure != null)
+            operation.failed(failure);
+        else
+            operation.completed(result);
+    }
+
+    private Throwable getFailure(int resultCode) {
+        if (!open)
+            return new AsynchronousCloseException();
+
+        try {
+            device.throwOSException(resultCode, direction == UsbDirection.IN
+                    ? "error occurred while reading from endpoint %d"
+                    : "error occurred while transmitting to endpoint %d", endpointNumber);
+            return null; // will never be reached
+
+        } catch (UsbException e) {
+            return toIOException(e);
+        }
+    }
+
+    private static final class PendingOperation<A> {
+        final ByteBuffer buffer;
+        final A attachment;
+        final CompletionHandler<Integer, ? super A> handler;
+        boolean usesInternalBuffer;
+
+        PendingOperation(ByteBuffer buffer, A attachment, CompletionHandler<Integer, ? super A> handler) {
+            this.buffer = buffer;
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        void completed(int result) {
+            handler.completed(result, attachment);
+        }
+
+        void failed(Throwable exc) {
+            handler.failed(exc, attachment);
+        }
+    }
+
+    private static final class FutureCompletion implements CompletionHandler<Integer, CompletableFuture<Integer>> {
+        @Override
+        public void completed(Integer result, CompletableFuture<Integer> future) {
+            future.complete(result);
+        }
+
+        @Override
+        public void failed(Throwable exc, CompletableFuture<Integer> future) {
+            future.completeExceptionally(exc);
+        }
+    }
+}
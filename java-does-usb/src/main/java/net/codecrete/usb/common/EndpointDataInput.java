@@ -0,0 +1,133 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDataInput;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
+
+/**
+ * Decoder for primitive values reading from an endpoint input stream.
+ * <p>
+ * Single values are decoded through one-element arrays so that they share
+ * the code path (and the handling of values spanning two transfers) with arrays.
+ * </p>
+ */
+final class EndpointDataInput implements UsbDataInput {
+
+    private final EndpointInputStream stream;
+    private final ByteOrder order;
+    private final ValueLayout.OfShort shortLayout;
+    private final ValueLayout.OfInt intLayout;
+    private final ValueLayout.OfLong longLayout;
+    private final ValueLayout.OfFloat floatLayout;
+    private final ValueLayout.OfDouble doubleLayout;
+    private final short[] shortValue = new short[1];
+    private final int[] intValue = new int[1];
+    private final long[] longValue = new long[1];
+    private final float[] floatValue = new float[1];
+    private final double[] doubleValue = new double[1];
+
+    EndpointDataInput(EndpointInputStream stream, ByteOrder order) {
+        this.stream = stream;
+        this.order = Objects.requireNonNull(order, "order");
+        shortLayout = JAVA_SHORT_UNALIGNED.withOrder(order);
+        intLayout = JAVA_INT_UNALIGNED.withOrder(order);
+        longLayout = JAVA_LONG_UNALIGNED.withOrder(order);
+        floatLayout = JAVA_FLOAT_UNALIGNED.withOrder(order);
+        doubleLayout = JAVA_DOUBLE_UNALIGNED.withOrder(order);
+    }
+
+    @Override
+    public @NotNull ByteOrder order() {
+        return order;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return (byte) stream.read();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        stream.readValues(shortLayout, shortValue, 0, 1);
+        return shortValue[0];
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        stream.readValues(intLayout, intValue, 0, 1);
+        return intValue[0];
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        stream.readValues(longLayout, longValue, 0, 1);
+        return longValue[0];
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        stream.readValues(floatLayout, floatValue, 0, 1);
+        return floatValue[0];
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        stream.readValues(doubleLayout, doubleValue, 0, 1);
+        return doubleValue[0];
+    }
+
+    @Override
+    public void readFully(byte @NotNull [] dst, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        var numRead = 0;
+        while (numRead < len)
+            numRead += stream.read(dst, off + numRead, len - numRead);
+    }
+
+    @Override
+    public void readShorts(short @NotNull [] dst, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        stream.readValues(shortLayout, dst, off, len);
+    }
+
+    @Override
+    public void readInts(int @NotNull [] dst, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        stream.readValues(intLayout, dst, off, len);
+    }
+
+    @Override
+    public void readLongs(long @NotNull [] dst, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        stream.readValues(longLayout, dst, off, len);
+    }
+
+    @Override
+    public void readFloats(float @NotNull [] dst, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        stream.readValues(floatLayout, dst, off, len);
+    }
+
+    @Override
+    public void readDoubles(double @NotNull [] dst, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        stream.readValues(doubleLayout, dst, off, len);
+    }
+}
@@ -0,0 +1,135 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDataOutput;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
+
+/**
+ * Encoder for primitive values writing to an endpoint output stream.
+ * <p>
+ * Single values are encoded through one-element arrays so that they share
+ * the code path (and the handling of values spanning two transfers) with arrays.
+ * </p>
+ */
+final class EndpointDataOutput implements UsbDataOutput {
+
+    private final EndpointOutputStream stream;
+    private final ByteOrder order;
+    private final ValueLayout.OfShort shortLayout;
+    private final ValueLayout.OfInt intLayout;
+    private final ValueLayout.OfLong longLayout;
+    private final ValueLayout.OfFloat floatLayout;
+    private final ValueLayout.OfDouble doubleLayout;
+    private final short[] shortValue = new short[1];
+    private final int[] intValue = new int[1];
+    private final long[] longValue = new long[1];
+    private final float[] floatValue = new float[1];
+    private final double[] doubleValue = new double[1];
+
+    EndpointDataOutput(EndpointOutputStream stream, ByteOrder order) {
+        this.stream = stream;
+        this.order = Objects.requireNonNull(order, "order");
+        shortLayout = JAVA_SHORT_UNALIGNED.withOrder(order);
+        intLayout = JAVA_INT_UNALIGNED.withOrder(order);
+        longLayout = JAVA_LONG_UNALIGNED.withOrder(order);
+        floatLayout = JAVA_FLOAT_UNALIGNED.withOrder(order);
+        doubleLayout = JAVA_DOUBLE_UNALIGNED.withOrder(order);
+    }
+
+    @Override
+    public @NotNull ByteOrder order() {
+        return order;
+    }
+
+    @Override
+    public void writeByte(byte value) throws IOException {
+        stream.write(value);
+    }
+
+    @Override
+    public void writeShort(short value) throws IOException {
+        shortValue[0] = value;
+        stream.writeValues(shortLayout, shortValue, 0, 1);
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        intValue[0] = value;
+        stream.writeValues(intLayout, intValue, 0, 1);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        longValue[0] = value;
+        stream.writeValues(longLayout, longValue, 0, 1);
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        floatValue[0] = value;
+        stream.writeValues(floatLayout, floatValue, 0, 1);
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        doubleValue[0] = value;
+        stream.writeValues(doubleLayout, doubleValue, 0, 1);
+    }
+
+    @Override
+    public void write(byte @NotNull [] src, int off, int len) throws IOException {
+        stream.write(src, off, len);
+    }
+
+    @Override
+    public void writeShorts(short @NotNull [] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        stream.writeValues(shortLayout, src, off, len);
+    }
+
+    @Override
+    public void writeInts(int @NotNull [] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        stream.writeValues(intLayout, src, off, len);
+    }
+
+    @Override
+    public void writeLongs(long @NotNull [] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        stream.writeValues(longLayout, src, off, len);
+    }
+
+    @Override
+    public void writeFloats(float @NotNull [] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        stream.writeValues(floatLayout, src, off, len);
+    }
+
+    @Override
+    public void writeDoubles(double @NotNull [] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        stream.writeValues(doubleLayout, src, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        stream.flush();
+    }
+}
@@ -0,0 +1,253 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * Sends the contents of a file to a bulk or interrupt endpoint.
+ * <p>
+ * The file is memory-mapped. The transfers directly refer to consecutive slices
+ * of the mapped file so the data is not copied in user space. Up to the specified
+ * number of transfers are kept outstanding.
+ * </p>
+ * <p>
+ * The mapping is released by the garbage collector. So abandoned transfers
+ * never refer to unmapped memory.
+ * </p>
+ */
+class EndpointFileSender {
+
+    private static final System.Logger LOG = System.getLogger(EndpointFileSender.class.getName());
+
+    // Maximum time (ms) to wait for outstanding transfers to complete during teardown.
+    private static final long TEARDOWN_TIMEOUT_MS = 1000;
+
+    private final UsbDeviceImpl device;
+    private final int endpointNumber;
+    private final int transferSize;
+    private final int packetSize;
+    private final LongConsumer progressListener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition transferCompleted = lock.newCondition();
+    // Transfers ready to be submitted
+    private final ArrayDeque<Transfer> idleTransfers = new ArrayDeque<>();
+    // Transfers completed but not processed yet (guarded by lock)
+    private final ArrayDeque<Transfer> completedTransfers = new ArrayDeque<>();
+    // Number of transfers submitted to the operating system and not completed yet (guarded by lock)
+    private int numPendingTransfers;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param device           USB device
+     * @param endpointNumber   endpoint number
+     * @param numTransfers     maximum number of outstanding transfers
+     * @param transferSize     maximum size of each transfer (in bytes)
+     * @param progressListener listener notified about the number of bytes sent (or {@code null})
+     */
+    EndpointFileSender(UsbDeviceImpl device, int endpointNumber, int numTransfers, int transferSize,
+                       LongConsumer progressListener) {
+        if (numTransfers <= 0)
+            throw new IllegalArgumentException("number of transfers must be positive");
+        if (transferSize <= 0)
+            throw new IllegalArgumentException("transfer size must be positive");
+
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+        this.transferSize = transferSize;
+        this.progressListener = progressListener;
+        packetSize = device.getEndpoint(UsbDirection.OUT, endpointNumber).getPacketSize();
+
+        for (var i = 0; i < numTransfers; i++) {
+            var transfer = device.createTransfer();
+            transfer.setCompletion(this::onCompletion);
+            idleTransfers.add(transfer);
+        }
+    }
+
+    /**
+     * Sends the file.
+     * <p>
+     * Blocks until the entire file has been sent.
+     * </p>
+     *
+     * @param path path of file
+     * @throws IOException if the file cannot be read
+     */
+    void send(Path path) throws IOException {
+        MemorySegment data;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+        }
+
+        var size = data.byteSize();
+        if (size == 0) {
+            device.transferOut(endpointNumber, new byte[0]);
+            return;
+        }
+
+        device.configureForAsyncTransfers(UsbDirection.OUT, endpointNumber);
+
+        // a zero-length packet terminates the data if the last packet is full
+        var needsZlp = size % packetSize == 0;
+        var submittedLength = 0L;
+        var sentLength = 0L;
+
+        lock.lock();
+        try {
+            while (true) {
+                // submit transfers with the next slices of the file
+                while (!idleTransfers.isEmpty() && (submittedLength < size || needsZlp)) {
+                    var transfer = idleTransfers.element();
+                    var length = (int) Math.min(transferSize, size - submittedLength);
+                    if (length > 0) {
+                        transfer.setData(data.asSlice(submittedLength, length));
+                    } else {
+                        // zero-length packet (the data is not accessed)
+                        transfer.setData(data.asSlice(size - 1, 1));
+                        needsZlp = false;
+                    }
+                    transfer.setDataSize(length);
+                    transfer.setResultCode(0);
+                    device.submitAsyncTransfer(UsbDirection.OUT, endpointNumber, transfer);
+
+                    idleTransfers.remove();
+                    numPendingTransfers += 1;
+                    submittedLength += length;
+                }
+
+                if (numPendingTransfers == 0 && completedTransfers.isEmpty())
+                    return;
+
+                awaitCompletion();
+
+                // process completed transfers
+                var previousSentLength = sentLength;
+                while (!completedTransfers.isEmpty()) {
+                    var transfer = completedTransfers.remove();
+                    idleTransfers.add(transfer);
+                    if (transfer.resultCode() != 0)
+                        device.throwOSException(transfer.resultCode(), "error occurred while sending file to endpoint %d",
+                                endpointNumber);
+                    sentLength += transfer.resultSize();
+                }
+
+                if (progressListener != null && sentLength != previousSentLength)
+                    notifyProgress(sentLength);
+            }
+
+        } catch (UsbException e) {
+            abortTransfers();
+            throw e;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // must be called while holding the lock
+    @SuppressWarnings("java:S2142")
+    private void awaitCompletion() {
+        var wasInterrupted = false;
+        while (completedTransfers.isEmpty()) {
+            try {
+                transferCompleted.await();
+            } catch (InterruptedException _) {
+                // defer the interrupt and re-assert it once we are done
+                wasInterrupted = true;
+            }
+        }
+
+        if (wasInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    // must be called while holding the lock
+    private void notifyProgress(long sentLength) {
+        // do not call listener while holding the lock
+        lock.unlock();
+        try {
+            progressListener.accept(sentLength);
+        } finally {
+            lock.lock();
+        }
+    }
+
+    // must be called while holding the lock
+    @SuppressWarnings("java:S2142")
+    private void abortTransfers() {
+        if (numPendingTransfers == 0)
+            return;
+
+        try {
+            device.abortTransfers(UsbDirection.OUT, endpointNumber);
+
+        } catch (UsbException _) {
+            // If aborting the transfer is not possible, the device has
+            // likely been closed or unplugged. So all outstanding
+            // transfers will terminate anyway.
+        }
+
+        // wait until the completion handlers have been called (bounded)
+        var remaining = TimeUnit.MILLISECONDS.toNanos(TEARDOWN_TIMEOUT_MS);
+        var wasInterrupted = false;
+        while (numPendingTransfers > 0) {
+            if (remaining <= 0) {
+                LOG.log(WARNING,
+                        "abandoning {0} outstanding transfer(s) after failed file transfer - no completion within {1} ms",
+                        numPendingTransfers, TEARDOWN_TIMEOUT_MS);
+                break;
+            }
+
+            try {
+                remaining = transferCompleted.awaitNanos(remaining);
+            } catch (InterruptedException _) {
+                wasInterrupted = true;
+            }
+        }
+
+        if (wasInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Handles the completion of a transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param transfer the completed transfer
+     */
+    private void onCompletion(Transfer transfer) {
+        lock.lock();
+        try {
+            completedTransfers.add(transfer);
+            numPendingTransfers -= 1;
+            transferCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbForwardingPipe;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static net.codecrete.usb.common.EndpointStreams.toIOException;
+
+/**
+ * Forwarding pipe between an IN endpoint and an OUT endpoint.
+ * <p>
+ * Each slot consists of a buffer, a transfer for the IN endpoint (of the source device) and
+ * a transfer for the OUT endpoint (of the target device), both using the slot's buffer.
+ * The completion handler of the IN transfer submits the OUT transfer, and the completion
+ * handler of the OUT transfer resubmits the IN transfer. Both run on the background thread
+ * handling IO completions.
+ * </p>
+ */
+class EndpointForwarder implements UsbForwardingPipe {
+
+    private static final System.Logger LOG = System.getLogger(EndpointForwarder.class.getName());
+
+    // Maximum time (ms) to wait for outstanding transfers to complete during teardown.
+    private static final long TEARDOWN_TIMEOUT_MS = 1000;
+
+    private final UsbDeviceImpl source;
+    private final int inEndpointNumber;
+    private final UsbDeviceImpl target;
+    private final int outEndpointNumber;
+    private final int transferSize;
+    private final Transfer[] inTransfers;
+    private final Transfer[] outTransfers;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    // Number of IN transfers submitted to the operating system (guarded by this)
+    private int numPendingInTransfers;
+    // Number of OUT transfers submitted to the operating system (guarded by this)
+    private int numPendingOutTransfers;
+    // Indicates that no more IN transfers are submitted (guarded by this)
+    private boolean isStopping;
+    // Indicates that the teardown has been started (guarded by this)
+    private boolean isClosing;
+    // Number of bytes sent (only updated while holding the lock)
+    private volatile long forwardedLength;
+    // Reason for stopping, or null if not failed
+    private volatile IOException failure;
+
+    /**
+     * Creates a new instance and starts forwarding.
+     *
+     * @param source            source device
+     * @param inEndpointNumber  IN endpoint number of source device
+     * @param target            target device
+     * @param outEndpointNumber OUT endpoint number of target device
+     * @param bufferSize        approximate buffer size (in bytes), determining the number of transfers
+     */
+    EndpointForwarder(UsbDeviceImpl source, int inEndpointNumber, UsbDeviceImpl target, int outEndpointNumber,
+                      int bufferSize) {
+        this.source = source;
+        this.inEndpointNumber = inEndpointNumber;
+        this.target = target;
+        this.outEndpointNumber = outEndpointNumber;
+
+        var packetSize = source.getEndpoint(UsbDirection.IN, inEndpointNumber).getPacketSize();
+        transferSize = EndpointStreams.transferSize(bufferSize, packetSize);
+        var numTransfers = EndpointStreams.numTransfers(bufferSize, transferSize);
+        source.configureForAsyncTransfers(UsbDirection.IN, inEndpointNumber);
+        target.configureForAsyncTransfers(UsbDirection.OUT, outEndpointNumber);
+
+        inTransfers = new Transfer[numTransfers];
+        outTransfers = new Transfer[numTransfers];
+        for (var i = 0; i < numTransfers; i++) {
+            final var index = i;
+            var buffer = TransferBufferPool.shared().acquire(transferSize);
+
+            var inTransfer = source.createTransfer();
+            inTransfer.setData(buffer);
+            inTransfer.setCompletion(_ -> onInCompletion(index));
+            inTransfers[i] = inTransfer;
+
+            var outTransfer = target.createTransfer();
+            outTransfer.setData(buffer);
+            outTransfer.setCompletion(_ -> onOutCompletion(index));
+            outTransfers[i] = outTransfer;
+        }
+
+        try {
+            synchronized (this) {
+                for (var transfer : inTransfers)
+                    submitInTransfer(transfer);
+            }
+        } catch (UsbException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long forwardedLength() {
+        return forwardedLength;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    @Override
+    public void close() {
+        boolean isTeardownStarted;
+        synchronized (this) {
+            isStopping = true;
+            isTeardownStarted = isClosing;
+            isClosing = true;
+        }
+
+        if (isTeardownStarted) {
+            // teardown is in progress on another thread
+            completion.exceptionally(_ -> null).join();
+        } else {
+            teardown();
+        }
+    }
+
+    // must be called while holding the lock
+    private void submitInTransfer(Transfer transfer) {
+        transfer.setDataSize(transferSize);
+        transfer.setResultCode(0);
+        source.submitAsyncTransfer(UsbDirection.IN, inEndpointNumber, transfer);
+        numPendingInTransfers += 1;
+    }
+
+    // must be called while holding the lock
+    private void fail(UsbException e) {
+        if (failure != null)
+            return;
+
+        failure = toIOException(e);
+        isStopping = true;
+
+        // completion handlers must not block; so the teardown runs on another thread
+        CompletableFuture.runAsync(this::close);
+    }
+
+    /**
+     * Handles the completion of an IN transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param index slot index
+     */
+    private synchronized void onInCompletion(int index) {
+        numPendingInTransfers -= 1;
+        notifyAll();
+
+        var inTransfer = inTransfers[index];
+        if (inTransfer.resultCode() != 0) {
+            if (!isStopping) {
+                try {
+                    source.throwOSException(inTransfer.resultCode(), "error occurred while reading from endpoint %d",
+                            inEndpointNumber);
+                } catch (UsbException e) {
+                    fail(e);
+                }
+            }
+            return;
+        }
+
+        // data received while stopping is still forwarded
+        if (failure != null)
+            return;
+
+        try {
+            var outTransfer = outTransfers[index];
+            outTransfer.setDataSize(inTransfer.resultSize());
+            outTransfer.setResultCode(0);
+            target.submitAsyncTransfer(UsbDirection.OUT, outEndpointNumber, outTransfer);
+            numPendingOutTransfers += 1;
+
+        } catch (UsbException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Handles the completion of an OUT transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param index slot index
+     */
+    private synchronized void onOutCompletion(int index) {
+        numPendingOutTransfers -= 1;
+        notifyAll();
+
+        var outTransfer = outTransfers[index];
+        if (outTransfer.resultCode() != 0) {
+            if (!isClosing) {
+                try {
+                    target.throwOSException(outTransfer.resultCode(), "error occurred while sending to endpoint %d",
+                            outEndpointNumber);
+                } catch (UsbException e) {
+                    fail(e);
+                }
+            }
+            return;
+        }
+
+        forwardedLength += outTransfer.resultSize();
+
+        if (isStopping)
+            return;
+
+        try {
+            submitInTransfer(inTransfers[index]);
+        } catch (UsbException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Aborts the IN transfers, waits for the OUT transfers to complete, releases the buffers and
+     * completes the future.
+     */
+    private void teardown() {
+        boolean isAbandoned;
+        synchronized (this) {
+            // stop receiving
+            if (numPendingInTransfers > 0)
+                abortTransfers(source, UsbDirection.IN, inEndpointNumber);
+            awaitPendingTransfers();
+
+            // send the remaining data; abort if it doesn't complete in time
+            if (numPendingOutTransfers > 0) {
+                abortTransfers(target, UsbDirection.OUT, outEndpointNumber);
+                awaitPendingTransfers();
+            }
+
+            isAbandoned = numPendingInTransfers + numPendingOutTransfers > 0;
+            if (isAbandoned)
+                LOG.log(WARNING,
+                        "abandoning {0} outstanding transfer(s) during forwarding pipe teardown - no completion within {1} ms",
+                        numPendingInTransfers + numPendingOutTransfers, TEARDOWN_TIMEOUT_MS);
+        }
+
+        // return the buffers to the pool unless transfers have been abandoned
+        if (!isAbandoned) {
+            for (var transfer : inTransfers)
+                TransferBufferPool.shared().release(transfer.data());
+        }
+
+        if (failure != null)
+            completion.completeExceptionally(failure);
+        else
+            completion.complete(forwardedLength);
+    }
+
+    private static void abortTransfers(UsbDeviceImpl device, UsbDirection direction, int endpointNumber) {
+        try {
+            device.abortTransfers(direction, endpointNumber);
+
+        } catch (UsbException _) {
+            // If aborting the transfer is not possible, the device has
+            // likely been closed or unplugged. So all outstanding
+            // transfers will terminate anyway.
+        }
+    }
+
+    // must be called while holding the lock
+    @SuppressWarnings("java:S2142")
+    private void awaitPendingTransfers() {
+        // wait until the completion handlers have been called (bounded)
+        var deadline = System.currentTimeMillis() + TEARDOWN_TIMEOUT_MS;
+        var wasInterrupted = false;
+        while (numPendingInTransfers + numPendingOutTransfers > 0) {
+            var remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+                break;
+
+            try {
+                wait(remaining);
+            } catch (InterruptedException _) {
+                // defer the interrupt and re-assert it once we are done
+                wasInterrupted = true;
+            }
+        }
+
+        if (wasInterrupted)
+            Thread.currentThread().interrupt();
+    }
+}
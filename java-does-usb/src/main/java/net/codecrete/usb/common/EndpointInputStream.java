@@ -7,17 +7,29 @@
 
 package net.codecrete.usb.common;
 
+import net.codecrete.usb.UsbDataInput;
 import net.codecrete.usb.UsbDirection;
 import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbInputStream;
+import net.codecrete.usb.UsbStallException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.lang.foreign.Arena;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
 import java.util.Objects;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static net.codecrete.usb.common.EndpointStreams.toIOException;
 
@@ -38,8 +50,15 @@ import static java.lang.foreign.ValueLayout.JAVA_BYTE;
  * completes, the background thread adds it to the queue. The consuming code
  * waits for the next item in the queue.
  * </p>
+ * <p>
+ * The stream starts with a single outstanding transfer. For each transfer receiving data,
+ * an additional transfer is submitted until all transfers are outstanding. If an idle timeout
+ * is set, a task of the shared endpoint stream timer aborts the outstanding transfers when no
+ * transfer has completed for the specified time. The reading thread then resubmits a single
+ * transfer only.
+ * </p>
  */
-public abstract class EndpointInputStream extends InputStream {
+public abstract class EndpointInputStream extends UsbInputStream {
 
     private static final System.Logger LOG = System.getLogger(EndpointInputStream.class.getName());
 
@@ -50,8 +69,8 @@ public abstract class EndpointInputStream extends InputStream {
 
     protected UsbDeviceImpl device;
     protected final int endpointNumber;
-    // Arena to allocate buffers and completion handlers
-    protected final Arena arena;
+    // All transfers (to return their buffers to the pool)
+    private final Transfer[] transfers;
     // Transfer size (multiple of packet size)
     protected final int transferSize;
     // Queue of completed transfers
@@ -60,9 +79,44 @@ public abstract class EndpointInputStream extends InputStream {
     // operating system and transfers in the completed queue)
     private int numOutstandingTransfers;
     // Transfer and associated buffer being currently read from
+    // (or noTransfer if the last current transfer has been resubmitted)
     private Transfer currentTransfer;
+    // Placeholder used as the current transfer when all transfers are outstanding
+    private final Transfer noTransfer = new Transfer();
     // Read offset within current transfer buffer
     private int readOffset;
+    // Listener notified after a transfer has completed (called from background thread)
+    private volatile Runnable completionListener;
+    // Read timeout (in ms, 0 for no timeout)
+    private volatile int readTimeout;
+    // Listener notified about recovered stalls (or null if stall recovery is disabled)
+    private volatile Consumer<UsbStallException> stallRecoveryListener;
+    // Number of outstanding transfers submitted before the last stall has been cleared
+    private int numStaleTransfers;
+    // Idle timeout (in ms) for reducing the number of outstanding transfers (0 if disabled)
+    private volatile int prefetchIdleTimeout;
+    // Timer task checking for an idle stream (or null if the idle timeout is disabled)
+    private ScheduledFuture<?> idleTimer;
+    // Maximum number of active transfers (outstanding transfers and current transfer, written by reading thread)
+    private volatile int prefetchDepth;
+    // Transfers that are not active (without buffer)
+    private final ArrayDeque<Transfer> idleTransfers = new ArrayDeque<>();
+    // Number of transfers submitted (written by reading thread)
+    private volatile long numSubmittedTransfers;
+    // Number of completed transfers taken from the queue
+    private long numTakenTransfers;
+    // Number of transfers completed by the operating system
+    private final AtomicLong numCompletedTransfers = new AtomicLong();
+    // Time of last completion (in System.nanoTime() units)
+    private volatile long lastCompletionTime;
+    // Transfers submitted before the last abort (sequence number) might have been aborted
+    private volatile long abortMark;
+    // Abort mark already applied to the prefetch depth
+    private long appliedAbortMark;
+    // Indicates that the current transfer has unread data (published for the selector thread)
+    private volatile boolean hasBufferedData;
+    // Buffer for assembling a value spanning two transfers
+    private final MemorySegment spanningValue = MemorySegment.ofArray(new byte[8]);
 
     /**
      * Creates a new instance
@@ -74,35 +128,32 @@ public abstract class EndpointInputStream extends InputStream {
     protected EndpointInputStream(UsbDeviceImpl device, int endpointNumber, int bufferSize) {
         this.device = device;
         this.endpointNumber = endpointNumber;
-        //arena = Arena.ofShared();  // not supported by GraalVM
-        arena = Arena.ofAuto();
-
         var packetSize = device.getEndpoint(UsbDirection.IN, endpointNumber).getPacketSize();
 
-        // use between 4 and 32 packets per transfer (256B to 2KB for FS, 2KB to 16KB for HS)
-        var numPacketsPerTransfer = (int) Math.round(Math.sqrt((double) bufferSize / packetSize));
-        numPacketsPerTransfer = Math.clamp(numPacketsPerTransfer, 4, 32);
-        transferSize = numPacketsPerTransfer * packetSize;
-
-        // use at least 2 outstanding transfers (3 in total)
-        var maxOutstandingTransfers = Math.max((bufferSize + transferSize / 2) / transferSize, 3);
+        transferSize = EndpointStreams.transferSize(bufferSize, packetSize);
+        var maxOutstandingTransfers = EndpointStreams.numTransfers(bufferSize, transferSize);
 
         configureEndpoint();
 
         completedTransferQueue = new ArrayBlockingQueue<>(maxOutstandingTransfers);
+        transfers = new Transfer[maxOutstandingTransfers];
+        prefetchDepth = 1;
+        currentTransfer = noTransfer;
+        lastCompletionTime = System.nanoTime();
 
-        // create all transfers, and submit them except one
+        // create all transfers, and submit the first one (the others are idle)
         try {
             for (var i = 0; i < maxOutstandingTransfers; i++) {
                 final var transfer = device.createTransfer();
-                transfer.setData(arena.allocate(transferSize, 8));
+                transfers[i] = transfer;
                 transfer.setDataSize(transferSize);
                 transfer.setCompletion(this::onCompletion);
 
                 if (i == 0) {
-                    currentTransfer = transfer;
-                } else {
+                    transfer.setData(TransferBufferPool.shared().acquire(transferSize));
                     submitTransfer(transfer);
+                } else {
+                    idleTransfers.add(transfer);
                 }
             }
         } catch (Exception t) {
@@ -121,6 +172,8 @@ public abstract class EndpointInputStream extends InputStream {
         if (isClosed())
             return;
 
+        cancelIdleTimer();
+
         // abort all transfers on endpoint
         try {
             device.abortTransfers(UsbDirection.IN, endpointNumber);
@@ -180,6 +233,243 @@ public abstract class EndpointInputStream extends InputStream {
         }
     }
 
+    /**
+     * Reads data into the specified byte buffer.
+     * <p>
+     * The data is copied directly from the native transfer buffer into the byte buffer.
+     * This method blocks until at least one byte has been received.
+     * </p>
+     *
+     * @param dst buffer receiving the data
+     * @return number of bytes read
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        var len = dst.remaining();
+        if (len == 0)
+            return 0;
+
+        try {
+            var dstSegment = MemorySegment.ofBuffer(dst);
+            var numRead = 0;
+            do {
+                if (bufferedBytes() == 0)
+                    receiveMoreData();
+
+                // copy data to receiving buffer
+                var n = Math.min(len - numRead, bufferedBytes());
+                MemorySegment.copy(currentTransfer.data(), readOffset, dstSegment, numRead, n);
+                readOffset += n;
+                numRead += n;
+
+            } while (numRead < len && hasMoreTransfers());
+
+            dst.position(dst.position() + numRead);
+            return numRead;
+
+        } catch (UsbException e) {
+            throw toIOException(e);
+        }
+    }
+
+    @Override
+    public @NotNull UsbDataInput asDataInput(@NotNull ByteOrder order) {
+        return new EndpointDataInput(this, order);
+    }
+
+    /**
+     * Reads primitive values into the specified array.
+     * <p>
+     * The values are decoded directly from the transfer buffers. Only values
+     * spanning two transfers are assembled in a separate buffer.
+     * </p>
+     *
+     * @param layout   value layout (unaligned, with the desired byte order)
+     * @param dstArray primitive array receiving the values
+     * @param dstIndex index of first value in array
+     * @param count    number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void readValues(ValueLayout layout, Object dstArray, int dstIndex, int count) throws IOException {
+        ensureOpen();
+        var valueSize = (int) layout.byteSize();
+
+        try {
+            while (count > 0) {
+                if (bufferedBytes() == 0)
+                    receiveMoreData();
+
+                var n = Math.min(count, bufferedBytes() / valueSize);
+                if (n > 0) {
+                    MemorySegment.copy(currentTransfer.data(), layout, readOffset, dstArray, dstIndex, n);
+                    readOffset += n * valueSize;
+                } else {
+                    // value spans two transfers
+                    n = 1;
+                    var filled = 0;
+                    while (filled < valueSize) {
+                        if (bufferedBytes() == 0)
+                            receiveMoreData();
+                        var m = Math.min(valueSize - filled, bufferedBytes());
+                        MemorySegment.copy(currentTransfer.data(), readOffset, spanningValue, filled, m);
+                        readOffset += m;
+                        filled += m;
+                    }
+                    MemorySegment.copy(spanningValue, layout, 0, dstArray, dstIndex, 1);
+                }
+
+                dstIndex += n;
+                count -= n;
+            }
+
+        } catch (UsbException e) {
+            throw toIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The data of each transfer is written in a single call. If the output stream is an
+     * endpoint output stream or a file output stream, the data is written directly from
+     * the native transfer buffer. Otherwise, it is copied into a heap buffer the size
+     * of a transfer.
+     * </p>
+     * <p>
+     * As endpoint input streams do not have an end, this method only returns by
+     * throwing an exception, e.g. if the stream is closed or the read timeout expires.
+     * </p>
+     */
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        Objects.requireNonNull(out, "out");
+        ensureOpen();
+
+        var endpointStream = out instanceof EndpointOutputStream eos ? eos : null;
+        var fileChannel = out instanceof FileOutputStream fos ? fos.getChannel() : null;
+        var heapBuffer = endpointStream == null && fileChannel == null ? new byte[transferSize] : null;
+
+        while (true) {
+            try {
+                if (bufferedBytes() == 0)
+                    receiveMoreData();
+            } catch (UsbException e) {
+                throw toIOException(e);
+            }
+
+            var n = bufferedBytes();
+            if (heapBuffer != null) {
+                MemorySegment.copy(currentTransfer.data(), JAVA_BYTE, readOffset, heapBuffer, 0, n);
+                out.write(heapBuffer, 0, n);
+            } else {
+                var buffer = currentTransfer.data().asSlice(readOffset, n).asByteBuffer();
+                if (endpointStream != null) {
+                    endpointStream.write(buffer);
+                } else {
+                    while (buffer.hasRemaining())
+                        fileChannel.write(buffer);
+                }
+            }
+            readOffset += n;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Data is taken from the current transfer and from transfers that have already completed.
+     * Completed transfers are resubmitted as they are consumed.
+     * </p>
+     */
+    @Override
+    public int tryRead(byte @NotNull [] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+
+        try {
+            var numRead = 0;
+            while (numRead < len) {
+                if (bufferedBytes() == 0 && !receiveAvailableData())
+                    break;
+
+                // copy data to receiving buffer
+                var n = Math.min(len - numRead, bufferedBytes());
+                MemorySegment.copy(currentTransfer.data(), readOffset, MemorySegment.ofArray(b), (long) off + numRead, n);
+                readOffset += n;
+                numRead += n;
+            }
+
+            hasBufferedData = bufferedBytes() > 0;
+            return numRead;
+
+        } catch (UsbException e) {
+            throw toIOException(e);
+        }
+    }
+
+    /**
+     * Indicates if data (or an error) can be consumed with {@link #tryRead(byte[], int, int)} without blocking.
+     * <p>
+     * This method may be called from a different thread than the reading thread. It only
+     * relies on the completed transfer queue and on state published by {@code tryRead()}.
+     * </p>
+     *
+     * @return {@code true} if data is available
+     */
+    boolean isReadable() {
+        return hasBufferedData || hasMoreTransfers();
+    }
+
+    @Override
+    public void setReadTimeout(int timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+        readTimeout = timeout;
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public void setPrefetchIdleTimeout(int timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+        prefetchIdleTimeout = timeout;
+
+        synchronized (this) {
+            cancelIdleTimer();
+            if (timeout > 0 && !isClosed())
+                idleTimer = EndpointStreams.timer().scheduleWithFixedDelay(this::onIdleCheck, timeout, timeout,
+                        TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public int getPrefetchIdleTimeout() {
+        return prefetchIdleTimeout;
+    }
+
+    @Override
+    public void setStallRecoveryListener(@Nullable Consumer<UsbStallException> listener) {
+        stallRecoveryListener = listener;
+    }
+
+    /**
+     * Sets the listener to be notified when a transfer completes.
+     * <p>
+     * The listener is called from the background thread handling IO completions.
+     * It must return quickly.
+     * </p>
+     *
+     * @param listener the listener, or {@code null} to remove it
+     */
+    void setCompletionListener(Runnable listener) {
+        completionListener = listener;
+    }
+
     @Override
     public int available() throws IOException {
         ensureOpen();
@@ -202,30 +492,83 @@ public abstract class EndpointInputStream extends InputStream {
     }
 
     private void receiveMoreData() throws IOException {
+        var timeout = readTimeout;
+        var deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+
         try {
             // loop until non-ZLP has been received
             do {
                 // the current transfer has no more data to process and
                 // can be submitted to read more data
-                submitTransfer(currentTransfer);
+                resubmitCurrentTransfer();
+
+                var transfer = waitForCompletedTransfer(deadline);
+                if (transfer == null)
+                    break;
+                currentTransfer = transfer;
+                readOffset = 0;
 
-                currentTransfer = waitForCompletedTransfer();
+                // check for error
+                checkCurrentTransfer();
+
+            } while (currentTransfer.resultSize() <= 0);
+
+            if (currentTransfer != noTransfer)
+                increasePrefetch();
+
+        } catch (Exception t) {
+            close();
+            throw t;
+        }
+
+        // the stream and the submitted transfers remain intact after a timeout
+        if (currentTransfer == noTransfer)
+            throw new InterruptedIOException(String.format("reading from endpoint %d timed out", endpointNumber));
+    }
+
+    /**
+     * Consumes transfers that have already completed until a transfer with data is found.
+     *
+     * @return {@code true} if a transfer with data has become the current transfer,
+     * {@code false} if no more completed transfers are available
+     */
+    private boolean receiveAvailableData() throws IOException {
+        try {
+            // loop until non-ZLP has been received
+            do {
+                var transfer = completedTransferQueue.poll();
+                if (transfer == null)
+                    return false;
+                numOutstandingTransfers -= 1;
+
+                // the current transfer has no more data to process and
+                // can be submitted to read more data
+                resubmitCurrentTransfer();
+
+                currentTransfer = transfer;
                 readOffset = 0;
 
                 // check for error
-                if (currentTransfer.resultCode() != 0)
-                    device.throwOSException(currentTransfer.resultCode(), "error occurred while reading from endpoint %d",
-                            endpointNumber);
+                checkCurrentTransfer();
 
             } while (currentTransfer.resultSize() <= 0);
 
+            increasePrefetch();
+            return true;
+
         } catch (Exception t) {
             close();
             throw t;
         }
     }
 
-    private Transfer waitForCompletedTransfer() {
+    /**
+     * Waits for the next completed transfer.
+     *
+     * @param deadline deadline (in {@link System#nanoTime()} units), or 0 for no timeout
+     * @return completed transfer, or {@code null} if the deadline has expired
+     */
+    private Transfer waitForCompletedTransfer(long deadline) {
         // Defer interruption: keep a local flag instead of re-asserting the interrupt
         // inside the loop (which would make the next take() throw immediately and
         // busy-spin). Re-assert once the completion has actually arrived.
@@ -233,7 +576,14 @@ public abstract class EndpointInputStream extends InputStream {
         try {
             while (true) {
                 try {
-                    var transfer = completedTransferQueue.take();
+                    Transfer transfer;
+                    if (deadline == 0) {
+                        transfer = completedTransferQueue.take();
+                    } else {
+                        transfer = completedTransferQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (transfer == null)
+                            return null;
+                    }
                     numOutstandingTransfers -= 1;
                     return transfer;
                 } catch (InterruptedException _) {
@@ -246,13 +596,148 @@ public abstract class EndpointInputStream extends InputStream {
         }
     }
 
+    /**
+     * Checks the current transfer for an error.
+     * <p>
+     * If stall recovery is enabled and the transfer has stalled, the halt condition is cleared
+     * (unless the stall is the consequence of a stall that has already been recovered from),
+     * and the transfer is treated as if it had received a zero-length packet.
+     * </p>
+     */
+    private void checkCurrentTransfer() {
+        var isStale = numStaleTransfers > 0;
+        if (isStale)
+            numStaleTransfers -= 1;
+
+        numTakenTransfers += 1;
+        var mark = abortMark;
+        if (mark != appliedAbortMark) {
+            // the stream has been idle: reduce the number of outstanding transfers
+            appliedAbortMark = mark;
+            prefetchDepth = 1;
+        }
+
+        if (numTakenTransfers <= mark) {
+            // The transfers submitted before the idle abort complete next.
+            // Those actually aborted keep the data received before the abort. Others might
+            // have completed normally or with a genuine error before the abort took effect.
+            if (device.isAbortedResult(currentTransfer.resultCode())) {
+                currentTransfer.setResultCode(0);
+                currentTransfer.setResultSize(Math.max(currentTransfer.resultSize(), 0));
+                return;
+            }
+        }
+
+        if (currentTransfer.resultCode() == 0)
+            return;
+
+        try {
+            device.throwOSException(currentTransfer.resultCode(), "error occurred while reading from endpoint %d",
+                    endpointNumber);
+
+        } catch (UsbStallException e) {
+            var listener = stallRecoveryListener;
+            if (listener == null)
+                throw e;
+
+            if (!isStale) {
+                device.clearHalt(UsbDirection.IN, endpointNumber);
+                // transfers submitted before the halt was cleared might fail as well
+                // (they complete in order, so they are the next ones)
+                numStaleTransfers = numOutstandingTransfers;
+                listener.accept(e);
+            }
+
+            // skip the transfer; it will be resubmitted
+            currentTransfer.setResultCode(0);
+            currentTransfer.setResultSize(0);
+        }
+    }
+
+    @SuppressWarnings("java:S3078")
     private void submitTransfer(Transfer transfer) {
         submitTransferIn(transfer);
         numOutstandingTransfers += 1;
+        numSubmittedTransfers += 1;
+    }
+
+    private void resubmitCurrentTransfer() {
+        if (currentTransfer != noTransfer) {
+            if (transfers.length - idleTransfers.size() > prefetchDepth) {
+                // more transfers are active than needed: return buffer to pool
+                TransferBufferPool.shared().release(currentTransfer.data());
+                currentTransfer.setData(null);
+                idleTransfers.add(currentTransfer);
+            } else {
+                submitTransfer(currentTransfer);
+            }
+            currentTransfer = noTransfer;
+            readOffset = 0;
+        }
+    }
+
+    /**
+     * Reduces the number of outstanding transfers to one if no transfer has completed
+     * during the idle timeout.
+     * <p>
+     * Called from the shared timer. All outstanding transfers are aborted. As the reading thread
+     * takes them from the queue, all but the last one become idle. The last one is resubmitted.
+     * </p>
+     */
+    private void onIdleCheck() {
+        var timeout = TimeUnit.MILLISECONDS.toNanos(prefetchIdleTimeout);
+        var submitted = numSubmittedTransfers;
+        if (System.nanoTime() - lastCompletionTime < timeout || prefetchDepth <= 1
+                || submitted == numCompletedTransfers.get() || submitted <= abortMark)
+            return;
+
+        var dev = device;
+        if (dev == null)
+            return;
+
+        try {
+            dev.abortTransfers(UsbDirection.IN, endpointNumber);
+        } catch (UsbException _) {
+            // If aborting the transfer is not possible, the device has likely been
+            // closed or unplugged. The outstanding transfers will report the error.
+            return;
+        }
+
+        // Transfers submitted concurrently are possibly included. As only results
+        // indicating an abort are masked, this is harmless.
+        abortMark = numSubmittedTransfers;
+    }
+
+    private synchronized void cancelIdleTimer() {
+        if (idleTimer != null) {
+            idleTimer.cancel(false);
+            idleTimer = null;
+        }
+    }
+
+    /**
+     * Activates an idle transfer after data has been received.
+     */
+    private void increasePrefetch() {
+        if (prefetchDepth >= transfers.length)
+            return;
+
+        prefetchDepth += 1;
+        var transfer = idleTransfers.poll();
+        if (transfer != null) {
+            transfer.setData(TransferBufferPool.shared().acquire(transferSize));
+            submitTransfer(transfer);
+        }
     }
 
     private void onCompletion(Transfer transfer) {
+        lastCompletionTime = System.nanoTime();
+        numCompletedTransfers.incrementAndGet();
         completedTransferQueue.add(transfer);
+
+        var listener = completionListener;
+        if (listener != null)
+            listener.run();
     }
 
     @SuppressWarnings("java:S2142")
@@ -286,9 +771,19 @@ public abstract class EndpointInputStream extends InputStream {
         if (wasInterrupted)
             Thread.currentThread().interrupt();
 
+        // return the buffers to the pool unless transfers have been abandoned
+        if (numOutstandingTransfers == 0)
+            releaseBuffers();
+
         completedTransferQueue.clear();
         currentTransfer = null;
-        //arena.close();
+    }
+
+    private void releaseBuffers() {
+        for (var transfer : transfers) {
+            if (transfer != null && transfer.data() != null)
+                TransferBufferPool.shared().release(transfer.data());
+        }
     }
 
     protected abstract void submitTransferIn(Transfer transfer);
@@ -7,18 +7,24 @@
 
 package net.codecrete.usb.common;
 
+import net.codecrete.usb.UsbDataOutput;
 import net.codecrete.usb.UsbDirection;
 import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbOutputStream;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.lang.foreign.Arena;
+import java.io.InterruptedIOException;
 import java.lang.foreign.MemorySegment;
-import java.util.Arrays;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static net.codecrete.usb.common.EndpointStreams.toIOException;
 
@@ -41,8 +47,14 @@ import static java.lang.foreign.ValueLayout.JAVA_BYTE;
  * instances back to this queue. The producing application thread waits until a transfer instance
  * is available for use.
  * </p>
+ * <p>
+ * If write coalescing is enabled, a timer task on the shared stream timer thread submits
+ * partially filled transfers. A lock serializes the writing threads and the timer task.
+ * The timer task never blocks on the lock; if the lock is held, the writing thread
+ * submits the overdue data when it releases the lock.
+ * </p>
  */
-public abstract class EndpointOutputStream extends OutputStream {
+public abstract class EndpointOutputStream extends UsbOutputStream {
 
     private static final System.Logger LOG = System.getLogger(EndpointOutputStream.class.getName());
 
@@ -53,7 +65,8 @@ public abstract class EndpointOutputStream extends OutputStream {
 
     protected UsbDeviceImpl device;
     protected final int endpointNumber;
-    protected final Arena arena;
+    // All transfers (to return their buffers to the pool)
+    private final Transfer[] transfers;
     // Endpoint packet size
     private final int packetSize;
     // Transfer size (multiple of packet size)
@@ -65,6 +78,28 @@ public abstract class EndpointOutputStream extends OutputStream {
     private int writeOffset;
     private int numOutstandingTransfers;
     private boolean hasError;
+    // Listener notified after a transfer has completed (called from background thread)
+    private volatile Runnable completionListener;
+    // Write timeout (in ms, 0 for no timeout)
+    private volatile int writeTimeout;
+    // Lock serializing the writing threads and the coalescing timer
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Maximum delay (in ms) before buffered data is submitted (0 if coalescing is disabled)
+    private volatile int coalescingDelay;
+    // Timer task for submitting buffered data (guarded by writeLock)
+    private ScheduledFuture<?> coalescingTimer;
+    // Generation of the coalescing timer, incremented when it is cancelled (written while holding writeLock).
+    // Each timer task carries the generation it was scheduled for so stale tasks can be detected.
+    private volatile long coalescingGeneration;
+    // Latest generation whose coalescing delay has expired. The delay of the current timer has
+    // expired (but the data could not be submitted yet) if it is equal to coalescingGeneration.
+    private final AtomicLong overdueGeneration = new AtomicLong(-1);
+    // Error that occurred when submitting data from the timer thread
+    private volatile IOException timerError;
+    // Indicates that the current transfer is full and waiting for a replacement (published for the selector thread)
+    private volatile boolean isCurrentTransferFull;
+    // Buffer for encoding a value spanning two transfers
+    private final MemorySegment spanningValue = MemorySegment.ofArray(new byte[8]);
 
 
     /**
@@ -77,27 +112,21 @@ public abstract class EndpointOutputStream extends OutputStream {
     protected EndpointOutputStream(UsbDeviceImpl device, int endpointNumber, int bufferSize) {
         this.device = device;
         this.endpointNumber = endpointNumber;
-        //arena = Arena.ofShared();  // not supported by GraalVM
-        arena = Arena.ofAuto();
-
         packetSize = device.getEndpoint(UsbDirection.OUT, endpointNumber).getPacketSize();
 
-        // use between 4 and 32 packets per transfer (256B to 2KB for FS, 2KB to 16KB for HS)
-        var numPacketsPerTransfer = (int) Math.round(Math.sqrt((double) bufferSize / packetSize));
-        numPacketsPerTransfer = Math.clamp(numPacketsPerTransfer, 4, 32);
-        transferSize = numPacketsPerTransfer * packetSize;
-
-        // use at least 2 outstanding transfers (3 in total)
-        var maxOutstandingTransfers = Math.max((bufferSize + transferSize / 2) / transferSize, 3);
+        transferSize = EndpointStreams.transferSize(bufferSize, packetSize);
+        var maxOutstandingTransfers = EndpointStreams.numTransfers(bufferSize, transferSize);
 
         configureEndpoint();
 
         availableTransferQueue = new ArrayBlockingQueue<>(maxOutstandingTransfers);
+        transfers = new Transfer[maxOutstandingTransfers];
 
         // prefill transfer queue
         for (var i = 0; i < maxOutstandingTransfers; i++) {
             final var transfer = device.createTransfer();
-            transfer.setData(arena.allocate(transferSize, 8));
+            transfer.setData(TransferBufferPool.shared().acquire(transferSize));
+            transfers[i] = transfer;
             transfer.setCompletion(this::onCompletion);
 
             if (i == 0) {
@@ -114,35 +143,49 @@ public abstract class EndpointOutputStream extends OutputStream {
 
     @Override
     public void close() throws IOException {
-        if (isClosed())
-            return;
-
-        // Teardown path: every wait is bounded by a single deadline so a lost completion
-        // (device unplugged, or completion dropped in a source-removal race) degrades to a
-        // logged warning instead of hanging the application thread. Unlike the public
-        // flush(), this must not route through the unbounded waits.
-        var deadline = System.currentTimeMillis() + TEARDOWN_TIMEOUT_MS;
-
+        writeLock.lock();
         try {
-            if (!hasError) {
-                // best-effort: transmit any remaining buffered data (and a ZLP if needed)
-                if (writeOffset > 0)
-                    submitForClose(writeOffset, deadline);
-                if (needsZlp && currentTransfer != null)
-                    submitForClose(0, deadline);
+            if (isClosed())
+                return;
+
+            // Teardown path: every wait is bounded by a single deadline so a lost completion
+            // (device unplugged, or completion dropped in a source-removal race) degrades to a
+            // logged warning instead of hanging the application thread. Unlike the public
+            // flush(), this must not route through the unbounded waits.
+            var deadline = System.currentTimeMillis() + TEARDOWN_TIMEOUT_MS;
+
+            try {
+                if (!hasError) {
+                    // best-effort: transmit any remaining buffered data (and a ZLP if needed)
+                    if (writeOffset > 0)
+                        submitForClose(writeOffset, deadline);
+                    if (needsZlp && currentTransfer != null)
+                        submitForClose(0, deadline);
+                }
+
+            } catch (Exception e) {
+                // teardown must not fail; data-path errors are already surfaced by write()/flush()
+                LOG.log(WARNING, "error while closing output stream - ignoring", e);
             }
 
-            drainOutstandingTransfers(deadline);
+            try {
+                // errors of the remaining transfers are no longer relevant (no exception is thrown);
+                // return the buffers to the pool unless transfers have been abandoned
+                hasError = true;
+                if (drainOutstandingTransfers(deadline)) {
+                    for (var transfer : transfers)
+                        TransferBufferPool.shared().release(transfer.data());
+                }
 
-        } catch (Exception e) {
-            // teardown must not fail; data-path errors are already surfaced by write()/flush()
-            LOG.log(WARNING, "error while closing output stream - ignoring", e);
+            } finally {
+                cancelCoalescingTimer();
+                device = null;
+                availableTransferQueue.clear();
+                currentTransfer = null;
+            }
 
         } finally {
-            device = null;
-            availableTransferQueue.clear();
-            currentTransfer = null;
-            //arena.close();
+            writeLock.unlock();
         }
     }
 
@@ -167,6 +210,7 @@ public abstract class EndpointOutputStream extends OutputStream {
 
         needsZlp = size == packetSize;
         writeOffset = 0;
+        cancelCoalescingTimer();
         // if no transfer becomes available within the deadline, currentTransfer stays null,
         // the drain below still bounded-waits for the in-flight transfer to complete
         currentTransfer = pollAvailableTransfer(deadline);
@@ -180,8 +224,9 @@ public abstract class EndpointOutputStream extends OutputStream {
      * </p>
      *
      * @param deadline absolute deadline (ms since epoch)
+     * @return {@code true} if all transfers have completed, {@code false} if transfers have been abandoned
      */
-    private void drainOutstandingTransfers(long deadline) {
+    private boolean drainOutstandingTransfers(long deadline) {
         int numTransfers;
         synchronized (this) {
             numTransfers = numOutstandingTransfers + availableTransferQueue.size();
@@ -196,9 +241,10 @@ public abstract class EndpointOutputStream extends OutputStream {
                 LOG.log(WARNING,
                         "abandoning {0} outstanding transfer(s) during output stream teardown - no completion within {1} ms",
                         abandoned, TEARDOWN_TIMEOUT_MS);
-                break;
+                return false;
             }
         }
+        return true;
     }
 
     /**
@@ -243,56 +289,331 @@ public abstract class EndpointOutputStream extends OutputStream {
 
     @Override
     public void write(int b) throws IOException {
-        ensureOpen();
-
+        writeLock.lock();
         try {
-            currentTransfer.data().set(JAVA_BYTE, writeOffset, (byte) b);
-            writeOffset += 1;
-            if (writeOffset == transferSize)
-                submitTransfer(writeOffset);
+            ensureOpen();
 
-        } catch (UsbException e) {
-            throw toIOException(e);
+            try {
+                // a non-blocking write might have left a full transfer behind
+                if (writeOffset == transferSize)
+                    submitTransfer(writeOffset);
+
+                currentTransfer.data().set(JAVA_BYTE, writeOffset, (byte) b);
+                writeOffset += 1;
+                if (writeOffset == transferSize)
+                    submitTransfer(writeOffset);
+
+            } catch (UsbException e) {
+                throw toIOException(e);
+            }
+
+        } finally {
+            updateCoalescingTimer();
+            writeLock.unlock();
         }
     }
 
     @Override
     public void write(byte @NotNull [] b, int off, int len) throws IOException {
-        Objects.checkFromIndexSize(off, len, b.length);
-        ensureOpen();
+        writeLock.lock();
+        try {
+            Objects.checkFromIndexSize(off, len, b.length);
+            ensureOpen();
+
+            var numWritten = 0;
+            try {
+                while (numWritten < len) {
+                    var chunkSize = Math.min(len - numWritten, transferSize - writeOffset);
+                    MemorySegment.copy(b, off + numWritten, currentTransfer.data(), JAVA_BYTE, writeOffset, chunkSize);
+                    writeOffset += chunkSize;
+                    numWritten += chunkSize;
+
+                    if (writeOffset == transferSize)
+                        submitTransfer(writeOffset);
+                }
+
+            } catch (InterruptedIOException e) {
+                // data copied into the current transfer has been accepted
+                e.bytesTransferred = numWritten;
+                throw e;
+            } catch (UsbException e) {
+                throw toIOException(e);
+            }
+
+        } finally {
+            updateCoalescingTimer();
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public @NotNull UsbDataOutput asDataOutput(@NotNull ByteOrder order) {
+        return new EndpointDataOutput(this, order);
+    }
 
+    /**
+     * Writes primitive values from the specified array.
+     * <p>
+     * The values are encoded directly into the transfer buffers. Only values
+     * spanning two transfers are encoded in a separate buffer first.
+     * </p>
+     *
+     * @param layout   value layout (unaligned, with the desired byte order)
+     * @param srcArray primitive array containing the values
+     * @param srcIndex index of first value in array
+     * @param count    number of values
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    void writeValues(ValueLayout layout, Object srcArray, int srcIndex, int count) throws IOException {
+        writeLock.lock();
         try {
-            while (len > 0) {
-                var chunkSize = Math.min(len, transferSize - writeOffset);
-                MemorySegment.copy(b, off, currentTransfer.data(), JAVA_BYTE, writeOffset, chunkSize);
-                writeOffset += chunkSize;
-                off += chunkSize;
-                len -= chunkSize;
+            ensureOpen();
+            var valueSize = (int) layout.byteSize();
+
+            try {
+                while (count > 0) {
+                    // a non-blocking write might have left a full transfer behind
+                    if (writeOffset == transferSize)
+                        submitTransfer(writeOffset);
+
+                    var n = Math.min(count, (transferSize - writeOffset) / valueSize);
+                    if (n > 0) {
+                        MemorySegment.copy(srcArray, srcIndex, currentTransfer.data(), layout, writeOffset, n);
+                        writeOffset += n * valueSize;
+                    } else {
+                        // value spans two transfers
+                        n = 1;
+                        MemorySegment.copy(srcArray, srcIndex, spanningValue, layout, 0, 1);
+                        var written = 0;
+                        while (written < valueSize) {
+                            if (writeOffset == transferSize)
+                                submitTransfer(writeOffset);
+                            var m = Math.min(valueSize - written, transferSize - writeOffset);
+                            MemorySegment.copy(spanningValue, written, currentTransfer.data(), writeOffset, m);
+                            writeOffset += m;
+                            written += m;
+                        }
+                    }
+
+                    srcIndex += n;
+                    count -= n;
+                }
 
                 if (writeOffset == transferSize)
                     submitTransfer(writeOffset);
+
+            } catch (UsbException e) {
+                throw toIOException(e);
             }
 
-        } catch (UsbException e) {
-            throw toIOException(e);
+        } finally {
+            updateCoalescingTimer();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the data of the specified byte buffer.
+     * <p>
+     * The data is copied directly from the byte buffer into the native transfer buffer.
+     * </p>
+     *
+     * @param src buffer containing the data
+     * @return number of bytes written (all remaining bytes of the buffer)
+     * @throws IOException if a transfer has failed or the stream has been closed
+     */
+    int write(ByteBuffer src) throws IOException {
+        writeLock.lock();
+        try {
+            ensureOpen();
+            var srcSegment = MemorySegment.ofBuffer(src);
+            var len = (int) srcSegment.byteSize();
+
+            var off = 0;
+            try {
+                while (off < len) {
+                    var chunkSize = Math.min(len - off, transferSize - writeOffset);
+                    MemorySegment.copy(srcSegment, off, currentTransfer.data(), writeOffset, chunkSize);
+                    writeOffset += chunkSize;
+                    off += chunkSize;
+
+                    if (writeOffset == transferSize)
+                        submitTransfer(writeOffset);
+                }
+
+                return len;
+
+            } catch (UsbException e) {
+                throw toIOException(e);
+            } finally {
+                // data copied into the current transfer has been accepted
+                src.position(src.position() + off);
+            }
+
+        } finally {
+            updateCoalescingTimer();
+            writeLock.unlock();
         }
     }
 
     @Override
     public void flush() throws IOException {
-        ensureOpen();
+        writeLock.lock();
+        try {
+            ensureOpen();
+
+            try {
+                if (writeOffset > 0)
+                    submitTransfer(writeOffset);
 
+                if (needsZlp)
+                    submitTransfer(0);
+
+                waitForOutstandingTransfers();
+
+            } catch (UsbException e) {
+                throw toIOException(e);
+            }
+
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Full transfers are only submitted if a replacement transfer is available
+     * without waiting. If none is available, a full transfer stays the current transfer
+     * and is submitted by a later write operation.
+     * </p>
+     */
+    @Override
+    public int tryWrite(byte @NotNull [] b, int off, int len) throws IOException {
+        writeLock.lock();
         try {
-            if (writeOffset > 0)
-                submitTransfer(writeOffset);
+            Objects.checkFromIndexSize(off, len, b.length);
+            ensureOpen();
+
+            try {
+                var numWritten = 0;
+                while (numWritten < len) {
+                    if (writeOffset == transferSize && !submitTransferIfAvailable(writeOffset))
+                        break;
+
+                    var chunkSize = Math.min(len - numWritten, transferSize - writeOffset);
+                    MemorySegment.copy(b, off + numWritten, currentTransfer.data(), JAVA_BYTE, writeOffset, chunkSize);
+                    writeOffset += chunkSize;
+                    numWritten += chunkSize;
+                }
 
-            if (needsZlp)
-                submitTransfer(0);
+                if (writeOffset == transferSize)
+                    submitTransferIfAvailable(writeOffset);
 
-            waitForOutstandingTransfers();
+                isCurrentTransferFull = writeOffset == transferSize;
+                return numWritten;
 
-        } catch (UsbException e) {
-            throw toIOException(e);
+            } catch (UsbException e) {
+                throw toIOException(e);
+            }
+
+        } finally {
+            updateCoalescingTimer();
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryFlush() throws IOException {
+        writeLock.lock();
+        try {
+            ensureOpen();
+
+            try {
+                if (writeOffset > 0 && !submitTransferIfAvailable(writeOffset))
+                    return false;
+
+                return !needsZlp || submitTransferIfAvailable(0);
+
+            } catch (UsbException e) {
+                throw toIOException(e);
+            }
+
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void setWriteTimeout(int timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+        writeTimeout = timeout;
+    }
+
+    @Override
+    public int getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    @Override
+    public void setCoalescingDelay(int delay) {
+        if (delay < 0)
+            throw new IllegalArgumentException("delay must not be negative");
+        coalescingDelay = delay;
+    }
+
+    @Override
+    public int getCoalescingDelay() {
+        return coalescingDelay;
+    }
+
+    /**
+     * Indicates if data can be written with {@link #tryWrite(byte[], int, int)} without blocking.
+     * <p>
+     * This method may be called from a different thread than the writing thread. It only
+     * relies on the available transfer queue and on state published by {@code tryWrite()}.
+     * </p>
+     *
+     * @return {@code true} if data can be written
+     */
+    boolean isWritable() {
+        return !isCurrentTransferFull || !availableTransferQueue.isEmpty();
+    }
+
+    /**
+     * Sets the listener to be notified when a transfer completes.
+     * <p>
+     * The listener is called from the background thread handling IO completions.
+     * It must return quickly.
+     * </p>
+     *
+     * @param listener the listener, or {@code null} to remove it
+     */
+    void setCompletionListener(Runnable listener) {
+        completionListener = listener;
+    }
+
+    /**
+     * Submits the current transfer if a replacement transfer is available without waiting.
+     *
+     * @param size size of data to be transmitted
+     * @return {@code true} if the transfer has been submitted, {@code false} otherwise
+     */
+    private boolean submitTransferIfAvailable(int size) throws IOException {
+        try {
+            var nextTransfer = availableTransferQueue.poll();
+            if (nextTransfer == null)
+                return false;
+
+            checkTransferResult(nextTransfer);
+            submitCurrentTransfer(size, nextTransfer);
+            return true;
+
+        } catch (Exception t) {
+            hasError = true;
+            close();
+            throw t;
         }
     }
 
@@ -307,6 +628,12 @@ public abstract class EndpointOutputStream extends OutputStream {
      * @param size size of data to be transmitted
      */
     private void submitTransfer(int size) throws IOException {
+        var timeout = writeTimeout;
+        if (timeout > 0) {
+            submitTransferWithTimeout(size, System.currentTimeMillis() + timeout);
+            return;
+        }
+
         try {
             currentTransfer.setDataSize(size);
             submitTransferOut(currentTransfer);
@@ -317,6 +644,7 @@ public abstract class EndpointOutputStream extends OutputStream {
 
             needsZlp = size == packetSize;
             writeOffset = 0;
+            cancelCoalescingTimer();
             currentTransfer = waitForAvailableTransfer();
 
         } catch (Exception t) {
@@ -327,31 +655,97 @@ public abstract class EndpointOutputStream extends OutputStream {
     }
 
     /**
-     * Wait until all outstanding transfers have been completed.
+     * Submits the current transfer as soon as a replacement transfer is available.
      * <p>
-     * Throws an exception if any of the transfers has completed with an error.
-     * The exception is suppressed if {@code hasError} flag is set.
+     * If no transfer becomes available before the deadline, an {@link InterruptedIOException}
+     * is thrown. In this case, the current transfer remains unsubmitted, and the stream
+     * and the outstanding transfers remain intact.
      * </p>
+     *
+     * @param size     size of data to be transmitted
+     * @param deadline absolute deadline (ms since epoch)
+     */
+    private void submitTransferWithTimeout(int size, long deadline) throws IOException {
+        Transfer nextTransfer;
+        try {
+            nextTransfer = pollAvailableTransfer(deadline);
+            if (nextTransfer != null)
+                submitCurrentTransfer(size, nextTransfer);
+
+        } catch (Exception t) {
+            hasError = true;
+            close();
+            throw t;
+        }
+
+        if (nextTransfer == null)
+            throw new InterruptedIOException(String.format("writing to endpoint %d timed out", endpointNumber));
+    }
+
+    /**
+     * Submits the current transfer and makes the specified transfer the current one.
+     *
+     * @param size         size of data to be transmitted
+     * @param nextTransfer transfer to use next
      */
-    private void waitForOutstandingTransfers() {
-        // Wait until all buffers have been transmitted by removing them from the
-        // queue and reinserting them.
+    private void submitCurrentTransfer(int size, Transfer nextTransfer) {
+        currentTransfer.setDataSize(size);
+        submitTransferOut(currentTransfer);
 
-        int numTransfers;
         synchronized (this) {
-            numTransfers = numOutstandingTransfers + availableTransferQueue.size();
+            numOutstandingTransfers += 1;
         }
 
-        if (numTransfers == 0)
-            return;
+        needsZlp = size == packetSize;
+        writeOffset = 0;
+        isCurrentTransferFull = false;
+        cancelCoalescingTimer();
+        currentTransfer = nextTransfer;
+    }
+
+    /**
+     * Wait until all outstanding transfers have been completed.
+     * <p>
+     * The transfers are not taken from the available transfer queue. So if the write timeout
+     * expires, the stream remains intact and the outstanding transfers can still complete.
+     * </p>
+     * <p>
+     * Throws an exception if any of the transfers has completed with an error.
+     * The exception is suppressed if {@code hasError} flag is set.
+     * </p>
+     */
+    @SuppressWarnings("java:S2142")
+    private void waitForOutstandingTransfers() throws InterruptedIOException {
+        var timeout = writeTimeout;
+        var deadline = System.currentTimeMillis() + timeout;
+
+        // Defer interruption (see waitForAvailableTransfer())
+        var wasInterrupted = false;
+        try {
+            synchronized (this) {
+                while (numOutstandingTransfers > 0) {
+                    var remaining = 0L;
+                    if (timeout != 0) {
+                        remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0)
+                            throw new InterruptedIOException(String.format("flushing endpoint %d timed out", endpointNumber));
+                    }
 
-        var transfers = new Transfer[numTransfers];
-        for (var i = 0; i < numTransfers; i++)
-            transfers[i] = waitForAvailableTransfer();
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException _) {
+                        wasInterrupted = true;
+                    }
+                }
+            }
+        } finally {
+            if (wasInterrupted)
+                Thread.currentThread().interrupt();
+        }
 
-        // reinsert the transfer instances
-        if (!hasError)
-            availableTransferQueue.addAll(Arrays.asList(transfers));
+        // all transfers are available again; report errors of completed transfers
+        for (var transfer : availableTransferQueue)
+            checkTransferResult(transfer);
     }
 
     /**
@@ -372,14 +766,7 @@ public abstract class EndpointOutputStream extends OutputStream {
             while (true) {
                 try {
                     var transfer = availableTransferQueue.take();
-
-                    // check for error
-                    var result = transfer.resultCode();
-                    if (result != 0 && !hasError) {
-                        transfer.setResultCode(0);
-                        device.throwOSException(result, "error occurred while transmitting to endpoint %d", endpointNumber);
-                    }
-
+                    checkTransferResult(transfer);
                     return transfer;
 
                 } catch (InterruptedException _) {
@@ -392,14 +779,143 @@ public abstract class EndpointOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Throws an exception if the transfer has completed with an error on the previous operation.
+     * <p>
+     * The exception is suppressed if {@code hasError} flag is set.
+     * </p>
+     *
+     * @param transfer the transfer to be reused
+     */
+    private void checkTransferResult(Transfer transfer) {
+        var result = transfer.resultCode();
+        if (result != 0 && !hasError) {
+            transfer.setResultCode(0);
+            device.throwOSException(result, "error occurred while transmitting to endpoint %d", endpointNumber);
+        }
+    }
+
+    /**
+     * Starts the coalescing timer if data has been buffered.
+     * <p>
+     * If the delay has already expired while the lock was held by a writing thread,
+     * the buffered data is submitted immediately.
+     * </p>
+     * <p>
+     * Must be called while holding {@code writeLock}.
+     * </p>
+     */
+    private void updateCoalescingTimer() {
+        var delay = coalescingDelay;
+        if (isClosed() || writeOffset == 0 || delay == 0) {
+            cancelCoalescingTimer();
+
+        } else if (isCoalescingOverdue()) {
+            submitOverdueData();
+
+        } else if (coalescingTimer == null) {
+            var generation = coalescingGeneration;
+            coalescingTimer = EndpointStreams.timer().schedule(() -> onCoalescingDelayExpired(generation), delay,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Must be called while holding writeLock
+    @SuppressWarnings("java:S3078")
+    private void cancelCoalescingTimer() {
+        // invalidates the overdue state and timer tasks that are already running
+        coalescingGeneration += 1;
+        if (coalescingTimer != null) {
+            coalescingTimer.cancel(false);
+            coalescingTimer = null;
+        }
+    }
+
+    private boolean isCoalescingOverdue() {
+        return overdueGeneration.get() == coalescingGeneration;
+    }
+
+    /**
+     * Called on the timer thread when the coalescing delay has expired.
+     * <p>
+     * If a writing thread holds the lock, it will submit the data when it is done.
+     * Tasks for a timer that has been cancelled in the meantime are ignored.
+     * </p>
+     *
+     * @param generation the generation of the timer the task has been scheduled for
+     */
+    private void onCoalescingDelayExpired(long generation) {
+        // never go back to an older generation (a stale task might run after a current one)
+        overdueGeneration.accumulateAndGet(generation, Math::max);
+        if (generation != coalescingGeneration || !writeLock.tryLock())
+            return;
+
+        try {
+            if (isCoalescingOverdue())
+                submitOverdueData();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Submits the buffered data if a transfer is available.
+     * <p>
+     * If all transfers are outstanding, the next transfer completion triggers another attempt.
+     * </p>
+     * <p>
+     * As this method is mainly called on the timer thread, errors are not thrown but recorded
+     * in {@code timerError}.
+     * </p>
+     * <p>
+     * Must be called while holding {@code writeLock}.
+     * </p>
+     */
+    private void submitOverdueData() {
+        if (isClosed() || writeOffset == 0 || timerError != null) {
+            cancelCoalescingTimer();
+            return;
+        }
+
+        var nextTransfer = availableTransferQueue.poll();
+        if (nextTransfer == null)
+            return;
+
+        try {
+            checkTransferResult(nextTransfer);
+            submitCurrentTransfer(writeOffset, nextTransfer);
+
+        } catch (UsbException e) {
+            // Mark the stream as failed but do not tear it down: closing waits for the
+            // outstanding transfers and would stall the timer shared by all streams.
+            // The next write or flush operation closes the stream and reports the error.
+            hasError = true;
+            timerError = toIOException(e);
+            availableTransferQueue.add(nextTransfer);
+            cancelCoalescingTimer();
+        }
+    }
+
     /**
      * Called by the asynchronous IO completion handler.
      *
      * @param transfer the completed request
      */
-    private synchronized void onCompletion(Transfer transfer) {
-        availableTransferQueue.add(transfer);
-        numOutstandingTransfers -= 1;
+    private void onCompletion(Transfer transfer) {
+        synchronized (this) {
+            availableTransferQueue.add(transfer);
+            numOutstandingTransfers -= 1;
+            notifyAll();
+        }
+
+        // retry submitting coalesced data (on timer thread as the lock might be held)
+        var generation = coalescingGeneration;
+        if (overdueGeneration.get() == generation)
+            EndpointStreams.timer().execute(() -> onCoalescingDelayExpired(generation));
+
+        var listener = completionListener;
+        if (listener != null)
+            listener.run();
     }
 
     protected abstract void submitTransferOut(Transfer request);
@@ -408,7 +924,15 @@ public abstract class EndpointOutputStream extends OutputStream {
     }
 
     private void ensureOpen() throws IOException {
-        if (isClosed())
+        // complete the teardown deferred by a failure on the timer thread
+        if (timerError != null && !isClosed())
+            close();
+
+        if (isClosed()) {
+            var error = timerError;
+            if (error != null)
+                throw new IOException("output stream has been closed due to an error", error);
             throw new IOException("output stream has been closed");
+        }
     }
 }
@@ -0,0 +1,314 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.codecrete.usb.common.EndpointStreams.toIOException;
+
+/**
+ * Publisher of the data received from a bulk or interrupt endpoint.
+ *
+ * <p>
+ * The number of transfers submitted to the operating system is limited by the demand
+ * of the subscriber: a transfer is only submitted if the subscriber has requested an
+ * item for it. So a slow subscriber throttles the device instead of growing a queue.
+ * </p>
+ * <p>
+ * Completed transfers are delivered to the subscriber on the specified executor.
+ * All signals are issued serially, i.e. with a single task running at a time.
+ * The byte buffer passed to {@link Flow.Subscriber#onNext(Object)} is only valid
+ * for the duration of the call as the transfer is resubmitted afterward.
+ * </p>
+ * <p>
+ * The publisher supports a single subscriber.
+ * </p>
+ */
+class EndpointPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final UsbDeviceImpl device;
+    private final int endpointNumber;
+    private final int bufferSize;
+    private final Executor executor;
+    private final AtomicBoolean isSubscribed = new AtomicBoolean();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param device         USB device
+     * @param endpointNumber endpoint number
+     * @param bufferSize     approximate buffer size (in bytes), determining the maximum number of transfers
+     * @param executor       executor for delivering the signals to the subscriber
+     */
+    EndpointPublisher(UsbDeviceImpl device, int endpointNumber, int bufferSize, Executor executor) {
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+        this.bufferSize = bufferSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber);
+
+        if (!isSubscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    // ignore
+                }
+
+                @Override
+                public void cancel() {
+                    // ignore
+                }
+            });
+            subscriber.onError(new IllegalStateException("endpoint publisher supports a single subscriber only"));
+            return;
+        }
+
+        var subscription = new EndpointSubscription(subscriber);
+        executor.execute(subscription::start);
+    }
+
+    /**
+     * Subscription connecting the endpoint with the subscriber.
+     * <p>
+     * Uses a work-in-progress counter to ensure that a single drain task is
+     * running at a time. The transfer completions (background thread) and
+     * requests (subscriber thread) just increment the counter and schedule
+     * the drain task if needed.
+     * </p>
+     */
+    private class EndpointSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        // Work-in-progress counter (starts at 1 until onSubscribe() has completed)
+        private final AtomicInteger workInProgress = new AtomicInteger(1);
+        // Completed transfers not yet delivered (added from background thread)
+        private final Queue<Transfer> completedTransfers = new ConcurrentLinkedQueue<>();
+        // Transfers not submitted (only accessed by drain task)
+        private final Queue<Transfer> idleTransfers = new ArrayDeque<>();
+        // Number of transfers submitted or completed but not yet delivered (only accessed by drain task)
+        private int numPendingTransfers;
+        // Number of items requested but not yet delivered (guarded by this)
+        private long demand;
+        // Failure due to an invalid request (guarded by this)
+        private IllegalArgumentException invalidRequest;
+        private volatile boolean isCancelled;
+        // Indicates if onError() has been signaled (only accessed by drain task)
+        private boolean isTerminated;
+
+        EndpointSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            try {
+                var packetSize = device.getEndpoint(UsbDirection.IN, endpointNumber).getPacketSize();
+                var transferSize = EndpointStreams.transferSize(bufferSize, packetSize);
+                var numTransfers = EndpointStreams.numTransfers(bufferSize, transferSize);
+                device.configureForAsyncTransfers(UsbDirection.IN, endpointNumber);
+
+                for (var i = 0; i < numTransfers; i++) {
+                    var transfer = device.createTransfer();
+                    transfer.setData(TransferBufferPool.shared().acquire(transferSize));
+                    transfer.setDataSize(transferSize);
+                    transfer.setCompletion(this::onCompletion);
+                    idleTransfers.add(transfer);
+                }
+
+                subscriber.onSubscribe(this);
+
+            } catch (UsbException e) {
+                isCancelled = true;
+                isTerminated = true;
+                subscriber.onSubscribe(this);
+                subscriber.onError(toIOException(e));
+            }
+
+            drainLoop();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    if (invalidRequest == null)
+                        invalidRequest = new IllegalArgumentException("number of requested items must be positive");
+                } else {
+                    demand += n;
+                    if (demand < 0)
+                        demand = Long.MAX_VALUE; // overflow: unbounded demand
+                }
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            if (isCancelled)
+                return;
+            isCancelled = true;
+            abortTransfers();
+            signal(); // release buffers if no transfer is pending
+        }
+
+        private void onCompletion(Transfer transfer) {
+            completedTransfers.add(transfer);
+            signal();
+        }
+
+        private void signal() {
+            if (workInProgress.getAndIncrement() == 0)
+                executor.execute(this::drainLoop);
+        }
+
+        private void drainLoop() {
+            var missed = 1;
+            do {
+                drain();
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (!isTerminated) {
+                try {
+                    deliverCompletedTransfers();
+                    submitIdleTransfers();
+
+                } catch (UsbException e) {
+                    terminate(toIOException(e));
+                } catch (RuntimeException e) {
+                    // invalid request or misbehaving subscriber
+                    terminate(e);
+                }
+            }
+
+            if (isCancelled)
+                releaseBuffers();
+        }
+
+        /**
+         * Returns the transfer buffers to the pool once all transfers have completed.
+         * <p>
+         * If a transfer never completes, its buffer is not returned.
+         * </p>
+         */
+        private void releaseBuffers() {
+            Transfer transfer;
+            while ((transfer = completedTransfers.poll()) != null) {
+                numPendingTransfers -= 1;
+                idleTransfers.add(transfer);
+            }
+
+            if (numPendingTransfers > 0)
+                return;
+
+            while ((transfer = idleTransfers.poll()) != null)
+                TransferBufferPool.shared().release(transfer.data());
+        }
+
+        private void deliverCompletedTransfers() {
+            while (!isCancelled && hasDemand()) {
+                var transfer = completedTransfers.poll();
+                if (transfer == null)
+                    return;
+
+                if (transfer.resultCode() != 0) {
+                    numPendingTransfers -= 1;
+                    idleTransfers.add(transfer);
+                    device.throwOSException(transfer.resultCode(), "error occurred while reading from endpoint %d",
+                            endpointNumber);
+                }
+
+                if (transfer.resultSize() == 0) {
+                    // skip zero-length packet and reuse transfer
+                    try {
+                        device.submitAsyncTransfer(UsbDirection.IN, endpointNumber, transfer);
+                    } catch (UsbException e) {
+                        // no longer pending: make it available for releasing the buffer
+                        numPendingTransfers -= 1;
+                        idleTransfers.add(transfer);
+                        throw e;
+                    }
+                    continue;
+                }
+
+                synchronized (this) {
+                    if (demand != Long.MAX_VALUE)
+                        demand -= 1;
+                }
+
+                subscriber.onNext(transfer.data().asSlice(0, transfer.resultSize()).asByteBuffer());
+
+                numPendingTransfers -= 1;
+                idleTransfers.add(transfer);
+            }
+        }
+
+        private void submitIdleTransfers() {
+            while (!isCancelled && !idleTransfers.isEmpty() && numPendingTransfers < getDemand()) {
+                var transfer = idleTransfers.remove();
+                numPendingTransfers += 1;
+                try {
+                    device.submitAsyncTransfer(UsbDirection.IN, endpointNumber, transfer);
+                } catch (UsbException e) {
+                    numPendingTransfers -= 1;
+                    idleTransfers.add(transfer);
+                    throw e;
+                }
+            }
+        }
+
+        private synchronized boolean hasDemand() {
+            if (invalidRequest != null)
+                throw invalidRequest;
+            return demand > 0;
+        }
+
+        private synchronized long getDemand() {
+            if (invalidRequest != null)
+                throw invalidRequest;
+            return demand;
+        }
+
+        private void terminate(Throwable failure) {
+            isTerminated = true;
+            if (isCancelled)
+                return;
+
+            isCancelled = true;
+            abortTransfers();
+            subscriber.onError(failure);
+        }
+
+        private void abortTransfers() {
+            try {
+                device.abortTransfers(UsbDirection.IN, endpointNumber);
+
+            } catch (UsbException _) {
+                // If aborting the transfer is not possible, the device has
+                // likely been closed or unplugged. So all outstanding
+                // transfers will terminate anyway.
+            }
+        }
+    }
+}
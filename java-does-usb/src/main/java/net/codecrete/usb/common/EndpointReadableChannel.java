@@ -0,0 +1,50 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Readable byte channel for bulk endpoints.
+ * <p>
+ * The channel is a thin wrapper around an {@link EndpointInputStream}. It shares
+ * its transfer management but copies the data directly into the byte buffer.
+ * </p>
+ */
+class EndpointReadableChannel implements ReadableByteChannel {
+
+    private final EndpointInputStream inputStream;
+    private volatile boolean open = true;
+
+    EndpointReadableChannel(EndpointInputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        if (!open)
+            throw new ClosedChannelException();
+        return inputStream.read(dst);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open)
+            return;
+        open = false;
+        inputStream.close();
+    }
+}
@@ -0,0 +1,340 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbRecorder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static net.codecrete.usb.common.EndpointStreams.toIOException;
+
+/**
+ * Recorder writing the data received from a bulk or interrupt endpoint to a file channel.
+ *
+ * <p>
+ * Each transfer has its own buffer. In addition, there is an equal number of spare buffers.
+ * When a transfer completes (on the background thread handling IO completions), its buffer
+ * is queued for writing and the transfer is immediately resubmitted with a spare buffer.
+ * The writer thread returns the buffers to the spare buffers after writing.
+ * </p>
+ * <p>
+ * The teardown (aborting the transfers, releasing the buffers) is executed on the writer
+ * thread after the last data has been written.
+ * </p>
+ */
+class EndpointRecorder implements UsbRecorder {
+
+    private static final System.Logger LOG = System.getLogger(EndpointRecorder.class.getName());
+
+    // Maximum time (ms) to wait for outstanding transfers to complete during teardown.
+    private static final long TEARDOWN_TIMEOUT_MS = 1000;
+
+    // Marker in write queue indicating the end of the recording
+    private static final Chunk END = new Chunk(MemorySegment.NULL, 0);
+
+    private final UsbDeviceImpl device;
+    private final int endpointNumber;
+    private final FileChannel channel;
+    private final long maxLength;
+    private final int transferSize;
+    private final Transfer[] transfers;
+    // Buffers available for resubmitting transfers
+    private final ArrayBlockingQueue<MemorySegment> spareBuffers;
+    // Data waiting to be written
+    private final ArrayBlockingQueue<Chunk> writeQueue;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    // Number of transfers submitted to the operating system (guarded by this)
+    private int numPendingTransfers;
+    // Indicates that the recording is being stopped (guarded by this)
+    private boolean isStopping;
+    // Number of bytes queued for writing (guarded by this)
+    private long receivedLength;
+    // Number of bytes written (only updated by writer thread)
+    private volatile long recordedLength;
+    // Number of bytes dropped (only updated while holding the lock)
+    private volatile long droppedLength;
+    // Reason for stopping the recording, or null if not failed
+    private volatile IOException failure;
+
+    /**
+     * Creates a new instance and starts the recording.
+     *
+     * @param device         USB device
+     * @param endpointNumber endpoint number
+     * @param channel        file channel to write to
+     * @param bufferSize     approximate buffer size (in bytes), determining the number of transfers
+     * @param maxLength      maximum number of bytes to record
+     */
+    EndpointRecorder(UsbDeviceImpl device, int endpointNumber, FileChannel channel, int bufferSize, long maxLength) {
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+        this.channel = channel;
+        this.maxLength = maxLength;
+
+        if (maxLength <= 0)
+            throw new IllegalArgumentException("maximum length must be positive");
+
+        var packetSize = device.getEndpoint(UsbDirection.IN, endpointNumber).getPacketSize();
+        transferSize = EndpointStreams.transferSize(bufferSize, packetSize);
+        var numTransfers = EndpointStreams.numTransfers(bufferSize, transferSize);
+        device.configureForAsyncTransfers(UsbDirection.IN, endpointNumber);
+
+        spareBuffers = new ArrayBlockingQueue<>(numTransfers);
+        writeQueue = new ArrayBlockingQueue<>(numTransfers + 1);
+        transfers = new Transfer[numTransfers];
+        for (var i = 0; i < numTransfers; i++) {
+            var transfer = device.createTransfer();
+            transfer.setData(TransferBufferPool.shared().acquire(transferSize));
+            transfer.setCompletion(this::onCompletion);
+            transfers[i] = transfer;
+            spareBuffers.add(TransferBufferPool.shared().acquire(transferSize));
+        }
+
+        var writerThread = new Thread(this::writeData, "USB recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        synchronized (this) {
+            try {
+                for (var transfer : transfers)
+                    submitTransfer(transfer);
+            } catch (UsbException e) {
+                stop(toIOException(e));
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public int endpointNumber() {
+        return endpointNumber;
+    }
+
+    @Override
+    public long recordedLength() {
+        return recordedLength;
+    }
+
+    @Override
+    public long droppedLength() {
+        return droppedLength;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            stop(null);
+        }
+
+        // wait until the writer thread has completed
+        completion.exceptionally(_ -> null).join();
+    }
+
+    // must be called while holding the lock
+    private void submitTransfer(Transfer transfer) {
+        transfer.setDataSize(transferSize);
+        device.submitAsyncTransfer(UsbDirection.IN, endpointNumber, transfer);
+        numPendingTransfers += 1;
+    }
+
+    // must be called while holding the lock
+    private void stop(IOException cause) {
+        if (isStopping)
+            return;
+
+        isStopping = true;
+        if (cause != null)
+            failure = cause;
+        writeQueue.add(END);
+    }
+
+    /**
+     * Handles the completion of a transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param transfer the completed transfer
+     */
+    private synchronized void onCompletion(Transfer transfer) {
+        numPendingTransfers -= 1;
+        notifyAll();
+
+        if (isStopping)
+            return;
+
+        if (transfer.resultCode() != 0) {
+            try {
+                device.throwOSException(transfer.resultCode(), "error occurred while reading from endpoint %d",
+                        endpointNumber);
+            } catch (UsbException e) {
+                stop(toIOException(e));
+            }
+            return;
+        }
+
+        if (transfer.resultSize() > 0)
+            queueData(transfer);
+
+        if (receivedLength >= maxLength) {
+            stop(null);
+            return;
+        }
+
+        try {
+            submitTransfer(transfer);
+        } catch (UsbException e) {
+            stop(toIOException(e));
+        }
+    }
+
+    // must be called while holding the lock
+    private void queueData(Transfer transfer) {
+        var length = (int) Math.min(transfer.resultSize(), maxLength - receivedLength);
+
+        var spareBuffer = spareBuffers.poll();
+        if (spareBuffer == null) {
+            // the writer thread cannot keep up: discard the data instead of stalling the endpoint
+            if (droppedLength == 0)
+                LOG.log(WARNING, "recording from endpoint {0} cannot keep up - discarding data", endpointNumber);
+            droppedLength += length;
+            return;
+        }
+
+        writeQueue.add(new Chunk(transfer.data(), length));
+        transfer.setData(spareBuffer);
+        receivedLength += length;
+    }
+
+    /**
+     * Writes the queued data to the file channel.
+     * <p>
+     * Executed on the writer thread.
+     * </p>
+     */
+    private void writeData() {
+        try {
+            while (true) {
+                var chunk = takeChunk();
+                if (chunk == END)
+                    break;
+
+                // after a failure, the remaining data is discarded
+                if (failure == null)
+                    writeChunk(chunk);
+                spareBuffers.add(chunk.buffer());
+            }
+
+        } finally {
+            finish();
+        }
+    }
+
+    private void writeChunk(Chunk chunk) {
+        try {
+            var buffer = chunk.buffer().asSlice(0, chunk.length()).asByteBuffer();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            recordedLength += chunk.length();
+
+        } catch (IOException e) {
+            synchronized (this) {
+                stop(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("java:S2142")
+    private Chunk takeChunk() {
+        var wasInterrupted = false;
+        try {
+            while (true) {
+                try {
+                    return writeQueue.take();
+                } catch (InterruptedException _) {
+                    wasInterrupted = true;
+                }
+            }
+        } finally {
+            if (wasInterrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Aborts the outstanding transfers, releases the buffers and completes the future.
+     * <p>
+     * Executed on the writer thread.
+     * </p>
+     */
+    @SuppressWarnings("java:S2142")
+    private void finish() {
+        var isAbandoned = false;
+        synchronized (this) {
+            if (numPendingTransfers > 0) {
+                try {
+                    device.abortTransfers(UsbDirection.IN, endpointNumber);
+
+                } catch (UsbException _) {
+                    // If aborting the transfer is not possible, the device has
+                    // likely been closed or unplugged. So all outstanding
+                    // transfers will terminate anyway.
+                }
+            }
+
+            // wait until the completion handlers have been called (bounded)
+            var deadline = System.currentTimeMillis() + TEARDOWN_TIMEOUT_MS;
+            while (numPendingTransfers > 0) {
+                var remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    LOG.log(WARNING,
+                            "abandoning {0} outstanding transfer(s) during recorder teardown - no completion within {1} ms",
+                            numPendingTransfers, TEARDOWN_TIMEOUT_MS);
+                    isAbandoned = true;
+                    break;
+                }
+
+                try {
+                    wait(remaining);
+                } catch (InterruptedException _) {
+                    // the writer thread is not interrupted by the recorder
+                }
+            }
+        }
+
+        // return the buffers to the pool unless transfers have been abandoned
+        if (!isAbandoned) {
+            for (var transfer : transfers)
+                TransferBufferPool.shared().release(transfer.data());
+            MemorySegment buffer;
+            while ((buffer = spareBuffers.poll()) != null)
+                TransferBufferPool.shared().release(buffer);
+        }
+
+        if (failure != null)
+            completion.completeExceptionally(failure);
+        else
+            completion.complete(recordedLength);
+    }
+
+    private record Chunk(MemorySegment buffer, int length) {
+    }
+}
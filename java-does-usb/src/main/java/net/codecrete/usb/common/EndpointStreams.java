@@ -12,12 +12,16 @@ import net.codecrete.usb.UsbTimeoutException;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 /**
- * Helpers shared by {@link EndpointInputStream} and {@link EndpointOutputStream}.
+ * Helpers shared by the endpoint streams, channels and reactive adapters.
  */
 final class EndpointStreams {
 
+    private static ScheduledExecutorService timer;
+
     private EndpointStreams() {
     }
 
@@ -41,4 +45,55 @@ final class EndpointStreams {
         }
         return new IOException(e.getMessage(), e);
     }
+
+    /**
+     * Determines the transfer size for the specified buffer size.
+     * <p>
+     * Between 4 and 32 packets are used per transfer (256B to 2KB for FS, 2KB to 16KB for HS).
+     * </p>
+     *
+     * @param bufferSize approximate buffer size (in bytes)
+     * @param packetSize maximum packet size of endpoint
+     * @return transfer size (in bytes)
+     */
+    static int transferSize(int bufferSize, int packetSize) {
+        var numPacketsPerTransfer = (int) Math.round(Math.sqrt((double) bufferSize / packetSize));
+        numPacketsPerTransfer = Math.clamp(numPacketsPerTransfer, 4, 32);
+        return numPacketsPerTransfer * packetSize;
+    }
+
+    /**
+     * Determines the number of transfers for the specified buffer size.
+     * <p>
+     * At least 3 transfers are used so that 2 transfers can be outstanding.
+     * </p>
+     *
+     * @param bufferSize   approximate buffer size (in bytes)
+     * @param transferSize transfer size (in bytes)
+     * @return number of transfers
+     */
+    static int numTransfers(int bufferSize, int transferSize) {
+        return Math.max((bufferSize + transferSize / 2) / transferSize, 3);
+    }
+
+    /**
+     * Gets the timer shared by all endpoint streams.
+     * <p>
+     * The timer uses a single daemon thread. Timer tasks must return quickly.
+     * </p>
+     *
+     * @return the scheduled executor service
+     */
+    static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            var executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                var thread = new Thread(runnable, "USB stream timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            timer = executor;
+        }
+        return timer;
+    }
 }
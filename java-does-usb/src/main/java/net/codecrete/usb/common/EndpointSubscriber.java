@@ -0,0 +1,284 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbEndpointSubscriber;
+import net.codecrete.usb.UsbException;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static net.codecrete.usb.common.EndpointStreams.toIOException;
+
+/**
+ * Subscriber sending the received data to a bulk or interrupt endpoint.
+ *
+ * <p>
+ * The next item is only requested when the current item has been completely
+ * copied into transfers that have been submitted. If no transfer is available,
+ * the remaining data of the item is copied when the next transfer completes
+ * (on the background thread handling IO completions).
+ * </p>
+ * <p>
+ * The items form a continuous stream of data. Empty items are skipped. A zero-length packet
+ * is only sent when the publisher completes and the last packet was a full packet.
+ * </p>
+ */
+class EndpointSubscriber implements UsbEndpointSubscriber {
+
+    private final UsbDeviceImpl device;
+    private final int endpointNumber;
+    private final int packetSize;
+    private final int transferSize;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    // Transfers available for sending data (guarded by this)
+    private final Queue<Transfer> availableTransfers = new ArrayDeque<>();
+    // Number of submitted transfers (guarded by this)
+    private int numOutstandingTransfers;
+    // Upstream subscription (guarded by this)
+    private Flow.Subscription subscription;
+    // Item with data not yet copied into transfers (guarded by this)
+    private ByteBuffer pendingItem;
+    // Indicates that the last submitted packet was a full packet (guarded by this)
+    private boolean isLastPacketFull;
+    // Indicates that the publisher has completed (guarded by this)
+    private boolean isUpstreamComplete;
+    // Indicates that the completion future has been completed (guarded by this)
+    private boolean isTerminated;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param device         USB device
+     * @param endpointNumber endpoint number
+     * @param bufferSize     approximate buffer size (in bytes)
+     */
+    EndpointSubscriber(UsbDeviceImpl device, int endpointNumber, int bufferSize) {
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+
+        packetSize = device.getEndpoint(UsbDirection.OUT, endpointNumber).getPacketSize();
+        transferSize = EndpointStreams.transferSize(bufferSize, packetSize);
+        var numTransfers = EndpointStreams.numTransfers(bufferSize, transferSize);
+        device.configureForAsyncTransfers(UsbDirection.OUT, endpointNumber);
+
+        for (var i = 0; i < numTransfers; i++) {
+            var transfer = device.createTransfer();
+            transfer.setData(TransferBufferPool.shared().acquire(transferSize));
+            transfer.setCompletion(this::onCompletion);
+            availableTransfers.add(transfer);
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription newSubscription) {
+        Objects.requireNonNull(newSubscription);
+        synchronized (this) {
+            if (subscription != null || isTerminated) {
+                newSubscription.cancel();
+                return;
+            }
+            subscription = newSubscription;
+        }
+
+        newSubscription.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        Objects.requireNonNull(item);
+        boolean requestNext;
+        synchronized (this) {
+            if (isTerminated)
+                return;
+
+            pendingItem = item;
+            requestNext = copyPendingItem();
+        }
+
+        if (requestNext)
+            subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        synchronized (this) {
+            if (isTerminated)
+                return;
+            isTerminated = true;
+            pendingItem = null;
+            releaseBuffers();
+        }
+
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            if (isTerminated)
+                return;
+            isUpstreamComplete = true;
+            submitFinalZlp();
+            checkForCompletion();
+        }
+    }
+
+    /**
+     * Copies the data of the pending item into available transfers and submits them.
+     *
+     * @return {@code true} if the item has been completely submitted and the next item should be requested
+     */
+    private boolean copyPendingItem() {
+        while (pendingItem != null) {
+            if (!pendingItem.hasRemaining()) {
+                pendingItem = null;
+                return true;
+            }
+
+            var transfer = availableTransfers.poll();
+            if (transfer == null)
+                return false;
+
+            var size = Math.min(pendingItem.remaining(), transferSize);
+            MemorySegment.copy(MemorySegment.ofBuffer(pendingItem), 0, transfer.data(), 0, size);
+            pendingItem.position(pendingItem.position() + size);
+            if (!submitTransfer(transfer, size))
+                return false;
+            isLastPacketFull = size % packetSize == 0;
+        }
+
+        return false;
+    }
+
+    /**
+     * Submits the zero-length packet terminating the data if the publisher has completed,
+     * all items have been submitted and the data ends with a full packet.
+     * <p>
+     * Must be called while holding the lock.
+     * </p>
+     */
+    private void submitFinalZlp() {
+        if (!isUpstreamComplete || pendingItem != null || !isLastPacketFull || isTerminated)
+            return;
+
+        var transfer = availableTransfers.poll();
+        if (transfer == null)
+            return; // retried when the next transfer completes
+
+        if (submitTransfer(transfer, 0))
+            isLastPacketFull = false;
+    }
+
+    // must be called while holding the lock
+    private boolean submitTransfer(Transfer transfer, int size) {
+        transfer.setDataSize(size);
+        numOutstandingTransfers += 1;
+        try {
+            device.submitAsyncTransfer(UsbDirection.OUT, endpointNumber, transfer);
+            return true;
+
+        } catch (UsbException e) {
+            numOutstandingTransfers -= 1;
+            availableTransfers.add(transfer);
+            fail(e);
+            return false;
+        }
+    }
+
+    /**
+     * Handles the completion of a transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param transfer the completed transfer
+     */
+    private void onCompletion(Transfer transfer) {
+        boolean requestNext;
+        synchronized (this) {
+            numOutstandingTransfers -= 1;
+            availableTransfers.add(transfer);
+            if (isTerminated) {
+                releaseBuffers();
+                return;
+            }
+
+            if (transfer.resultCode() != 0) {
+                try {
+                    device.throwOSException(transfer.resultCode(), "error occurred while transmitting to endpoint %d",
+                            endpointNumber);
+                } catch (UsbException e) {
+                    fail(e);
+                }
+                return;
+            }
+
+            requestNext = copyPendingItem();
+            submitFinalZlp();
+            checkForCompletion();
+        }
+
+        if (requestNext)
+            subscription.request(1);
+    }
+
+    // must be called while holding the lock
+    private void checkForCompletion() {
+        if (isUpstreamComplete && !isTerminated && pendingItem == null && !isLastPacketFull
+                && numOutstandingTransfers == 0) {
+            isTerminated = true;
+            releaseBuffers();
+            completion.complete(null);
+        }
+    }
+
+    // must be called while holding the lock
+    private void releaseBuffers() {
+        // return the buffers to the pool once all transfers have completed
+        if (numOutstandingTransfers > 0)
+            return;
+
+        Transfer transfer;
+        while ((transfer = availableTransfers.poll()) != null)
+            TransferBufferPool.shared().release(transfer.data());
+    }
+
+    // must be called while holding the lock
+    private void fail(UsbException e) {
+        isTerminated = true;
+        pendingItem = null;
+        if (subscription != null)
+            subscription.cancel();
+
+        try {
+            device.abortTransfers(UsbDirection.OUT, endpointNumber);
+
+        } catch (UsbException _) {
+            // If aborting the transfer is not possible, the device has
+            // likely been closed or unplugged. So all outstanding
+            // transfers will terminate anyway.
+        }
+
+        releaseBuffers();
+        completion.completeExceptionally(toIOException(e));
+    }
+}
@@ -0,0 +1,50 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writable byte channel for bulk endpoints.
+ * <p>
+ * The channel is a thin wrapper around an {@link EndpointOutputStream}. It shares
+ * its transfer management but copies the data directly from the byte buffer.
+ * </p>
+ */
+class EndpointWritableChannel implements WritableByteChannel {
+
+    private final EndpointOutputStream outputStream;
+    private volatile boolean open = true;
+
+    EndpointWritableChannel(EndpointOutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+        if (!open)
+            throw new ClosedChannelException();
+        return outputStream.write(src);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open)
+            return;
+        open = false;
+        outputStream.close();
+    }
+}
@@ -0,0 +1,160 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Native ring buffer mapped twice back-to-back.
+ * <p>
+ * The buffer is accessed through a memory segment twice the ring size. Byte {@code i} and
+ * byte {@code i + size} refer to the same ring position. So any range of up to
+ * {@code size} bytes starting in the first half is contiguous, even if it wraps around.
+ * </p>
+ * <p>
+ * If the operating system supports it, both halves are mapped to the same physical memory.
+ * Otherwise, the second half is kept in sync by copying the wrapped part of a range
+ * (see {@link #completeWrite(long, long)} and {@link #prepareRead(long, long)}).
+ * </p>
+ * <p>
+ * The memory is released by the garbage collector once it is no longer referenced.
+ * So segments returned to the application and buffers of abandoned transfers stay valid.
+ * </p>
+ */
+public abstract class MirroredBuffer {
+
+    private final MemorySegment segment;
+    private final long size;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param segment memory segment covering both halves
+     * @param size    ring size (in bytes)
+     */
+    protected MirroredBuffer(MemorySegment segment, long size) {
+        this.segment = segment;
+        this.size = size;
+    }
+
+    /**
+     * Creates a ring buffer that emulates the mirroring by copying data.
+     *
+     * @param size ring size (in bytes)
+     * @return ring buffer
+     */
+    static MirroredBuffer createCopyingBuffer(long size) {
+        return new CopyingMirroredBuffer(size);
+    }
+
+    /**
+     * Gets the memory segment covering both halves.
+     *
+     * @return memory segment
+     */
+    protected MemorySegment segment() {
+        return segment;
+    }
+
+    /**
+     * Gets the ring size.
+     *
+     * @return ring size (in bytes)
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets a contiguous range of the ring.
+     *
+     * @param position position (in bytes, unbounded, will be wrapped around)
+     * @param length   length (in bytes, at most the ring size)
+     * @return memory segment
+     */
+    public MemorySegment slice(long position, long length) {
+        return segment.asSlice(position % size, length);
+    }
+
+    /**
+     * Makes the specified range readable through {@link #slice(long, long)}.
+     * <p>
+     * Must be called before the range is read (after it has been written).
+     * </p>
+     *
+     * @param position position (in bytes, unbounded)
+     * @param length   length (in bytes)
+     */
+    public void prepareRead(long position, long length) {
+        // nothing to do if mirrored by operating system
+    }
+
+    /**
+     * Makes data written to the range returned by {@link #slice(long, long)} part of the ring.
+     * <p>
+     * Must be called after the range has been written (by the application or by a transfer).
+     * </p>
+     *
+     * @param position position (in bytes, unbounded)
+     * @param length   length (in bytes)
+     */
+    public void completeWrite(long position, long length) {
+        // nothing to do if mirrored by operating system
+    }
+
+    /**
+     * Moves data to a later position in the ring.
+     * <p>
+     * The source and target range may overlap. The distance plus the length
+     * must not exceed the ring size.
+     * </p>
+     *
+     * @param from   source position (in bytes, unbounded)
+     * @param to     target position (in bytes, unbounded, at least the source position)
+     * @param length length (in bytes)
+     */
+    public void move(long from, long to, long length) {
+        // a single range covering source and target takes the overlap into account
+        var rangeLength = to - from + length;
+        prepareRead(from, rangeLength);
+        var range = slice(from, rangeLength);
+        MemorySegment.copy(range, 0, range, to - from, length);
+        completeWrite(from, rangeLength);
+    }
+
+    /**
+     * Ring buffer emulating the mirroring by copying.
+     * <p>
+     * The first half is the authoritative copy of the ring. The second half is
+     * only valid for ranges prepared with {@link #prepareRead(long, long)}.
+     * </p>
+     */
+    private static class CopyingMirroredBuffer extends MirroredBuffer {
+
+        CopyingMirroredBuffer(long size) {
+            super(Arena.ofAuto().allocate(2 * size, 8), size);
+        }
+
+        @Override
+        public void prepareRead(long position, long length) {
+            var offset = position % size();
+            var wrapped = offset + length - size();
+            if (wrapped > 0)
+                MemorySegment.copy(segment(), 0, segment(), size(), wrapped);
+        }
+
+        @Override
+        public void completeWrite(long position, long length) {
+            var offset = position % size();
+            var wrapped = offset + length - size();
+            if (wrapped > 0)
+                MemorySegment.copy(segment(), size(), segment(), 0, wrapped);
+        }
+    }
+}
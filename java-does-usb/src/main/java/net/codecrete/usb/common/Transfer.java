@@ -18,6 +18,7 @@ public class Transfer {
     private int resultCode;
     private int resultSize;
     private TransferCompletion completion;
+    private boolean isAbandoned;
 
     /**
      * Gets the with data to transfer (in or out).
@@ -114,4 +115,24 @@ public class Transfer {
     public void setCompletion(TransferCompletion completion) {
         this.completion = completion;
     }
+
+    /**
+     * Indicates if the transfer has been abandoned.
+     * <p>
+     * An abandoned transfer has not completed in time and might still be
+     * accessed by the operating system. So its buffer must not be reused.
+     * </p>
+     *
+     * @return {@code true} if the transfer has been abandoned
+     */
+    public boolean isAbandoned() {
+        return isAbandoned;
+    }
+
+    /**
+     * Marks the transfer as abandoned.
+     */
+    public void setAbandoned() {
+        isAbandoned = true;
+    }
 }
@@ -0,0 +1,225 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbBufferPoolStatistics;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide pool of native buffers for transfers.
+ * <p>
+ * Buffers are grouped in size classes (powers of two from 64 bytes to 1 MB). As USB packet
+ * sizes are powers of two as well, a size class is a multiple of the packet size of any
+ * bulk endpoint. Small buffers are carved from 64 KB slabs. Larger requests are not pooled.
+ * </p>
+ * <p>
+ * Buffers must be returned with {@link #release(MemorySegment)} once the operating system
+ * no longer accesses them. Returned buffers are kept for reuse up to the pool capacity.
+ * Surplus buffers are dropped and the memory is freed by the garbage collector (together
+ * with the slab).
+ * </p>
+ * <p>
+ * Each slab is allocated from a separate automatic arena. So a buffer that is never returned
+ * (e.g. an abandoned transfer the operating system might still write to) remains valid for
+ * as long as it is referenced.
+ * </p>
+ * <p>
+ * Slab occupancy is not tracked. A slab is only freed once none of its buffers is referenced
+ * anymore, neither by a user nor by the pool. So a single buffer that is in use (or kept in the
+ * pool) pins its entire 64 KB slab. In the worst case, the native memory held by the pool is
+ * a multiple of the statistics' idle and in-use bytes. This is acceptable as buffers of a size
+ * class are interchangeable, and the most recently returned buffers are reused first.
+ * </p>
+ */
+public final class TransferBufferPool {
+
+    // smallest size class: 64 bytes
+    private static final int MIN_SIZE_SHIFT = 6;
+    // largest size class: 1 MB
+    private static final int MAX_SIZE_SHIFT = 20;
+    private static final int SLAB_SIZE = 64 * 1024;
+    private static final long DEFAULT_CAPACITY = 16L * 1024 * 1024;
+
+    private static final TransferBufferPool SHARED = new TransferBufferPool(DEFAULT_CAPACITY);
+
+    private final SizeClass[] sizeClasses;
+    private volatile long capacity;
+    private final AtomicLong idleBytes = new AtomicLong();
+    private final AtomicLong inUseBytes = new AtomicLong();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder numAcquired = new LongAdder();
+    private final LongAdder numReused = new LongAdder();
+
+    /**
+     * Gets the pool shared by all devices.
+     *
+     * @return the buffer pool
+     */
+    public static TransferBufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity maximum number of bytes kept in the pool while not in use
+     */
+    TransferBufferPool(long capacity) {
+        this.capacity = capacity;
+        sizeClasses = new SizeClass[MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1];
+        for (var i = 0; i < sizeClasses.length; i++)
+            sizeClasses[i] = new SizeClass(1 << (i + MIN_SIZE_SHIFT));
+    }
+
+    /**
+     * Gets a buffer of the specified size.
+     * <p>
+     * The buffer is aligned to 8 bytes. Its content is undefined.
+     * </p>
+     *
+     * @param size buffer size (in bytes)
+     * @return the buffer
+     */
+    public MemorySegment acquire(long size) {
+        if (size < 0)
+            throw new IllegalArgumentException("buffer size must not be negative");
+
+        numAcquired.increment();
+        var index = sizeClassIndex(size);
+        if (index < 0) {
+            // too large for pooling
+            allocatedBytes.add(size);
+            inUseBytes.addAndGet(size);
+            return Arena.ofAuto().allocate(size, 8);
+        }
+
+        var sizeClass = sizeClasses[index];
+        var buffer = sizeClass.poll();
+        if (buffer != null) {
+            idleBytes.addAndGet(-sizeClass.size);
+            numReused.increment();
+        } else {
+            buffer = allocate(sizeClass);
+        }
+
+        inUseBytes.addAndGet(sizeClass.size);
+        return buffer.asSlice(0, size);
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     * <p>
+     * The buffer must have been acquired from this pool, and it must not be used after this call.
+     * </p>
+     * <p>
+     * If the buffer is dropped because the pool is full, its memory is not freed as long as
+     * any other buffer of the same slab is still referenced.
+     * </p>
+     *
+     * @param buffer the buffer (as returned by {@link #acquire(long)})
+     */
+    public void release(MemorySegment buffer) {
+        var index = sizeClassIndex(buffer.byteSize());
+        if (index < 0) {
+            inUseBytes.addAndGet(-buffer.byteSize());
+            return;
+        }
+
+        var sizeClass = sizeClasses[index];
+        inUseBytes.addAndGet(-sizeClass.size);
+        if (idleBytes.addAndGet(sizeClass.size) > capacity) {
+            // drop buffer; the memory is freed once the slab is no longer referenced
+            idleBytes.addAndGet(-sizeClass.size);
+            return;
+        }
+
+        sizeClass.add(buffer.reinterpret(sizeClass.size));
+    }
+
+    /**
+     * Sets the maximum number of bytes kept in the pool while not in use.
+     * <p>
+     * If the pool currently holds more, the surplus is dropped.
+     * </p>
+     *
+     * @param capacity capacity (in bytes)
+     */
+    public void setCapacity(long capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity must not be negative");
+        this.capacity = capacity;
+
+        // drop surplus, largest buffers first
+        for (var i = sizeClasses.length - 1; i >= 0 && idleBytes.get() > capacity; i--) {
+            var sizeClass = sizeClasses[i];
+            while (idleBytes.get() > capacity && sizeClass.poll() != null)
+                idleBytes.addAndGet(-sizeClass.size);
+        }
+    }
+
+    /**
+     * Gets the current statistics.
+     *
+     * @return statistics
+     */
+    public UsbBufferPoolStatistics getStatistics() {
+        return new UsbBufferPoolStatistics(capacity, idleBytes.get(), inUseBytes.get(), allocatedBytes.sum(),
+                numAcquired.sum(), numReused.sum());
+    }
+
+    private MemorySegment allocate(SizeClass sizeClass) {
+        var size = sizeClass.size;
+
+        // carve a slab into several buffers unless the surplus exceeds the capacity
+        var numBuffers = Math.max(SLAB_SIZE / size, 1);
+        if (idleBytes.get() + (long) (numBuffers - 1) * size > capacity)
+            numBuffers = 1;
+
+        var slab = Arena.ofAuto().allocate((long) numBuffers * size, 8);
+        allocatedBytes.add(slab.byteSize());
+
+        for (var i = 1; i < numBuffers; i++)
+            sizeClass.add(slab.asSlice((long) i * size, size));
+        idleBytes.addAndGet((long) (numBuffers - 1) * size);
+
+        return slab.asSlice(0, size);
+    }
+
+    private static int sizeClassIndex(long size) {
+        if (size <= 1L << MIN_SIZE_SHIFT)
+            return 0;
+        if (size > 1L << MAX_SIZE_SHIFT)
+            return -1;
+        return 64 - Long.numberOfLeadingZeros(size - 1) - MIN_SIZE_SHIFT;
+    }
+
+    /**
+     * Free buffers of a single size.
+     */
+    private static final class SizeClass {
+        final int size;
+        private final ArrayDeque<MemorySegment> freeBuffers = new ArrayDeque<>();
+
+        SizeClass(int size) {
+            this.size = size;
+        }
+
+        synchronized MemorySegment poll() {
+            return freeBuffers.pollLast();
+        }
+
+        synchronized void add(MemorySegment buffer) {
+            freeBuffers.addLast(buffer);
+        }
+    }
+}
@@ -10,19 +10,37 @@ package net.codecrete.usb.common;
 import net.codecrete.usb.UsbDevice;
 import net.codecrete.usb.UsbDirection;
 import net.codecrete.usb.UsbEndpoint;
+import net.codecrete.usb.UsbEndpointSubscriber;
 import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbForwardingPipe;
 import net.codecrete.usb.UsbInterface;
+import net.codecrete.usb.UsbRecorder;
+import net.codecrete.usb.UsbRingBuffer;
+import net.codecrete.usb.UsbSpeed;
 import net.codecrete.usb.UsbTimeoutException;
+import net.codecrete.usb.UsbTransferRing;
 import net.codecrete.usb.UsbTransferType;
 import net.codecrete.usb.Version;
 import net.codecrete.usb.usbstandard.DeviceDescriptor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 
 import static java.lang.System.Logger.Level.WARNING;
 import static java.lang.foreign.ValueLayout.JAVA_BYTE;
@@ -67,6 +85,17 @@ public abstract class UsbDeviceImpl implements UsbDevice {
     // via isConnected() and checkIsClosed()
     protected volatile boolean connected;
 
+    // Lock for loading the description and the product strings on first access
+    private final Object lazyLoadLock = new Object();
+    private volatile boolean isDescriptionLoaded;
+    private volatile boolean areProductStringsLoaded;
+    private volatile boolean isTopologyLoaded;
+
+    // Position in the USB topology and link speed
+    protected int busNumber;
+    protected List<Integer> portPath = List.of();
+    protected UsbSpeed speed = UsbSpeed.UNKNOWN;
+
     /**
      * Creates a new instance.
      *
@@ -129,54 +158,82 @@ public abstract class UsbDeviceImpl implements UsbDevice {
 
     @Override
     public String getProduct() {
+        ensureProductStringsLoaded();
         return productString;
     }
 
     @Override
     public String getManufacturer() {
+        ensureProductStringsLoaded();
         return manufacturerString;
     }
 
     @Override
     public String getSerialNumber() {
+        ensureProductStringsLoaded();
         return serialString;
     }
 
     @Override
     public int getClassCode() {
+        ensureDescriptionLoaded();
         return deviceClass;
     }
 
     @Override
     public int getSubclassCode() {
+        ensureDescriptionLoaded();
         return deviceSubclass;
     }
 
     @Override
     public int getProtocolCode() {
+        ensureDescriptionLoaded();
         return deviceProtocol;
     }
 
     @Override
     public @NotNull Version getUsbVersion() {
+        ensureDescriptionLoaded();
         return versionUsb;
     }
 
     @Override
     public @NotNull Version getDeviceVersion() {
+        ensureDescriptionLoaded();
         return versionDevice;
     }
 
     @Override
     public byte @NotNull [] getConfigurationDescriptor() {
+        ensureDescriptionLoaded();
         return rawConfigurationDescriptor;
     }
 
     @Override
     public byte @NotNull [] getDeviceDescriptor() {
+        ensureDescriptionLoaded();
         return rawDeviceDescriptor;
     }
 
+    @Override
+    public int getBusNumber() {
+        ensureTopologyLoaded();
+        return busNumber;
+    }
+
+    @Override
+    public @NotNull List<Integer> getPortPath() {
+        ensureTopologyLoaded();
+        return portPath;
+    }
+
+    @Override
+    public @NotNull UsbSpeed getSpeed() {
+        ensureTopologyLoaded();
+        return speed;
+    }
+
     public Object getUniqueId() {
         return uniqueDeviceId;
     }
@@ -186,6 +243,107 @@ public abstract class UsbDeviceImpl implements UsbDevice {
         return connected;
     }
 
+    /**
+     * Ensures that the device and configuration descriptors have been loaded.
+     * <p>
+     * On first use, {@link #loadDescription()} is called. Later calls return immediately.
+     * </p>
+     */
+    protected void ensureDescriptionLoaded() {
+        if (isDescriptionLoaded)
+            return;
+
+        synchronized (lazyLoadLock) {
+            if (!isDescriptionLoaded) {
+                loadDescription();
+                isDescriptionLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * Ensures that the product strings have been loaded.
+     * <p>
+     * On first use, {@link #loadProductStrings()} is called. Later calls return immediately.
+     * </p>
+     */
+    protected void ensureProductStringsLoaded() {
+        if (areProductStringsLoaded)
+            return;
+
+        synchronized (lazyLoadLock) {
+            if (!areProductStringsLoaded) {
+                loadProductStrings();
+                areProductStringsLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * Ensures that the bus number, port path and speed have been loaded.
+     * <p>
+     * On first use, {@link #loadTopology()} is called. Later calls return immediately.
+     * </p>
+     */
+    protected void ensureTopologyLoaded() {
+        if (isTopologyLoaded)
+            return;
+
+        synchronized (lazyLoadLock) {
+            if (!isTopologyLoaded) {
+                loadTopology();
+                isTopologyLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * Loads the device and configuration descriptors.
+     * <p>
+     * Called on first access to the descriptors, the class codes, the versions or the interfaces.
+     * The default implementation does nothing as the descriptors have been set when the device
+     * was enumerated.
+     * </p>
+     */
+    protected void loadDescription() {
+        // default implementation: do nothing
+    }
+
+    /**
+     * Loads the product strings.
+     * <p>
+     * Called on first access to the manufacturer, product or serial number. The default
+     * implementation does nothing as the strings have been set when the device was enumerated.
+     * </p>
+     */
+    protected void loadProductStrings() {
+        // default implementation: do nothing
+    }
+
+    /**
+     * Loads the bus number, port path and speed.
+     * <p>
+     * Called on first access to any of them. The default implementation does nothing
+     * as the information is not available on all platforms.
+     * </p>
+     */
+    protected void loadTopology() {
+        // default implementation: do nothing
+    }
+
+    /**
+     * Sets the position in the USB topology and the link speed.
+     *
+     * @param busNumber bus number
+     * @param portPath  chain of hub port numbers (empty for root hubs)
+     * @param speed     link speed
+     */
+    protected void setTopology(int busNumber, List<Integer> portPath, UsbSpeed speed) {
+        this.busNumber = busNumber;
+        this.portPath = List.copyOf(portPath);
+        this.speed = speed;
+    }
+
     /**
      * Sets the class codes and version for the device descriptor.
      *
@@ -258,6 +416,7 @@ public abstract class UsbDeviceImpl implements UsbDevice {
 
     @Override
     public @NotNull List<UsbInterface> getInterfaces() {
+        ensureDescriptionLoaded();
         return Collections.unmodifiableList(interfaceList);
     }
 
@@ -273,6 +432,7 @@ public abstract class UsbDeviceImpl implements UsbDevice {
 
     @Override
     public @NotNull UsbInterfaceImpl getInterface(int interfaceNumber) {
+        ensureDescriptionLoaded();
         return (UsbInterfaceImpl) interfaceList.stream()
                 .filter(intf -> intf.getNumber() == interfaceNumber).findFirst()
                 .orElseThrow(() -> new UsbException(String.format("USB device has no interface %d", interfaceNumber)));
@@ -290,6 +450,7 @@ public abstract class UsbDeviceImpl implements UsbDevice {
 
     @Override
     public @NotNull UsbEndpoint getEndpoint(UsbDirection direction, int endpointNumber) {
+        ensureDescriptionLoaded();
         for (var intf : interfaceList) {
             for (var endpoint : intf.getCurrentAlternate().getEndpoints()) {
                 if (endpoint.getDirection() == direction && endpoint.getNumber() == endpointNumber)
@@ -299,6 +460,110 @@ public abstract class UsbDeviceImpl implements UsbDevice {
         throw new UsbException(String.format("endpoint %d (%s) does not exist", endpointNumber, direction.name()));
     }
 
+    /**
+     * Opens an input stream for a bulk endpoint or an endpoint of the additional transfer type.
+     *
+     * @param endpointNumber         endpoint number
+     * @param bufferSize             approximate buffer size (in bytes)
+     * @param additionalTransferType transfer type accepted in addition to bulk transfers (or {@code null})
+     * @return the input stream
+     */
+    protected abstract EndpointInputStream openInputStream(int endpointNumber, int bufferSize,
+                                                           UsbTransferType additionalTransferType);
+
+    /**
+     * Opens an output stream for a bulk endpoint or an endpoint of the additional transfer type.
+     *
+     * @param endpointNumber         endpoint number
+     * @param bufferSize             approximate buffer size (in bytes)
+     * @param additionalTransferType transfer type accepted in addition to bulk transfers (or {@code null})
+     * @return the output stream
+     */
+    protected abstract EndpointOutputStream openOutputStream(int endpointNumber, int bufferSize,
+                                                             UsbTransferType additionalTransferType);
+
+    @Override
+    public @NotNull ReadableByteChannel openReadableChannel(int endpointNumber, int bufferSize) {
+        return new EndpointReadableChannel((EndpointInputStream) openInputStream(endpointNumber, bufferSize));
+    }
+
+    @Override
+    public @NotNull WritableByteChannel openWritableChannel(int endpointNumber, int bufferSize) {
+        return new EndpointWritableChannel((EndpointOutputStream) openOutputStream(endpointNumber, bufferSize));
+    }
+
+    @Override
+    public synchronized @NotNull AsynchronousByteChannel openAsynchronousChannel(@NotNull UsbDirection direction,
+                                                                                 int endpointNumber) {
+        // check that endpoint number is valid
+        getEndpoint(direction, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new EndpointAsynchronousChannel(this, direction, endpointNumber);
+    }
+
+    @Override
+    public synchronized @NotNull Flow.Publisher<ByteBuffer> openPublisher(int endpointNumber, int bufferSize,
+                                                                          @NotNull Executor executor) {
+        // check that endpoint number is valid
+        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new EndpointPublisher(this, endpointNumber, bufferSize, executor);
+    }
+
+    @Override
+    public synchronized @NotNull UsbEndpointSubscriber openSubscriber(int endpointNumber, int bufferSize) {
+        // check that endpoint number is valid
+        getEndpoint(UsbDirection.OUT, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new EndpointSubscriber(this, endpointNumber, bufferSize);
+    }
+
+    @Override
+    public synchronized @NotNull UsbTransferRing openTransferRing(@NotNull UsbDirection direction, int endpointNumber,
+                                                                  int numTransfers, int transferSize) {
+        // check that endpoint number is valid
+        getEndpoint(direction, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new UsbTransferRingImpl(this, direction, endpointNumber, numTransfers, transferSize);
+    }
+
+    @Override
+    public synchronized @NotNull UsbRingBuffer openRingBuffer(int endpointNumber, int capacity) {
+        // check that endpoint number is valid
+        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new UsbRingBufferImpl(this, endpointNumber, capacity);
+    }
+
+    @Override
+    public synchronized @NotNull UsbRecorder startRecording(int endpointNumber, @NotNull FileChannel channel,
+                                                           int bufferSize, long maxLength) {
+        // check that endpoint number is valid
+        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new EndpointRecorder(this, endpointNumber, channel, bufferSize, maxLength);
+    }
+
+    @Override
+    public void sendFile(int endpointNumber, @NotNull Path path, int numTransfers, int transferSize,
+                         @Nullable LongConsumer progressListener) throws IOException {
+        // check that endpoint number is valid
+        getEndpoint(UsbDirection.OUT, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        new EndpointFileSender(this, endpointNumber, numTransfers, transferSize, progressListener).send(path);
+    }
+
+    @Override
+    public synchronized @NotNull UsbForwardingPipe openForwardingPipe(int inEndpointNumber, @NotNull UsbDevice target,
+                                                                      int outEndpointNumber, int bufferSize) {
+        // check that endpoint numbers are valid
+        getEndpoint(UsbDirection.IN, inEndpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+        var targetDevice = (UsbDeviceImpl) target;
+        targetDevice.getEndpoint(UsbDirection.OUT, outEndpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        return new EndpointForwarder(this, inEndpointNumber, targetDevice, outEndpointNumber, bufferSize);
+    }
+
     /**
      * Checks if the specified endpoint is valid for communication and returns the endpoint.
      *
@@ -375,6 +640,114 @@ public abstract class UsbDeviceImpl implements UsbDevice {
         return transferIn(endpointNumber, 0);
     }
 
+    @Override
+    public void transferOut(int endpointNumber, byte @NotNull [] data, int offset, int length, int timeout) {
+        // check before acquiring the buffer as it must be released on all paths
+        Objects.checkFromIndexSize(offset, length, data.length);
+        var buffer = TransferBufferPool.shared().acquire(length);
+        var transfer = createSyncTransfer(buffer);
+
+        try {
+            buffer.copyFrom(MemorySegment.ofArray(data).asSlice(offset, length));
+            synchronized (transfer) {
+                executeSyncTransfer(UsbDirection.OUT, endpointNumber, transfer, timeout);
+            }
+        } finally {
+            releaseSyncTransferBuffer(transfer);
+        }
+    }
+
+    @Override
+    public byte @NotNull [] transferIn(int endpointNumber, int timeout) {
+        var endpoint = getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        var buffer = TransferBufferPool.shared().acquire(endpoint.packetSize());
+        var transfer = createSyncTransfer(buffer);
+
+        try {
+            synchronized (transfer) {
+                executeSyncTransfer(UsbDirection.IN, endpointNumber, transfer, timeout);
+            }
+
+            return buffer.asSlice(0, transfer.resultSize()).toArray(JAVA_BYTE);
+
+        } finally {
+            releaseSyncTransferBuffer(transfer);
+        }
+    }
+
+    @Override
+    public void transferOut(int endpointNumber, @NotNull ByteBuffer[] srcs, int timeout) {
+        // nothing to send (a zero-length transfer would send a ZLP)
+        var length = totalRemaining(srcs);
+        if (length == 0)
+            return;
+
+        var buffer = TransferBufferPool.shared().acquire(length);
+        var transfer = createSyncTransfer(buffer);
+
+        try {
+            // gather the data in a single transfer buffer
+            var offset = 0L;
+            for (var src : srcs) {
+                var srcSegment = MemorySegment.ofBuffer(src);
+                MemorySegment.copy(srcSegment, 0, buffer, offset, srcSegment.byteSize());
+                offset += srcSegment.byteSize();
+            }
+
+            synchronized (transfer) {
+                executeSyncTransfer(UsbDirection.OUT, endpointNumber, transfer, timeout);
+            }
+        } finally {
+            releaseSyncTransferBuffer(transfer);
+        }
+
+        for (var src : srcs)
+            src.position(src.limit());
+    }
+
+    @Override
+    public int transferIn(int endpointNumber, @NotNull ByteBuffer[] dsts, int timeout) {
+        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        var length = totalRemaining(dsts);
+        if (length == 0)
+            throw new IllegalArgumentException("buffers have no space remaining");
+
+        var buffer = TransferBufferPool.shared().acquire(length);
+        var transfer = createSyncTransfer(buffer);
+
+        try {
+            synchronized (transfer) {
+                executeSyncTransfer(UsbDirection.IN, endpointNumber, transfer, timeout);
+            }
+
+            // scatter the received data
+            var received = transfer.resultSize();
+            var offset = 0;
+            for (var dst : dsts) {
+                var n = Math.min(dst.remaining(), received - offset);
+                MemorySegment.copy(buffer, offset, MemorySegment.ofBuffer(dst), 0, n);
+                dst.position(dst.position() + n);
+                offset += n;
+            }
+
+            return received;
+
+        } finally {
+            releaseSyncTransferBuffer(transfer);
+        }
+    }
+
+    private static int totalRemaining(ByteBuffer[] buffers) {
+        var length = 0L;
+        for (var buffer : buffers)
+            length += buffer.remaining();
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("total length of buffers exceeds maximum transfer size");
+        return (int) length;
+    }
+
     protected void waitForTransfer(Transfer transfer, int timeout, UsbDirection direction, int endpointNumber) {
         if (timeout <= 0) {
             waitNoTimeout(transfer);
@@ -389,11 +762,14 @@ public abstract class UsbDeviceImpl implements UsbDevice {
                 // Wait for the abort's completion, but bounded: if it never arrives (device
                 // vanished such that neither the transfer nor the abort yields a callback),
                 // abandon the transfer instead of blocking forever. Abandoning is safe because
-                // buffers reaching this path come from an auto arena and survive a late completion.
+                // the buffers of abandoned transfers are not returned to the buffer pool and
+                // survive a late completion.
                 var abortCompleted = !waitWithTimeout(transfer, (int) ABORT_COMPLETION_TIMEOUT_MS);
-                if (!abortCompleted)
+                if (!abortCompleted) {
+                    transfer.setAbandoned();
                     LOG.log(WARNING, "abort completion for {0} did not arrive within {1} ms - abandoning transfer",
                             getOperationDescription(direction, endpointNumber), ABORT_COMPLETION_TIMEOUT_MS);
+                }
 
                 throw new UsbTimeoutException(getOperationDescription(direction, endpointNumber) + " aborted due to timeout");
             }
@@ -465,6 +841,71 @@ public abstract class UsbDeviceImpl implements UsbDevice {
      */
     protected abstract Transfer createTransfer();
 
+    /**
+     * Creates a transfer for a synchronous bulk or interrupt transfer.
+     * <p>
+     * The completion handler is set to notify the thread waiting for the transfer.
+     * </p>
+     *
+     * @param data native buffer (taken from the buffer pool, its size is the transfer size)
+     * @return the transfer
+     */
+    protected abstract Transfer createSyncTransfer(MemorySegment data);
+
+    /**
+     * Executes a synchronous transfer on a bulk or interrupt endpoint.
+     * <p>
+     * Submits the transfer and waits until it has completed, has failed or
+     * the timeout has expired. Must be called while holding the transfer's monitor.
+     * </p>
+     *
+     * @param direction      transfer direction
+     * @param endpointNumber endpoint number (1 to 127)
+     * @param transfer       transfer created with {@link #createSyncTransfer(MemorySegment)}
+     * @param timeout        the timeout, in milliseconds (0 for no timeout)
+     */
+    protected abstract void executeSyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer,
+                                                int timeout);
+
+    /**
+     * Submits a transfer to a bulk or interrupt endpoint for asynchronous execution.
+     * <p>
+     * The completion handler of the transfer is called from the background thread
+     * handling IO completions.
+     * </p>
+     *
+     * @param direction      transfer direction
+     * @param endpointNumber endpoint number (1 to 127)
+     * @param transfer       transfer created with {@link #createTransfer()}
+     */
+    protected abstract void submitAsyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer);
+
+    /**
+     * Prepares the endpoint for transfers submitted with {@link #submitAsyncTransfer(UsbDirection, int, Transfer)}.
+     * <p>
+     * The default implementation does nothing.
+     * </p>
+     *
+     * @param direction      transfer direction
+     * @param endpointNumber endpoint number (1 to 127)
+     */
+    protected void configureForAsyncTransfers(UsbDirection direction, int endpointNumber) {
+        // nothing to configure by default
+    }
+
+    /**
+     * Creates a native ring buffer mapped twice back-to-back.
+     * <p>
+     * The default implementation emulates the mirroring by copying data.
+     * </p>
+     *
+     * @param size ring size (in bytes, multiple of 64 KB)
+     * @return ring buffer
+     */
+    protected MirroredBuffer createMirroredBuffer(long size) {
+        return MirroredBuffer.createCopyingBuffer(size);
+    }
+
     /**
      * Completion handler used for synchronous, blocking transfers.
      * <p>
@@ -481,6 +922,20 @@ public abstract class UsbDeviceImpl implements UsbDevice {
         }
     }
 
+    /**
+     * Returns the buffer of a synchronous transfer to the buffer pool.
+     * <p>
+     * The buffer of an abandoned transfer is not returned as the operating system
+     * might still write to it.
+     * </p>
+     *
+     * @param transfer the transfer
+     */
+    protected static void releaseSyncTransferBuffer(Transfer transfer) {
+        if (!transfer.isAbandoned())
+            TransferBufferPool.shared().release(transfer.data());
+    }
+
     /**
      * Throws an exception for the specified operating-specific error code.
      *
@@ -490,6 +945,14 @@ public abstract class UsbDeviceImpl implements UsbDevice {
      */
     protected abstract void throwOSException(int errorCode, String message, Object... args);
 
+    /**
+     * Checks if the specified error code indicates that a transfer has been aborted.
+     *
+     * @param errorCode error code, operating specific
+     * @return {@code true} if the transfer has been aborted
+     */
+    protected abstract boolean isAbortedResult(int errorCode);
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -507,6 +970,8 @@ public abstract class UsbDeviceImpl implements UsbDevice {
 
     @Override
     public String toString() {
+        // only use the fields already set: the lazy getters would do I/O
+        // (and fail if the device has been unplugged)
         return String.format("VID: 0x%04x, PID: 0x%04x, manufacturer: %s, product: %s, serial: %s, ID: %s",
                 vid, pid, manufacturerString, productString, serialString, uniqueDeviceId);
     }
@@ -7,15 +7,40 @@
 
 package net.codecrete.usb.common;
 
+import net.codecrete.usb.UsbBusLoad;
 import net.codecrete.usb.UsbDevice;
+import net.codecrete.usb.UsbDeviceChanges;
+import net.codecrete.usb.UsbDeviceEvent;
+import net.codecrete.usb.UsbDeviceFilter;
+import net.codecrete.usb.UsbDevicePredicate;
+import net.codecrete.usb.UsbDeviceSubscription;
 import net.codecrete.usb.UsbException;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 import static java.lang.System.Logger.Level.INFO;
 import static java.lang.System.Logger.Level.WARNING;
@@ -37,14 +62,52 @@ public abstract class UsbDeviceRegistry {
 
     private static final System.Logger LOG = System.getLogger(UsbDeviceRegistry.class.getName());
 
-    private List<UsbDevice> devices;
-    private Throwable failureCause;
+    // default executor for delivering device events to subscribers
+    private static final Executor EVENT_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("USB device events").factory());
+
+    /**
+     * Maximum time (in ms) for retrieving the information about a single device during the initial enumeration.
+     */
+    protected static final long DEVICE_CREATION_TIMEOUT_MS = 5000;
+
+    /**
+     * Number of device list changes retained for {@link #getChangesSince(long)}.
+     */
+    protected static final int CHANGE_HISTORY_SIZE = 256;
+
+    // immutable snapshot of connected devices with indexes (null until the initial enumeration is complete)
+    private volatile DeviceSnapshot snapshot;
+    // completed with the initial device list when the initial enumeration is complete
+    private final CompletableFuture<List<UsbDevice>> initialEnumeration = new CompletableFuture<>();
+    // handler for progress of the initial enumeration (null if none)
+    private volatile IntConsumer enumerationProgressHandler;
+    private final AtomicInteger numEnumeratedDevices = new AtomicInteger();
+    // recent changes of the device list, oldest first (guarded by this)
+    private final Deque<UsbDeviceChanges> changeHistory = new ArrayDeque<>();
     // volatile: set by the application thread, read by the device monitor thread
     protected volatile Consumer<UsbDevice> onDeviceConnectedHandler;
     protected volatile Consumer<UsbDevice> onDeviceDisconnectedHandler;
-
-    private final Lock lock = new ReentrantLock();
-    private final Condition enumerationComplete = lock.newCondition();
+    // filter for devices of interest (null for all devices)
+    protected volatile UsbDeviceFilter deviceFilter;
+    // publishers of device events (one per subscription, plus the shared publisher)
+    private final List<SubmissionPublisher<UsbDeviceEvent>> eventPublishers = new CopyOnWriteArrayList<>();
+    // subscribe-only view of the shared publisher for Flow subscribers (guarded by this)
+    private Flow.Publisher<UsbDeviceEvent> sharedEventPublisher;
+    protected volatile Consumer<UsbDeviceChanges> onDevicesChangedHandler;
+
+    // Coalescing window (in ms) for device changes (0 if changes are applied immediately)
+    private volatile int coalescingWindow;
+    // Devices connected in the current coalescing window, by normalized ID (guarded by this)
+    private final Map<Object, UsbDevice> pendingAddedDevices = new LinkedHashMap<>();
+    // Devices disconnected in the current coalescing window, by normalized ID (guarded by this)
+    private final Map<Object, UsbDevice> pendingRemovedDevices = new LinkedHashMap<>();
+    // Indicates that the snapshot might contain devices disconnected in the current coalescing window
+    private volatile boolean hasPendingRemovals;
+    // Timer for applying the coalesced changes (guarded by this)
+    private ScheduledExecutorService coalescingTimer;
+    // Indicates that applying the pending changes has been scheduled (guarded by this)
+    private boolean isFlushScheduled;
 
     /**
      * Start this device registry.
@@ -54,7 +117,52 @@ public abstract class UsbDeviceRegistry {
      * </p>
      */
     public void start() {
-        startDeviceMonitor(this::monitorDevices);
+        startAsync();
+        awaitInitialEnumeration();
+    }
+
+    /**
+     * Starts this device registry without waiting for the initial device enumeration.
+     *
+     * @return future completed with the initial device list, or completed exceptionally
+     * with a {@link UsbException} if the enumeration has failed
+     */
+    public CompletableFuture<List<UsbDevice>> startAsync() {
+        return startDeviceMonitor(this::monitorDevices);
+    }
+
+    /**
+     * Gets the future completed when the initial device enumeration is complete.
+     *
+     * @return future completed with the initial device list, or completed exceptionally
+     * with a {@link UsbException} if the enumeration has failed
+     */
+    public CompletableFuture<List<UsbDevice>> getInitialEnumeration() {
+        return initialEnumeration;
+    }
+
+    /**
+     * Waits until the initial device enumeration is complete.
+     *
+     * @throws UsbException if the initial device enumeration has failed
+     */
+    public void awaitInitialEnumeration() {
+        try {
+            initialEnumeration.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UsbException usbException)
+                throw usbException;
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the handler to be called with the number of devices found so far during the initial enumeration.
+     *
+     * @param handler the handler, or {@code null} to remove a previous handler
+     */
+    public void setEnumerationProgressHandler(IntConsumer handler) {
+        enumerationProgressHandler = handler;
     }
 
     /**
@@ -73,10 +181,154 @@ public abstract class UsbDeviceRegistry {
     /**
      * Gets the list of the currently connected USB devices.
      *
-     * @return list of devices
+     * @return immutable list of devices
+     */
+    public List<UsbDevice> getAllDevices() {
+        var isFiltered = hasPendingRemovals;
+        return connectedOnly(isFiltered, snapshot.devices());
+    }
+
+    /**
+     * Gets the currently connected USB devices with the specified vendor and product ID.
+     *
+     * @param vendorId  vendor ID
+     * @param productId product ID
+     * @return immutable list of devices
+     */
+    public List<UsbDevice> findDevices(int vendorId, int productId) {
+        var isFiltered = hasPendingRemovals;
+        return connectedOnly(isFiltered, snapshot.findByIds(vendorId, productId));
+    }
+
+    /**
+     * Gets the currently connected USB device with the specified serial number.
+     *
+     * @param serialNumber serial number
+     * @return device, or {@code null} if not found
+     */
+    public UsbDevice findDeviceBySerialNumber(String serialNumber) {
+        var device = snapshot.findBySerialNumber(serialNumber);
+        return device != null && device.isConnected() ? device : null;
+    }
+
+    /**
+     * Gets the hub the specified device is connected to.
+     * <p>
+     * The hub is looked up by bus number and port path.
+     * </p>
+     *
+     * @param device the device
+     * @return the hub, or {@code null} if the device is a root hub or the topology is not known
+     */
+    public UsbDevice findParentHub(UsbDevice device) {
+        var busNumber = device.getBusNumber();
+        var portPath = device.getPortPath();
+        if (busNumber == 0 || portPath.isEmpty())
+            return null;
+
+        var hubPortPath = portPath.subList(0, portPath.size() - 1);
+        for (var hub : snapshot.devices()) {
+            if (hub.getBusNumber() == busNumber && hub.getPortPath().equals(hubPortPath) && hub.isConnected())
+                return hub;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the disconnected devices from the list.
+     * <p>
+     * Devices disconnected within the current coalescing window remain in the snapshot until
+     * the end of the window. The flag indicating pending removals must be read before the snapshot.
+     * </p>
+     *
+     * @param isFiltered indicates if the list might contain disconnected devices
+     * @param devices    list of devices from the snapshot
+     * @return immutable list of connected devices
+     */
+    private static List<UsbDevice> connectedOnly(boolean isFiltered, List<UsbDevice> devices) {
+        if (!isFiltered)
+            return devices;
+        return devices.stream().filter(UsbDevice::isConnected).toList();
+    }
+
+    /**
+     * Gets the bandwidth declared by the connected devices, grouped by bus.
+     *
+     * @return list of bus loads, sorted by bus number
+     */
+    public List<UsbBusLoad> getBusLoads() {
+        return BusLoadCalculator.computeBusLoads(snapshot.devices());
+    }
+
+    /**
+     * Gets the version of the device list.
+     * <p>
+     * The version is incremented with each change of the device list.
+     * </p>
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * Gets the devices connected and disconnected since the specified version of the device list.
+     * <p>
+     * Devices connected and disconnected in between are not included.
+     * </p>
+     *
+     * @param version the version
+     * @return the changes, or {@code null} if the version is no longer retained in the change history
+     */
+    public synchronized UsbDeviceChanges getChangesSince(long version) {
+        var currentVersion = snapshot.version();
+        if (version >= currentVersion)
+            return new UsbDeviceChanges(currentVersion, List.of(), List.of());
+
+        if (changeHistory.isEmpty() || changeHistory.getFirst().version() > version + 1)
+            return null;
+
+        // devices by normalized ID
+        var added = new LinkedHashMap<Object, UsbDevice>();
+        var removed = new LinkedHashMap<Object, UsbDevice>();
+        for (var changes : changeHistory) {
+            if (changes.version() <= version)
+                continue;
+
+            for (var device : changes.removed()) {
+                // device instances are compared by identity as a reconnected device is a new instance
+                var key = normalizeDeviceId(((UsbDeviceImpl) device).getUniqueId());
+                if (added.get(key) == device)
+                    added.remove(key);
+                else
+                    removed.put(key, device);
+            }
+            for (var device : changes.added())
+                added.put(normalizeDeviceId(((UsbDeviceImpl) device).getUniqueId()), device);
+        }
+
+        return new UsbDeviceChanges(currentVersion, List.copyOf(added.values()), List.copyOf(removed.values()));
+    }
+
+    /**
+     * Waits until the device list has changed beyond the specified version.
+     *
+     * @param version the version
+     * @param timeout the maximum time to wait (in ms)
+     * @return the current version (equal to {@code version} if the timeout has expired)
+     * @throws InterruptedException if the thread has been interrupted while waiting
      */
-    public synchronized List<UsbDevice> getAllDevices() {
-        return devices;
+    public synchronized long awaitChange(long version, long timeout) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (snapshot.version() <= version) {
+            // wait in ns: truncating to ms would return early or call wait(0), which waits forever
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                break;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return snapshot.version();
     }
 
     public void setOnDeviceConnected(Consumer<UsbDevice> handler) {
@@ -87,7 +339,142 @@ public abstract class UsbDeviceRegistry {
         onDeviceDisconnectedHandler = handler;
     }
 
+    public void setOnDevicesChanged(Consumer<UsbDeviceChanges> handler) {
+        onDevicesChangedHandler = handler;
+    }
+
+    /**
+     * Sets the coalescing window for device changes.
+     * <p>
+     * If it is set, connected and disconnected devices are collected for the duration of the window
+     * (starting with the first change) and then applied to the device list at once. Devices connected
+     * and disconnected within the same window are dropped. Until the end of the window, the lookup
+     * methods skip the disconnected devices as they can no longer be used.
+     * </p>
+     *
+     * @param window the window (in ms), or 0 to apply each change immediately
+     */
+    public void setCoalescingWindow(int window) {
+        if (window < 0)
+            throw new IllegalArgumentException("coalescing window must not be negative");
+        coalescingWindow = window;
+        if (window == 0)
+            applyPendingChanges();
+    }
+
+    /**
+     * Sets the filter for the devices of interest.
+     * <p>
+     * Must be called before the registry is started.
+     * </p>
+     *
+     * @param filter the filter, or {@code null} for all devices
+     */
+    public void setDeviceFilter(UsbDeviceFilter filter) {
+        deviceFilter = filter;
+    }
+
+    /**
+     * Checks if a device with the specified IDs might be of interest.
+     * <p>
+     * Registries call this method before retrieving the device details and creating the
+     * device instance. The remaining filter conditions are checked when the device is added.
+     * </p>
+     *
+     * @param vendorId  vendor ID
+     * @param productId product ID
+     * @return {@code true} if the device might be of interest, {@code false} if it can be ignored
+     */
+    protected boolean isOfInterest(int vendorId, int productId) {
+        var filter = deviceFilter;
+        return filter == null || filter.matchesIds(vendorId, productId);
+    }
+
+    private boolean matchesFilter(UsbDevice device) {
+        var filter = deviceFilter;
+        try {
+            return filter == null || filter.matches(device);
+
+        } catch (UsbException e) {
+            LOG.log(INFO, "failed to retrieve information about device - ignoring device", e);
+            return false;
+        }
+    }
+
+    /**
+     * Subscribes to device events.
+     * <p>
+     * Each subscription has its own queue. Events are delivered in order, one at a time,
+     * using the specified executor. The predicate is evaluated on the executor as well.
+     * </p>
+     *
+     * @param filter   predicate selecting the devices of interest, or {@code null} for all devices
+     * @param listener listener receiving the events
+     * @param executor executor for delivering the events, or {@code null} for a virtual thread
+     * @return the subscription
+     */
+    public UsbDeviceSubscription subscribe(UsbDevicePredicate filter, Consumer<UsbDeviceEvent> listener,
+                                           Executor executor) {
+        var publisher = new SubmissionPublisher<UsbDeviceEvent>(executor != null ? executor : EVENT_EXECUTOR,
+                Flow.defaultBufferSize());
+        eventPublishers.add(publisher);
+        publisher.consume(event -> deliverEvent(event, filter, listener));
+
+        return () -> {
+            eventPublishers.remove(publisher);
+            publisher.close();
+        };
+    }
+
+    /**
+     * Gets the publisher of device events.
+     * <p>
+     * Each subscriber has its own buffer. Events are delivered in order using virtual threads.
+     * </p>
+     * <p>
+     * The returned publisher only supports subscribing. The underlying publisher cannot be
+     * closed or used to submit events.
+     * </p>
+     *
+     * @return the publisher
+     */
+    public synchronized Flow.Publisher<UsbDeviceEvent> getEventPublisher() {
+        if (sharedEventPublisher == null) {
+            var publisher = new SubmissionPublisher<UsbDeviceEvent>(EVENT_EXECUTOR, Flow.defaultBufferSize());
+            eventPublishers.add(publisher);
+            sharedEventPublisher = publisher::subscribe;
+        }
+        return sharedEventPublisher;
+    }
+
+    private static void deliverEvent(UsbDeviceEvent event, UsbDevicePredicate filter,
+                                     Consumer<UsbDeviceEvent> listener) {
+        try {
+            if (filter == null || filter.matches(event.device()))
+                listener.accept(event);
+
+        } catch (Exception e) {
+            LOG.log(WARNING, "unhandled exception in device event listener - ignoring", e);
+        }
+    }
+
+    private void publishEvent(UsbDeviceEvent.Type type, UsbDevice device) {
+        if (eventPublishers.isEmpty())
+            return;
+
+        // never block the device monitor thread: drop the event if a subscriber's buffer is full
+        var event = new UsbDeviceEvent(type, device);
+        for (var publisher : eventPublishers) {
+            publisher.offer(event, (_, _) -> {
+                LOG.log(WARNING, "device event subscriber cannot keep up - dropping {0} event", type);
+                return false;
+            });
+        }
+    }
+
     protected void emitOnDeviceConnected(UsbDevice device) {
+        publishEvent(UsbDeviceEvent.Type.CONNECTED, device);
+
         // read once so a concurrent setOnDeviceConnected(null) cannot fail between check and call
         var handler = onDeviceConnectedHandler;
         if (handler == null)
@@ -101,7 +488,22 @@ public abstract class UsbDeviceRegistry {
         }
     }
 
+    protected void emitOnDevicesChanged(UsbDeviceChanges changes) {
+        var handler = onDevicesChangedHandler;
+        if (handler == null)
+            return;
+
+        try {
+            handler.accept(changes);
+
+        } catch (Exception e) {
+            LOG.log(WARNING, "unhandled exception in 'onDevicesChanged' handler - ignoring", e);
+        }
+    }
+
     protected void emitOnDeviceDisconnected(UsbDevice device) {
+        publishEvent(UsbDeviceEvent.Type.DISCONNECTED, device);
+
         var handler = onDeviceDisconnectedHandler;
         if (handler == null)
             return;
@@ -115,54 +517,56 @@ public abstract class UsbDeviceRegistry {
     }
 
     /**
-     * Starts the background thread and waits until the first device enumeration is complete.
+     * Starts the background thread.
      * <p>
      * In order to signal that the initial enumeration is complete, the monitor task is expected
      * to call {@link #setInitialDeviceList(List)}.
      * </p>
      *
      * @param monitorTask the task to start in the background
+     * @return future completed when the initial device enumeration is complete
      */
-    protected void startDeviceMonitor(Runnable monitorTask) {
+    protected CompletableFuture<List<UsbDevice>> startDeviceMonitor(Runnable monitorTask) {
         // start new thread
         var t = new Thread(monitorTask, "USB device monitor");
         t.setDaemon(true);
         t.start();
-
-        // wait for initial device enumeration
-        lock.lock();
-        try {
-            while (devices == null && failureCause == null) {
-                enumerationComplete.awaitUninterruptibly();
-            }
-        } finally {
-            lock.unlock();
-        }
-
-        if (failureCause != null)
-            throw new UsbException("initial device enumeration has failed", failureCause);
+        return initialEnumeration;
     }
 
     /**
-     * Signals completion of initial device enumeration.
+     * Signal failure of initial device enumeration.
+     *
+     * @param e cause of failure
      */
-    private void signalEnumerationComplete() {
-        lock.lock();
-        try {
-            enumerationComplete.signalAll();
-        } finally {
-            lock.unlock();
-        }
+    protected void enumerationFailed(Throwable e) {
+        initialEnumeration.completeExceptionally(new UsbException("initial device enumeration has failed", e));
     }
 
     /**
-     * Signal failure of initial device enumeration.
+     * Reports the progress of the initial device enumeration.
+     * <p>
+     * Implementations call this method for each device found during the initial enumeration.
+     * Calls after the initial enumeration has completed are ignored.
+     * </p>
      *
-     * @param e cause of failure
+     * @param device the device found (or {@code null} if the candidate has been skipped)
+     * @return the device
      */
-    protected void enumerationFailed(Throwable e) {
-        failureCause = e;
-        signalEnumerationComplete();
+    protected UsbDevice reportEnumeratedDevice(UsbDevice device) {
+        if (device == null || initialEnumeration.isDone())
+            return device;
+
+        var count = numEnumeratedDevices.incrementAndGet();
+        var handler = enumerationProgressHandler;
+        if (handler != null) {
+            try {
+                handler.accept(count);
+            } catch (Exception e) {
+                LOG.log(WARNING, "unhandled exception in enumeration progress handler - ignoring", e);
+            }
+        }
+        return device;
     }
 
     /**
@@ -174,10 +578,100 @@ public abstract class UsbDeviceRegistry {
      * @param deviceList the device list
      */
     protected void setInitialDeviceList(List<UsbDevice> deviceList) {
+        if (deviceFilter != null)
+            deviceList = deviceList.stream().filter(this::matchesFilter).collect(Collectors.toCollection(ArrayList::new));
+
+        List<UsbDevice> initialDevices;
         synchronized (this) {
-            devices = deviceList;
+            initialDevices = List.copyOf(deviceList);
+            updateSnapshot(initialDevices, initialDevices, List.of());
+        }
+        initialEnumeration.complete(initialDevices);
+    }
+
+    /**
+     * Creates the device instances for the initial device enumeration in parallel.
+     * <p>
+     * Each candidate is passed to the factory on a separate virtual thread. The factory is
+     * expected to return {@code null} if the candidate is not a suitable device. Devices that fail
+     * or are not created within {@link #DEVICE_CREATION_TIMEOUT_MS} (measured from the start of
+     * the batch) are skipped.
+     * </p>
+     * <p>
+     * This is only worthwhile if the factory performs I/O (e.g. reading the device attributes).
+     * If it just creates the instances, they should be created sequentially instead.
+     * </p>
+     * <p>
+     * The resulting list has the same order as the candidates. The created devices are passed to
+     * {@code onCreated} in the same order, on the calling thread (e.g. to report the progress).
+     * </p>
+     *
+     * @param candidates the candidates (e.g. device paths)
+     * @param factory    function creating a device instance from a candidate
+     * @param onCreated  consumer called for each created device
+     * @param <T>        candidate type
+     * @return list of devices
+     */
+    @SuppressWarnings("java:S2142")
+    protected static <T> List<UsbDevice> createDevices(List<T> candidates, Function<T, UsbDevice> factory,
+                                                       Consumer<UsbDevice> onCreated) {
+        var result = new ArrayList<UsbDevice>(candidates.size());
+        if (candidates.size() <= 1) {
+            for (var candidate : candidates)
+                addIfNotNull(result, factory.apply(candidate), onCreated);
+            return result;
+        }
+
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            var futures = new ArrayList<Future<UsbDevice>>(candidates.size());
+            for (var candidate : candidates)
+                futures.add(executor.submit(() -> factory.apply(candidate)));
+
+            // A single deadline is used for the entire batch. As all devices are created
+            // concurrently, each of them effectively gets the full timeout.
+            var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEVICE_CREATION_TIMEOUT_MS);
+            var wasInterrupted = false;
+            for (var i = 0; i < futures.size(); i++) {
+                var future = futures.get(i);
+                while (true) {
+                    try {
+                        addIfNotNull(result, future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS), onCreated);
+                        break;
+
+                    } catch (InterruptedException _) {
+                        // defer the interrupt and re-assert it once we are done
+                        wasInterrupted = true;
+
+                    } catch (TimeoutException _) {
+                        LOG.log(WARNING, "retrieving information about device {0} timed out - ignoring device",
+                                candidates.get(i));
+                        future.cancel(true);
+                        break;
+
+                    } catch (ExecutionException e) {
+                        LOG.log(INFO, "failed to retrieve information about device - ignoring device", e.getCause());
+                        break;
+                    }
+                }
+            }
+
+            if (wasInterrupted)
+                Thread.currentThread().interrupt();
+
+        } finally {
+            // do not wait for timed out tasks
+            executor.shutdownNow();
+        }
+
+        return result;
+    }
+
+    private static void addIfNotNull(List<UsbDevice> deviceList, UsbDevice device, Consumer<UsbDevice> onCreated) {
+        if (device != null) {
+            deviceList.add(device);
+            onCreated.accept(device);
         }
-        signalEnumerationComplete();
     }
 
     /**
@@ -186,20 +680,31 @@ public abstract class UsbDeviceRegistry {
      * @param device device to add
      */
     protected void addDevice(UsbDevice device) {
+        if (!matchesFilter(device))
+            return;
+
+        if (coalescingWindow > 0) {
+            queueAddedDevice(device);
+            return;
+        }
+
+        UsbDeviceChanges changes;
         synchronized (this) {
             // check for duplicates
-            if (findDeviceIndex(devices, ((UsbDeviceImpl) device).getUniqueId()) >= 0)
+            if (snapshot.findById(((UsbDeviceImpl) device).getUniqueId()) != null)
                 return;
 
             // copy list
+            var devices = snapshot.devices();
             var newDeviceList = new ArrayList<UsbDevice>(devices.size() + 1);
             newDeviceList.addAll(devices);
             newDeviceList.add(device);
-            devices = newDeviceList;
+            changes = updateSnapshot(newDeviceList, List.of(device), List.of());
         }
 
         // send notification
         emitOnDeviceConnected(device);
+        emitOnDevicesChanged(changes);
     }
 
     @SuppressWarnings("java:S106")
@@ -223,38 +728,153 @@ public abstract class UsbDeviceRegistry {
      * @param deviceId the unique ID of the device to remove
      */
     protected void removeDevice(Object deviceId) {
+        if (coalescingWindow > 0) {
+            queueRemovedDevice(deviceId);
+            return;
+        }
+
         UsbDevice device;
+        UsbDeviceChanges changes;
         synchronized (this) {
             // locate device to be removed
-            int index = findDeviceIndex(devices, deviceId);
-            if (index < 0)
+            device = snapshot.findById(deviceId);
+            if (device == null)
                 return; // strange
 
             // copy list and remove device
-            device = devices.get(index);
-            var newDeviceList = new ArrayList<>(devices);
-            newDeviceList.remove(index);
-            devices = newDeviceList;
+            var newDeviceList = new ArrayList<>(snapshot.devices());
+            newDeviceList.remove(device);
+            changes = updateSnapshot(newDeviceList, List.of(), List.of(device));
         }
 
         // send notification
         emitOnDeviceDisconnected(device);
+        emitOnDevicesChanged(changes);
     }
 
     /**
-     * Finds the index of the device with the given ID in the device list
+     * Replaces the snapshot with a new version and records the changes.
+     * <p>
+     * Must be called while holding the lock. Threads waiting in {@link #awaitChange(long, long)}
+     * are woken up.
+     * </p>
      *
-     * @param deviceList the device list
-     * @param deviceId   the unique device ID
-     * @return return the index, or -1 if the device is not found
-     */
-    protected int findDeviceIndex(List<UsbDevice> deviceList, Object deviceId) {
-        for (int i = 0; i < deviceList.size(); i++) {
-            var dev = (UsbDeviceImpl) deviceList.get(i);
-            if (deviceId.equals(dev.getUniqueId()))
-                return i;
+     * @param deviceList new device list
+     * @param added      devices that have been connected
+     * @param removed    devices that have been disconnected
+     * @return the changes
+     */
+    private UsbDeviceChanges updateSnapshot(List<UsbDevice> deviceList, List<UsbDevice> added, List<UsbDevice> removed) {
+        var version = snapshot != null ? snapshot.version() + 1 : 1;
+        snapshot = new DeviceSnapshot(version, deviceList, this::normalizeDeviceId);
+
+        var changes = new UsbDeviceChanges(version, added, removed);
+        if (changeHistory.size() == CHANGE_HISTORY_SIZE)
+            changeHistory.removeFirst();
+        changeHistory.addLast(changes);
+
+        notifyAll();
+        return changes;
+    }
+
+    private synchronized void queueAddedDevice(UsbDevice device) {
+        var deviceId = ((UsbDeviceImpl) device).getUniqueId();
+        var key = normalizeDeviceId(deviceId);
+
+        // check for duplicates
+        if (pendingAddedDevices.containsKey(key)
+                || (snapshot.findById(deviceId) != null && !pendingRemovedDevices.containsKey(key)))
+            return;
+
+        pendingAddedDevices.put(key, device);
+        scheduleFlush();
+    }
+
+    private synchronized void queueRemovedDevice(Object deviceId) {
+        var key = normalizeDeviceId(deviceId);
+
+        // device connected and disconnected within the same window
+        if (pendingAddedDevices.remove(key) != null)
+            return;
+
+        var device = snapshot.findById(deviceId);
+        if (device == null)
+            return; // strange
+
+        pendingRemovedDevices.putIfAbsent(key, device);
+        hasPendingRemovals = true;
+        scheduleFlush();
+    }
+
+    // must be called while holding the lock
+    private void scheduleFlush() {
+        if (isFlushScheduled)
+            return;
+
+        if (coalescingTimer == null) {
+            coalescingTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "USB device changes");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-        return -1;
+
+        coalescingTimer.schedule(this::applyPendingChanges, coalescingWindow, TimeUnit.MILLISECONDS);
+        isFlushScheduled = true;
+    }
+
+    /**
+     * Applies the coalesced changes to the device list and sends the notifications.
+     */
+    private void applyPendingChanges() {
+        List<UsbDevice> added;
+        List<UsbDevice> removed;
+        UsbDeviceChanges changes;
+        synchronized (this) {
+            isFlushScheduled = false;
+            if (pendingAddedDevices.isEmpty() && pendingRemovedDevices.isEmpty())
+                return;
+
+            added = List.copyOf(pendingAddedDevices.values());
+            removed = List.copyOf(pendingRemovedDevices.values());
+            pendingAddedDevices.clear();
+            pendingRemovedDevices.clear();
+
+            // build the new device list in a single pass
+            var removedSet = Collections.newSetFromMap(new IdentityHashMap<UsbDevice, Boolean>());
+            removedSet.addAll(removed);
+            var devices = snapshot.devices();
+            var newDeviceList = new ArrayList<UsbDevice>(devices.size() + added.size());
+            for (var device : devices) {
+                if (!removedSet.contains(device))
+                    newDeviceList.add(device);
+            }
+            newDeviceList.addAll(added);
+            changes = updateSnapshot(newDeviceList, added, removed);
+
+            // the snapshot must be replaced before the flag is cleared
+            hasPendingRemovals = false;
+        }
+
+        // send notifications
+        for (var device : removed)
+            emitOnDeviceDisconnected(device);
+        for (var device : added)
+            emitOnDeviceConnected(device);
+        emitOnDevicesChanged(changes);
+    }
+
+    /**
+     * Normalizes the unique device ID for looking up devices.
+     * <p>
+     * The default implementation returns the ID unchanged.
+     * </p>
+     *
+     * @param deviceId the unique device ID
+     * @return the normalized ID
+     */
+    protected Object normalizeDeviceId(Object deviceId) {
+        return deviceId;
     }
 
     /**
@@ -264,9 +884,19 @@ public abstract class UsbDeviceRegistry {
      * @return return device, or {@code null} if not found.
      */
     protected UsbDevice findDevice(Object deviceId) {
-        int index = findDeviceIndex(devices, deviceId);
-        if (index < 0)
-            return null;
-        return devices.get(index);
+        var isCoalescing = coalescingWindow > 0 || hasPendingRemovals;
+        var device = snapshot.findById(deviceId);
+        if (!isCoalescing)
+            return device;
+
+        synchronized (this) {
+            // skip device disconnected in the current coalescing window
+            var key = normalizeDeviceId(deviceId);
+            if (device != null && !pendingRemovedDevices.containsKey(key))
+                return device;
+
+            // device might have been connected in the current coalescing window
+            return pendingAddedDevices.get(key);
+        }
     }
 }
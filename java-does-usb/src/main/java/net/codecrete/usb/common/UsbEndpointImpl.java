@@ -20,12 +20,14 @@ public class UsbEndpointImpl implements UsbEndpoint {
     private final UsbDirection transferDirection;
     private final UsbTransferType type;
     private final int maxPacketSize;
+    private final int pollingInterval;
 
-    public UsbEndpointImpl(int number, UsbDirection direction, UsbTransferType type, int packetSize) {
+    public UsbEndpointImpl(int number, UsbDirection direction, UsbTransferType type, int packetSize, int interval) {
         endpointNumber = number;
         transferDirection = direction;
         this.type = type;
         maxPacketSize = packetSize;
+        pollingInterval = interval;
     }
 
     @Override
@@ -47,4 +49,9 @@ public class UsbEndpointImpl implements UsbEndpoint {
     public int getPacketSize() {
         return maxPacketSize;
     }
+
+    @Override
+    public int getInterval() {
+        return pollingInterval;
+    }
 }
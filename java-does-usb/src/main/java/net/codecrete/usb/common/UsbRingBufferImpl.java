@@ -0,0 +1,379 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbRingBuffer;
+import net.codecrete.usb.UsbTimeoutException;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * Implementation of {@link UsbRingBuffer}.
+ * <p>
+ * Positions in the ring are unbounded byte offsets since the ring has been opened.
+ * The ring contains the unconsumed data ({@code readPosition} to {@code writePosition}),
+ * followed by the buffers of the submitted transfers (starting at or after {@code writePosition},
+ * ending at {@code submitPosition}).
+ * </p>
+ * <p>
+ * Transfers are only submitted as long as the received data cannot exceed the capacity by a
+ * packet or more ({@code bufferLimit}). A transfer is never smaller than a packet. So a window
+ * up to the capacity can always be received, and the visible window is limited to the capacity.
+ * </p>
+ * <p>
+ * If a transfer receives less data while the next transfers are already outstanding, a gap remains.
+ * It is closed when the next transfer's data is processed by moving the unconsumed data forward.
+ * To avoid moving the data for each short transfer, only a single transfer is kept outstanding
+ * after a short transfer, until a transfer is completely filled again. A single outstanding transfer
+ * always starts right after the received data.
+ * </p>
+ */
+public class UsbRingBufferImpl implements UsbRingBuffer {
+
+    private static final System.Logger LOG = System.getLogger(UsbRingBufferImpl.class.getName());
+
+    // Maximum time (ms) to wait for outstanding transfers to complete during teardown.
+    private static final long TEARDOWN_TIMEOUT_MS = 1000;
+
+    // The ring size is a multiple of 64 KB (a multiple of all page sizes)
+    private static final long RING_SIZE_GRANULARITY = 64 * 1024;
+
+    private final UsbDeviceImpl device;
+    private final int endpointNumber;
+    private final int capacity;
+    private final int packetSize;
+    private final int transferSize;
+    // Maximum number of bytes of received data and submitted transfer buffers
+    private final long bufferLimit;
+    private final MirroredBuffer memory;
+    private final Transfer[] transfers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition transferCompleted = lock.newCondition();
+    // Ring position of the buffer of each submitted transfer (guarded by lock)
+    private final long[] transferPositions;
+    // Indicates if a submitted transfer has completed (guarded by lock)
+    private final boolean[] isCompleted;
+    // Indexes of submitted transfers, in submission order (guarded by lock)
+    private final ArrayDeque<Integer> submittedTransfers = new ArrayDeque<>();
+    // Indexes of transfers ready to be submitted (guarded by lock)
+    private final ArrayDeque<Integer> idleTransfers = new ArrayDeque<>();
+    // Start of unconsumed data (guarded by lock)
+    private long readPosition;
+    // End of unconsumed data (guarded by lock)
+    private long writePosition;
+    // End of buffer of last submitted transfer (guarded by lock)
+    private long submitPosition;
+    // Number of transfers submitted to the operating system and not completed yet (guarded by lock)
+    private int numPendingTransfers;
+    // Indicates that the last transfer was short and only a single transfer is kept outstanding (guarded by lock)
+    private boolean isSingleTransferMode;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param device         USB device
+     * @param endpointNumber endpoint number
+     * @param capacity       maximum window size (in bytes)
+     */
+    public UsbRingBufferImpl(UsbDeviceImpl device, int endpointNumber, int capacity) {
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+        this.capacity = capacity;
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+
+        packetSize = device.getEndpoint(UsbDirection.IN, endpointNumber).getPacketSize();
+        // a transfer must not be larger than the capacity (but not smaller than a packet)
+        transferSize = Math.min(EndpointStreams.transferSize(capacity, packetSize),
+                Math.max(capacity / packetSize, 1) * packetSize);
+        bufferLimit = (long) capacity + packetSize - 1;
+        var numTransfers = EndpointStreams.numTransfers(capacity, transferSize);
+        var ringSize = bufferLimit + (long) numTransfers * transferSize;
+        ringSize = (ringSize + RING_SIZE_GRANULARITY - 1) / RING_SIZE_GRANULARITY * RING_SIZE_GRANULARITY;
+
+        device.configureForAsyncTransfers(UsbDirection.IN, endpointNumber);
+        memory = device.createMirroredBuffer(ringSize);
+
+        transfers = new Transfer[numTransfers];
+        transferPositions = new long[numTransfers];
+        isCompleted = new boolean[numTransfers];
+        for (var i = 0; i < numTransfers; i++) {
+            final var index = i;
+            var transfer = device.createTransfer();
+            transfer.setCompletion(_ -> onCompletion(index));
+            transfers[i] = transfer;
+            idleTransfers.add(i);
+        }
+
+        lock.lock();
+        try {
+            submitIdleTransfers();
+        } catch (UsbException e) {
+            close();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int endpointNumber() {
+        return endpointNumber;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public @NotNull MemorySegment window() {
+        lock.lock();
+        try {
+            ensureOpen();
+            processCompletedTransfers();
+            submitIdleTransfers();
+            return currentWindow();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("java:S2142")
+    public @NotNull MemorySegment awaitWindow(int minLength, int timeout) {
+        if (minLength < 0 || minLength > capacity)
+            throw new IllegalArgumentException("minimum length must be between 0 and the capacity");
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+
+        var wasInterrupted = false;
+        lock.lock();
+        try {
+            var remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (true) {
+                ensureOpen();
+                processCompletedTransfers();
+                submitIdleTransfers();
+                if (windowSize() >= minLength)
+                    return currentWindow();
+
+                try {
+                    if (timeout == 0) {
+                        transferCompleted.await();
+                    } else {
+                        if (remaining <= 0)
+                            throw new UsbTimeoutException(String.format(
+                                    "no data received from endpoint %d within timeout", endpointNumber));
+                        remaining = transferCompleted.awaitNanos(remaining);
+                    }
+
+                } catch (InterruptedException _) {
+                    // defer the interrupt and re-assert it once we are done
+                    wasInterrupted = true;
+                }
+            }
+
+        } finally {
+            lock.unlock();
+            if (wasInterrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void consume(int length) {
+        lock.lock();
+        try {
+            ensureOpen();
+            if (length < 0 || length > windowSize())
+                throw new IllegalArgumentException("length must be between 0 and the window size");
+
+            readPosition += length;
+            submitIdleTransfers();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("java:S2142")
+    public void close() {
+        lock.lock();
+        try {
+            if (isClosed)
+                return;
+            isClosed = true;
+            transferCompleted.signalAll();
+
+            if (numPendingTransfers == 0)
+                return;
+
+            try {
+                device.abortTransfers(UsbDirection.IN, endpointNumber);
+
+            } catch (UsbException _) {
+                // If aborting the transfer is not possible, the device has
+                // likely been closed or unplugged. So all outstanding
+                // transfers will terminate anyway.
+            }
+
+            // wait until the completion handlers have been called (bounded);
+            // the ring memory stays valid for abandoned transfers as they reference it
+            var remaining = TimeUnit.MILLISECONDS.toNanos(TEARDOWN_TIMEOUT_MS);
+            var wasInterrupted = false;
+            while (numPendingTransfers > 0) {
+                if (remaining <= 0) {
+                    LOG.log(WARNING,
+                            "abandoning {0} outstanding transfer(s) during ring buffer teardown - no completion within {1} ms",
+                            numPendingTransfers, TEARDOWN_TIMEOUT_MS);
+                    break;
+                }
+
+                try {
+                    remaining = transferCompleted.awaitNanos(remaining);
+                } catch (InterruptedException _) {
+                    wasInterrupted = true;
+                }
+            }
+
+            if (wasInterrupted)
+                Thread.currentThread().interrupt();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // must be called while holding the lock
+    private MemorySegment currentWindow() {
+        var length = windowSize();
+        memory.prepareRead(readPosition, length);
+        return memory.slice(readPosition, length);
+    }
+
+    // must be called while holding the lock
+    private long windowSize() {
+        // the received data might exceed the capacity by less than a packet
+        return Math.min(writePosition - readPosition, capacity);
+    }
+
+    // must be called while holding the lock
+    private void processCompletedTransfers() {
+        while (!submittedTransfers.isEmpty()) {
+            int index = submittedTransfers.element();
+            if (!isCompleted[index])
+                return;
+
+            isCompleted[index] = false;
+            submittedTransfers.remove();
+            idleTransfers.add(index);
+
+            var transfer = transfers[index];
+            if (transfer.resultCode() != 0)
+                device.throwOSException(transfer.resultCode(), "error occurred while reading from endpoint %d",
+                        endpointNumber);
+
+            var length = transfer.resultSize();
+            isSingleTransferMode = length < transfer.dataSize();
+            if (length == 0)
+                continue;
+
+            var position = transferPositions[index];
+            if (position > writePosition)
+                closeGap(position);
+
+            memory.completeWrite(position, length);
+            writePosition = position + length;
+        }
+    }
+
+    // must be called while holding the lock
+    private void closeGap(long position) {
+        // move unconsumed data forward so it ends where the transfer data starts
+        var gap = position - writePosition;
+        var length = writePosition - readPosition;
+        if (length > 0)
+            memory.move(readPosition, readPosition + gap, length);
+        readPosition += gap;
+        writePosition = position;
+    }
+
+    // must be called while holding the lock
+    private void submitIdleTransfers() {
+        while (!idleTransfers.isEmpty()) {
+            // without outstanding transfers, the next transfer can start right after the data
+            if (submittedTransfers.isEmpty())
+                submitPosition = writePosition;
+            else if (isSingleTransferMode)
+                return;
+
+            // the received data must not exceed the buffer limit (reduce the transfer size if needed)
+            var size = (int) Math.min(transferSize,
+                    (readPosition + bufferLimit - submitPosition) / packetSize * packetSize);
+            if (size <= 0)
+                return;
+
+            // the transfer must not overwrite unconsumed data
+            if (submitPosition + size > readPosition + memory.size())
+                return;
+
+            int index = idleTransfers.element();
+            var transfer = transfers[index];
+            transfer.setData(memory.slice(submitPosition, size));
+            transfer.setDataSize(size);
+            transfer.setResultCode(0);
+            transferPositions[index] = submitPosition;
+
+            device.submitAsyncTransfer(UsbDirection.IN, endpointNumber, transfer);
+
+            idleTransfers.remove();
+            submittedTransfers.add(index);
+            numPendingTransfers += 1;
+            submitPosition += size;
+        }
+    }
+
+    private void ensureOpen() {
+        if (isClosed)
+            throw new UsbException("ring buffer has been closed");
+    }
+
+    /**
+     * Handles the completion of a transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param index index of completed transfer
+     */
+    private void onCompletion(int index) {
+        lock.lock();
+        try {
+            isCompleted[index] = true;
+            numPendingTransfers -= 1;
+            transferCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
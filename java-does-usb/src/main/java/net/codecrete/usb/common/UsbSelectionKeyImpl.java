@@ -0,0 +1,193 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDevice;
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbSelectionKey;
+import net.codecrete.usb.UsbSelector;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+import static java.lang.System.Logger.Level.INFO;
+
+/**
+ * Implementation of {@link UsbSelectionKey}.
+ * <p>
+ * Exactly one of {@code inputStream} and {@code outputStream} is set,
+ * depending on the endpoint direction.
+ * </p>
+ */
+class UsbSelectionKeyImpl implements UsbSelectionKey {
+
+    private static final System.Logger LOG = System.getLogger(UsbSelectionKeyImpl.class.getName());
+
+    private final UsbSelectorImpl selector;
+    private final UsbDevice device;
+    private final int endpointNumber;
+    private final EndpointInputStream inputStream;
+    private final EndpointOutputStream outputStream;
+    private volatile Object attachedObject;
+    private volatile boolean valid = true;
+    private volatile int interestSet;
+
+    UsbSelectionKeyImpl(UsbSelectorImpl selector, UsbDevice device, int endpointNumber, EndpointInputStream stream,
+                        int ops) {
+        this.selector = selector;
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+        inputStream = stream;
+        outputStream = null;
+        interestSet = ops;
+    }
+
+    UsbSelectionKeyImpl(UsbSelectorImpl selector, UsbDevice device, int endpointNumber, EndpointOutputStream stream,
+                        int ops) {
+        this.selector = selector;
+        this.device = device;
+        this.endpointNumber = endpointNumber;
+        inputStream = null;
+        outputStream = stream;
+        interestSet = ops;
+    }
+
+    /**
+     * Checks that the interest set only contains operations valid for the endpoint direction.
+     *
+     * @param direction endpoint direction
+     * @param ops       interest set
+     */
+    static void checkInterestOps(UsbDirection direction, int ops) {
+        var validOps = direction == UsbDirection.IN ? OP_READ : OP_WRITE;
+        if ((ops & ~validOps) != 0)
+            throw new IllegalArgumentException(String.format("invalid interest set %d for %s endpoint", ops, direction));
+    }
+
+    @Override
+    public @NotNull UsbSelector selector() {
+        return selector;
+    }
+
+    @Override
+    public @NotNull UsbDevice device() {
+        return device;
+    }
+
+    @Override
+    public @NotNull UsbDirection direction() {
+        return inputStream != null ? UsbDirection.IN : UsbDirection.OUT;
+    }
+
+    @Override
+    public int endpointNumber() {
+        return endpointNumber;
+    }
+
+    @Override
+    public int interestOps() {
+        return interestSet;
+    }
+
+    @Override
+    public @NotNull UsbSelectionKey interestOps(int ops) {
+        checkInterestOps(direction(), ops);
+        interestSet = ops;
+        // re-evaluate the key as the endpoint might already be ready for the new operations
+        selector.signalStateChange(this);
+        return this;
+    }
+
+    /**
+     * Indicates if the endpoint is ready for any of the operations in the interest set.
+     *
+     * @return {@code true} if it is ready
+     */
+    boolean isReadyForInterestOps() {
+        var ops = interestSet;
+        return ((ops & OP_READ) != 0 && isReadable()) || ((ops & OP_WRITE) != 0 && isWritable());
+    }
+
+    @Override
+    public boolean isReadable() {
+        return valid && inputStream != null && inputStream.isReadable();
+    }
+
+    @Override
+    public boolean isWritable() {
+        return valid && outputStream != null && outputStream.isWritable();
+    }
+
+    @Override
+    public int read(byte @NotNull [] buffer, int offset, int length) throws IOException {
+        if (inputStream == null)
+            throw new IOException(String.format("endpoint %d (OUT) cannot be read from", endpointNumber));
+        ensureValid();
+        return inputStream.tryRead(buffer, offset, length);
+    }
+
+    @Override
+    public int write(byte @NotNull [] buffer, int offset, int length) throws IOException {
+        if (outputStream == null)
+            throw new IOException(String.format("endpoint %d (IN) cannot be written to", endpointNumber));
+        ensureValid();
+        return outputStream.tryWrite(buffer, offset, length);
+    }
+
+    @Override
+    public boolean flush() throws IOException {
+        if (outputStream == null)
+            return true;
+        ensureValid();
+        return outputStream.tryFlush();
+    }
+
+    @Override
+    public Object attach(Object attachment) {
+        var previous = attachedObject;
+        attachedObject = attachment;
+        return previous;
+    }
+
+    @Override
+    public Object attachment() {
+        return attachedObject;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public synchronized void cancel() {
+        if (!valid)
+            return;
+
+        // deregister first so the selector no longer evaluates the stream state
+        valid = false;
+        selector.deregister(this);
+
+        try {
+            if (inputStream != null) {
+                inputStream.setCompletionListener(null);
+                inputStream.close();
+            } else {
+                outputStream.setCompletionListener(null);
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            LOG.log(INFO, "failed to close endpoint stream of cancelled selection key - ignoring", e);
+        }
+    }
+
+    private void ensureValid() throws IOException {
+        if (!valid)
+            throw new IOException("selection key has been cancelled");
+    }
+}
@@ -0,0 +1,257 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDevice;
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbSelectionKey;
+import net.codecrete.usb.UsbSelector;
+import net.codecrete.usb.UsbTransferType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of {@link UsbSelector}.
+ * <p>
+ * Each registered endpoint is backed by an endpoint stream. The streams notify
+ * the selector whenever a transfer completes. The notification is executed on the
+ * background thread handling IO completions. It adds the key to the set of signaled keys
+ * and signals a condition so the selecting thread can reevaluate the state.
+ * </p>
+ * <p>
+ * A selection operation only evaluates the signaled keys and the keys found ready by the
+ * previous selection operation (as they might still have data to consume). So its cost does
+ * not grow with the number of idle endpoints.
+ * </p>
+ */
+public class UsbSelectorImpl implements UsbSelector {
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    // all registered keys (guarded by lock)
+    private final Set<UsbSelectionKeyImpl> registeredKeys = new LinkedHashSet<>();
+    // keys whose endpoint state has changed since the last evaluation (guarded by lock)
+    private final Set<UsbSelectionKeyImpl> signaledKeys = new LinkedHashSet<>();
+    // keys found ready by the last selection operation (guarded by lock)
+    private Set<UsbSelectionKey> readyKeys = Set.of();
+    // indicates that the next selection operation should return immediately (guarded by lock)
+    private boolean wakeupPending;
+    private volatile boolean closed;
+
+    @Override
+    public @NotNull UsbSelectionKey register(@NotNull UsbDevice device, @NotNull UsbDirection direction,
+                                             int endpointNumber, int bufferSize, int ops) {
+        ensureOpen();
+        UsbSelectionKeyImpl.checkInterestOps(direction, ops);
+
+        var deviceImpl = (UsbDeviceImpl) device;
+        UsbSelectionKeyImpl key;
+        if (direction == UsbDirection.IN) {
+            var stream = deviceImpl.openInputStream(endpointNumber, bufferSize, UsbTransferType.INTERRUPT);
+            key = new UsbSelectionKeyImpl(this, device, endpointNumber, stream, ops);
+            stream.setCompletionListener(() -> signalStateChange(key));
+        } else {
+            var stream = deviceImpl.openOutputStream(endpointNumber, bufferSize, UsbTransferType.INTERRUPT);
+            key = new UsbSelectionKeyImpl(this, device, endpointNumber, stream, ops);
+            stream.setCompletionListener(() -> signalStateChange(key));
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                key.cancel();
+                ensureOpen();
+            }
+            registeredKeys.add(key);
+            // evaluate the initial state (OUT endpoints are writable right away)
+            signaledKeys.add(key);
+        } finally {
+            lock.unlock();
+        }
+
+        return key;
+    }
+
+    @Override
+    public int select() {
+        return select(0);
+    }
+
+    @Override
+    public int select(long timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+        return doSelect(timeout == 0 ? Long.MAX_VALUE : timeout);
+    }
+
+    @Override
+    public int selectNow() {
+        return doSelect(0);
+    }
+
+    @SuppressWarnings("java:S2142")
+    private int doSelect(long timeout) {
+        ensureOpen();
+
+        lock.lock();
+        try {
+            var expiration = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+            while (true) {
+                var keys = collectReadyKeys();
+                if (!keys.isEmpty() || wakeupPending || closed)
+                    return completeSelection(keys);
+
+                var remaining = expiration == Long.MAX_VALUE ? Long.MAX_VALUE : expiration - System.nanoTime();
+                if (remaining <= 0)
+                    return completeSelection(keys);
+
+                try {
+                    if (remaining == Long.MAX_VALUE)
+                        stateChanged.await();
+                    else
+                        stateChanged.awaitNanos(remaining);
+
+                } catch (InterruptedException _) {
+                    // like NIO selectors: return immediately, keeping the interrupt status
+                    Thread.currentThread().interrupt();
+                    return completeSelection(collectReadyKeys());
+                }
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int completeSelection(Set<UsbSelectionKey> keys) {
+        wakeupPending = false;
+        readyKeys = Collections.unmodifiableSet(keys);
+        return keys.size();
+    }
+
+    // Must be called while holding the lock
+    private Set<UsbSelectionKey> collectReadyKeys() {
+        var keys = new LinkedHashSet<UsbSelectionKey>();
+        for (var key : readyKeys) {
+            if (isReady((UsbSelectionKeyImpl) key))
+                keys.add(key);
+        }
+        for (var key : signaledKeys) {
+            if (isReady(key))
+                keys.add(key);
+        }
+        signaledKeys.clear();
+        return keys;
+    }
+
+    // only the operations in the interest set count, so an idle OUT key does not keep the selector busy
+    private static boolean isReady(UsbSelectionKeyImpl key) {
+        return key.isValid() && key.isReadyForInterestOps();
+    }
+
+    @Override
+    public @NotNull Set<UsbSelectionKey> selectedKeys() {
+        lock.lock();
+        try {
+            return readyKeys;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public @NotNull Set<UsbSelectionKey> keys() {
+        lock.lock();
+        try {
+            return Set.copyOf(registeredKeys);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void wakeup() {
+        lock.lock();
+        try {
+            wakeupPending = true;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() {
+        Set<UsbSelectionKeyImpl> keys;
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            keys = new LinkedHashSet<>(registeredKeys);
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (var key : keys)
+            key.cancel();
+    }
+
+    /**
+     * Removes the key from the registered keys.
+     *
+     * @param key selection key
+     */
+    void deregister(UsbSelectionKeyImpl key) {
+        lock.lock();
+        try {
+            registeredKeys.remove(key);
+            signaledKeys.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Signals that the state of an endpoint or its interest set has changed.
+     * <p>
+     * Called from the background thread handling IO completions, or when the interest set is changed.
+     * </p>
+     *
+     * @param key the key of the endpoint
+     */
+    void signalStateChange(UsbSelectionKeyImpl key) {
+        lock.lock();
+        try {
+            signaledKeys.add(key);
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new UsbException("selector has been closed");
+    }
+}
@@ -0,0 +1,370 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbTransferRing;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * Implementation of {@link UsbTransferRing}.
+ * <p>
+ * All state is kept in arrays indexed by the slot number ({@code seq % numTransfers}).
+ * The completion handlers (one per slot) are created when the ring is set up, so
+ * the completion path does not allocate any memory.
+ * </p>
+ */
+public class UsbTransferRingImpl implements UsbTransferRing {
+
+    private static final System.Logger LOG = System.getLogger(UsbTransferRingImpl.class.getName());
+
+    // Maximum time (ms) to wait for outstanding transfers to complete during teardown.
+    private static final long TEARDOWN_TIMEOUT_MS = 1000;
+
+    // slot states
+    private static final int SUBMITTED = 0;
+    private static final int COMPLETED = 1;
+    private static final int OWNED = 2;
+
+    private final UsbDeviceImpl device;
+    private final UsbDirection direction;
+    private final int endpointNumber;
+    private final int numTransfers;
+    private final int transferSize;
+    private final int packetSize;
+    private final Transfer[] transfers;
+    private final MemorySegment[] buffers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition transferCompleted = lock.newCondition();
+    // Sequence number currently assigned to each slot (guarded by lock)
+    private final long[] slotSequenceNumbers;
+    // State of each slot (guarded by lock)
+    private final int[] slotStates;
+    // Sequence number of next transfer to be returned as completed (guarded by lock)
+    private long nextCompletion;
+    // Sequence number of next transfer to be resubmitted (guarded by lock)
+    private long nextSubmission;
+    // Number of transfers submitted to the operating system (guarded by lock)
+    private int numSubmittedTransfers;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param device         USB device
+     * @param direction      endpoint direction
+     * @param endpointNumber endpoint number
+     * @param numTransfers   number of transfers
+     * @param transferSize   size of each transfer buffer (in bytes)
+     */
+    public UsbTransferRingImpl(UsbDeviceImpl device, UsbDirection direction, int endpointNumber, int numTransfers,
+                               int transferSize) {
+        this.device = device;
+        this.direction = direction;
+        this.endpointNumber = endpointNumber;
+        this.numTransfers = numTransfers;
+        this.transferSize = transferSize;
+
+        packetSize = device.getEndpoint(direction, endpointNumber).getPacketSize();
+        if (numTransfers < 1)
+            throw new IllegalArgumentException("number of transfers must be at least 1");
+        if (transferSize <= 0 || (direction == UsbDirection.IN && transferSize % packetSize != 0))
+            throw new IllegalArgumentException(String.format(
+                    "transfer size must be a positive multiple of the packet size (%d)", packetSize));
+
+        device.configureForAsyncTransfers(direction, endpointNumber);
+
+        transfers = new Transfer[numTransfers];
+        buffers = new MemorySegment[numTransfers];
+        slotSequenceNumbers = new long[numTransfers];
+        slotStates = new int[numTransfers];
+
+        for (var i = 0; i < numTransfers; i++) {
+            final var slot = i;
+            buffers[i] = TransferBufferPool.shared().acquire(transferSize);
+            var transfer = device.createTransfer();
+            transfer.setData(buffers[i]);
+            transfer.setDataSize(transferSize);
+            transfer.setCompletion(_ -> onCompletion(slot));
+            transfers[i] = transfer;
+            slotSequenceNumbers[i] = i;
+        }
+
+        if (direction == UsbDirection.IN) {
+            lock.lock();
+            try {
+                for (var i = 0; i < numTransfers; i++)
+                    submitSlot(i);
+            } catch (UsbException e) {
+                close();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+
+        } else {
+            // OUT transfers are initially owned by the application
+            for (var i = 0; i < numTransfers; i++)
+                slotStates[i] = COMPLETED;
+        }
+    }
+
+    @Override
+    public @NotNull UsbDirection direction() {
+        return direction;
+    }
+
+    @Override
+    public int endpointNumber() {
+        return endpointNumber;
+    }
+
+    @Override
+    public int numTransfers() {
+        return numTransfers;
+    }
+
+    @Override
+    public int transferSize() {
+        return transferSize;
+    }
+
+    @Override
+    @SuppressWarnings("java:S2142")
+    public long awaitCompletion(int timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+
+        lock.lock();
+        try {
+            var remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (true) {
+                ensureOpen();
+                var slot = slotOf(nextCompletion);
+                if (slotSequenceNumbers[slot] == nextCompletion && slotStates[slot] == COMPLETED)
+                    return takeCompletion(slot);
+
+                if (slotStates[slot] != SUBMITTED)
+                    throw new IllegalStateException("all transfers are owned by the application - resubmit transfers first");
+
+                try {
+                    if (timeout == 0) {
+                        transferCompleted.await();
+                    } else {
+                        if (remaining <= 0)
+                            return -1;
+                        remaining = transferCompleted.awaitNanos(remaining);
+                    }
+
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long pollCompletion() {
+        lock.lock();
+        try {
+            ensureOpen();
+            var slot = slotOf(nextCompletion);
+            if (slotSequenceNumbers[slot] == nextCompletion && slotStates[slot] == COMPLETED)
+                return takeCompletion(slot);
+            return -1;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int status(long sequenceNumber) {
+        lock.lock();
+        try {
+            return transfers[ownedSlotOf(sequenceNumber)].resultCode();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int length(long sequenceNumber) {
+        lock.lock();
+        try {
+            return transfers[ownedSlotOf(sequenceNumber)].resultSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public @NotNull MemorySegment buffer(long sequenceNumber) {
+        lock.lock();
+        try {
+            return buffers[ownedSlotOf(sequenceNumber)];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void submit(long sequenceNumber) {
+        submit(sequenceNumber, transferSize);
+    }
+
+    @Override
+    public void submit(long sequenceNumber, int length) {
+        if (length < 0 || length > transferSize)
+            throw new IllegalArgumentException("length must be between 0 and transfer size");
+        if (direction == UsbDirection.IN && (length == 0 || length % packetSize != 0))
+            throw new IllegalArgumentException(String.format(
+                    "length must be a positive multiple of the packet size (%d)", packetSize));
+
+        lock.lock();
+        try {
+            ensureOpen();
+            if (sequenceNumber != nextSubmission)
+                throw new IllegalStateException(String.format(
+                        "transfers must be resubmitted in completion order (expected sequence number %d)",
+                        nextSubmission));
+            var slot = ownedSlotOf(sequenceNumber);
+
+            transfers[slot].setDataSize(length);
+            slotSequenceNumbers[slot] = sequenceNumber + numTransfers;
+            try {
+                submitSlot(slot);
+            } catch (UsbException e) {
+                slotSequenceNumbers[slot] = sequenceNumber;
+                throw e;
+            }
+            nextSubmission += 1;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("java:S2142")
+    public void close() {
+        lock.lock();
+        try {
+            if (isClosed)
+                return;
+            isClosed = true;
+            transferCompleted.signalAll();
+
+            if (numSubmittedTransfers > 0) {
+                try {
+                    device.abortTransfers(direction, endpointNumber);
+
+                } catch (UsbException _) {
+                    // If aborting the transfer is not possible, the device has
+                    // likely been closed or unplugged. So all outstanding
+                    // transfers will terminate anyway.
+                }
+            }
+
+            // wait until the completion handlers have been called (bounded)
+            var remaining = TimeUnit.MILLISECONDS.toNanos(TEARDOWN_TIMEOUT_MS);
+            var wasInterrupted = false;
+            while (numSubmittedTransfers > 0) {
+                if (remaining <= 0) {
+                    LOG.log(WARNING,
+                            "abandoning {0} outstanding transfer(s) during transfer ring teardown - no completion within {1} ms",
+                            numSubmittedTransfers, TEARDOWN_TIMEOUT_MS);
+                    break;
+                }
+
+                try {
+                    remaining = transferCompleted.awaitNanos(remaining);
+                } catch (InterruptedException _) {
+                    wasInterrupted = true;
+                }
+            }
+
+            if (wasInterrupted)
+                Thread.currentThread().interrupt();
+
+            // return the buffers to the pool unless transfers have been abandoned
+            if (numSubmittedTransfers == 0) {
+                for (var buffer : buffers)
+                    TransferBufferPool.shared().release(buffer);
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // must be called while holding the lock
+    private void submitSlot(int slot) {
+        device.submitAsyncTransfer(direction, endpointNumber, transfers[slot]);
+        slotStates[slot] = SUBMITTED;
+        numSubmittedTransfers += 1;
+    }
+
+    // must be called while holding the lock
+    private long takeCompletion(int slot) {
+        slotStates[slot] = OWNED;
+        var sequenceNumber = nextCompletion;
+        nextCompletion += 1;
+        return sequenceNumber;
+    }
+
+    // must be called while holding the lock
+    private int ownedSlotOf(long sequenceNumber) {
+        var slot = slotOf(sequenceNumber);
+        if (sequenceNumber < 0 || slotSequenceNumbers[slot] != sequenceNumber || slotStates[slot] != OWNED)
+            throw new IllegalStateException(String.format(
+                    "transfer with sequence number %d is not owned by the application", sequenceNumber));
+        return slot;
+    }
+
+    private int slotOf(long sequenceNumber) {
+        return (int) Long.remainderUnsigned(sequenceNumber, numTransfers);
+    }
+
+    private void ensureOpen() {
+        if (isClosed)
+            throw new UsbException("transfer ring has been closed");
+    }
+
+    /**
+     * Handles the completion of a transfer.
+     * <p>
+     * Called from the background thread handling IO completions.
+     * </p>
+     *
+     * @param slot slot index of completed transfer
+     */
+    private void onCompletion(int slot) {
+        lock.lock();
+        try {
+            slotStates[slot] = COMPLETED;
+            numSubmittedTransfers -= 1;
+            transferCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -30,6 +30,17 @@ class IO {
     private static final MethodHandle open$MH = linker.downcallHandle(linker.defaultLookup().find("open").get(),
             open$FUNC, Linux.ERRNO_STATE);
 
+    private static final FunctionDescriptor socket$FUNC = FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT);
+    private static final MethodHandle socket$MH = linker.downcallHandle(linker.defaultLookup().find("socket").get(),
+            socket$FUNC, Linux.ERRNO_STATE);
+    private static final FunctionDescriptor bind$FUNC = FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT);
+    private static final MethodHandle bind$MH = linker.downcallHandle(linker.defaultLookup().find("bind").get(),
+            bind$FUNC, Linux.ERRNO_STATE);
+    private static final FunctionDescriptor recvfrom$FUNC = FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG,
+            JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle recvfrom$MH = linker.downcallHandle(linker.defaultLookup().find("recvfrom").get(),
+            recvfrom$FUNC, Linux.ERRNO_STATE);
+
     static int ioctl(int fd, long request, MemorySegment segment, MemorySegment errno) {
         try {
             return (int) ioctl$MH.invokeExact(errno, fd, request, segment);
@@ -45,4 +56,29 @@ class IO {
             throw new AssertionError(ex);
         }
     }
+
+    static int socket(int domain, int type, int protocol, MemorySegment errno) {
+        try {
+            return (int) socket$MH.invokeExact(errno, domain, type, protocol);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    static int bind(int fd, MemorySegment addr, int addrLen, MemorySegment errno) {
+        try {
+            return (int) bind$MH.invokeExact(errno, fd, addr, addrLen);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    static long recvfrom(int fd, MemorySegment buf, long len, int flags, MemorySegment srcAddr,
+                         MemorySegment addrLen, MemorySegment errno) {
+        try {
+            return (long) recvfrom$MH.invokeExact(errno, fd, buf, len, flags, srcAddr, addrLen);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.linux;
+
+import net.codecrete.usb.UsbException;
+import net.codecrete.usb.common.MirroredBuffer;
+import net.codecrete.usb.linux.gen.unistd.unistd;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import static net.codecrete.usb.linux.Linux.allocateErrorState;
+import static net.codecrete.usb.linux.LinuxUsbException.throwLastError;
+import static net.codecrete.usb.linux.MMap.MAP_ANONYMOUS;
+import static net.codecrete.usb.linux.MMap.MAP_FAILED;
+import static net.codecrete.usb.linux.MMap.MAP_FIXED;
+import static net.codecrete.usb.linux.MMap.MAP_PRIVATE;
+import static net.codecrete.usb.linux.MMap.MAP_SHARED;
+import static net.codecrete.usb.linux.MMap.MFD_CLOEXEC;
+import static net.codecrete.usb.linux.MMap.PROT_NONE;
+import static net.codecrete.usb.linux.MMap.PROT_READ;
+import static net.codecrete.usb.linux.MMap.PROT_WRITE;
+
+/**
+ * Ring buffer consisting of an anonymous memory file mapped twice back-to-back.
+ */
+class LinuxMirroredBuffer extends MirroredBuffer {
+
+    private LinuxMirroredBuffer(MemorySegment segment, long size) {
+        super(segment, size);
+    }
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param size ring size (in bytes, multiple of the page size)
+     * @return ring buffer
+     */
+    static LinuxMirroredBuffer create(long size) {
+        try (var arena = Arena.ofConfined()) {
+            var errorState = allocateErrorState(arena);
+
+            var fd = MMap.memfd_create(arena.allocateFrom("usb-ring-buffer"), MFD_CLOEXEC, errorState);
+            if (fd < 0)
+                throwLastError(errorState, "internal error (memfd_create)");
+
+            try {
+                if (MMap.ftruncate(fd, size, errorState) < 0)
+                    throwLastError(errorState, "internal error (ftruncate)");
+
+                // reserve the address range for both halves
+                var base = MMap.mmap(MemorySegment.NULL, 2 * size, PROT_NONE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0,
+                        errorState);
+                if (base.address() == MAP_FAILED)
+                    throwLastError(errorState, "internal error (mmap)");
+
+                try {
+                    mapFile(base, fd, size, errorState);
+                    mapFile(MemorySegment.ofAddress(base.address() + size), fd, size, errorState);
+
+                } catch (UsbException e) {
+                    MMap.munmap(base, 2 * size);
+                    throw e;
+                }
+
+                // unmapped when no longer referenced (including by abandoned transfers)
+                var segment = base.reinterpret(2 * size, Arena.ofAuto(), address -> MMap.munmap(address, 2 * size));
+                return new LinuxMirroredBuffer(segment, size);
+
+            } finally {
+                // the mappings keep the memory file alive
+                unistd.close(fd);
+            }
+        }
+    }
+
+    private static void mapFile(MemorySegment address, int fd, long size, MemorySegment errorState) {
+        var mapping = MMap.mmap(address, size, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_FIXED, fd, 0, errorState);
+        if (mapping.address() == MAP_FAILED)
+            throwLastError(errorState, "internal error (mmap)");
+    }
+}
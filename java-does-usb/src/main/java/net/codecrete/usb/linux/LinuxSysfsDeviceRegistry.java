@@ -0,0 +1,384 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.linux;
+
+import net.codecrete.usb.UsbDevice;
+import net.codecrete.usb.common.UsbDeviceImpl;
+import net.codecrete.usb.common.UsbDeviceRegistry;
+import net.codecrete.usb.linux.gen.socket.sockaddr_nl;
+import net.codecrete.usb.linux.gen.unistd.unistd;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.SymbolLookup;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static net.codecrete.usb.linux.Linux.allocateErrorState;
+import static net.codecrete.usb.linux.LinuxUsbException.throwException;
+import static net.codecrete.usb.linux.LinuxUsbException.throwLastError;
+import static net.codecrete.usb.linux.gen.errno.errno.EINTR;
+import static net.codecrete.usb.linux.gen.errno.errno.ENOBUFS;
+import static net.codecrete.usb.linux.gen.socket.socket.AF_NETLINK;
+import static net.codecrete.usb.linux.gen.socket.socket.NETLINK_KOBJECT_UEVENT;
+import static net.codecrete.usb.linux.gen.socket.socket.SOCK_CLOEXEC;
+import static net.codecrete.usb.linux.gen.socket.socket.SOCK_RAW;
+
+/**
+ * Linux implementation of USB device registry without <i>libudev</i>.
+ * <p>
+ * The present devices are enumerated by reading {@code /sys/bus/usb/devices} directly.
+ * Connected and disconnected devices are detected by receiving the kernel's uevents
+ * from a {@code NETLINK_KOBJECT_UEVENT} socket.
+ * </p>
+ * <p>
+ * The device details are taken from the {@code uevent} file (device node, vendor and
+ * product ID) so a single file is read per device. The descriptors and product strings
+ * are loaded on first access.
+ * </p>
+ * <p>
+ * As the kernel events are received before <i>udev</i> has processed them, permissions
+ * set by <i>udev</i> rules might not have been applied yet when a device is reported as
+ * connected.
+ * </p>
+ */
+public class LinuxSysfsDeviceRegistry extends UsbDeviceRegistry {
+
+    private static final System.Logger LOG = System.getLogger(LinuxSysfsDeviceRegistry.class.getName());
+
+    /**
+     * System property for selecting the Linux device registry ({@code udev} or {@code sysfs}).
+     * <p>
+     * If it is not set, <i>libudev</i> is used if it is available.
+     * </p>
+     */
+    public static final String REGISTRY_PROPERTY = "net.codecrete.usb.linux.registry";
+
+    private static final Path SYSFS_USB_DEVICES = Path.of("/sys/bus/usb/devices");
+    private static final String DEV_ROOT = "/dev/";
+
+    // multicast group of uevents sent by the kernel
+    private static final int KERNEL_EVENTS_GROUP = 1;
+
+    private static final int RECEIVE_BUFFER_SIZE = 16384;
+
+    private int socketFd = -1;
+
+    /**
+     * Checks if the sysfs-based registry should be used instead of the <i>libudev</i>-based one.
+     * <p>
+     * The registry can be selected with the system property {@value #REGISTRY_PROPERTY}. If it is
+     * not set, the sysfs-based registry is used if <i>libudev</i> is not available.
+     * </p>
+     *
+     * @return {@code true} if the sysfs-based registry should be used
+     */
+    public static boolean isSelected() {
+        var registry = System.getProperty(REGISTRY_PROPERTY);
+        if (registry != null)
+            return "sysfs".equals(registry);
+
+        try {
+            SymbolLookup.libraryLookup("libudev.so.1", Arena.global());
+            return false;
+        } catch (IllegalArgumentException _) {
+            return true;
+        }
+    }
+
+    @SuppressWarnings("java:S1181")
+    private boolean setupMonitor() {
+        try {
+            // open netlink socket before enumerating the devices so no change is missed
+            try (var arena = Arena.ofConfined()) {
+                var errorState = allocateErrorState(arena);
+                socketFd = IO.socket(AF_NETLINK(), SOCK_RAW() | SOCK_CLOEXEC(), NETLINK_KOBJECT_UEVENT(), errorState);
+                if (socketFd < 0)
+                    throwLastError(errorState, "internal error (socket)");
+
+                var address = sockaddr_nl.allocate(arena);
+                sockaddr_nl.nl_family(address, (short) AF_NETLINK());
+                sockaddr_nl.nl_groups(address, KERNEL_EVENTS_GROUP);
+                if (IO.bind(socketFd, address, (int) sockaddr_nl.sizeof(), errorState) < 0)
+                    throwLastError(errorState, "internal error (bind)");
+            }
+
+            // create initial list of devices
+            setInitialDeviceList(enumeratePresentDevices());
+            return true;
+
+        } catch (Throwable e) {
+            closeSocket();
+            enumerationFailed(e);
+            return false;
+        }
+    }
+
+    private void closeSocket() {
+        if (socketFd >= 0) {
+            unistd.close(socketFd);
+            socketFd = -1;
+        }
+    }
+
+    @SuppressWarnings("java:S2189")
+    @Override
+    protected void monitorDevices() {
+        if (!setupMonitor())
+            return;
+
+        try (var arena = Arena.ofConfined()) {
+            var errorState = allocateErrorState(arena);
+            var buffer = arena.allocate(RECEIVE_BUFFER_SIZE);
+            var sender = sockaddr_nl.allocate(arena);
+            var senderLength = arena.allocate(JAVA_INT);
+
+            // monitor device changes
+            //noinspection InfiniteLoopStatement
+            while (true) {
+                senderLength.set(JAVA_INT, 0, (int) sockaddr_nl.sizeof());
+                var length = IO.recvfrom(socketFd, buffer, RECEIVE_BUFFER_SIZE, 0, sender, senderLength, errorState);
+                if (length < 0) {
+                    var err = Linux.getErrno(errorState);
+                    if (err == EINTR())
+                        continue; // continue on interrupt
+                    if (err == ENOBUFS()) {
+                        // socket buffer overrun: events have been lost
+                        LOG.log(WARNING, "USB device events have been lost - re-enumerating devices");
+                        synchronizeDevices();
+                        continue;
+                    }
+                    throwException(err, "internal error (recvfrom)");
+                }
+
+                // Only accept messages sent by the kernel (port ID 0). Other processes
+                // with sufficient privileges can send messages to the multicast group.
+                if (sockaddr_nl.nl_pid(sender) != 0) {
+                    LOG.log(DEBUG, "ignoring uevent not sent by kernel (port ID {0})",
+                            Integer.toUnsignedString(sockaddr_nl.nl_pid(sender)));
+                    continue;
+                }
+
+                var properties = parseEvent(buffer.asSlice(0, length).toArray(JAVA_BYTE));
+                if (properties != null)
+                    onEvent(properties);
+            }
+
+        } finally {
+            closeSocket();
+        }
+    }
+
+    private void onEvent(Map<String, String> properties) {
+        if (!"usb".equals(properties.get("SUBSYSTEM")) || !"usb_device".equals(properties.get("DEVTYPE")))
+            return;
+
+        var devName = properties.get("DEVNAME");
+        if (devName == null)
+            return;
+
+        var action = properties.get("ACTION");
+        if ("add".equals(action)) {
+            var device = createDevice(properties);
+            if (device != null)
+                addDevice(device);
+
+        } else if ("remove".equals(action)) {
+            closeAndRemoveDevice(DEV_ROOT + devName);
+        }
+    }
+
+    private List<UsbDevice> enumeratePresentDevices() throws IOException {
+        return createDevices(enumerateDevicePaths(), this::createDevice, this::reportEnumeratedDevice);
+    }
+
+    /**
+     * Gets the sysfs directories of the present USB devices.
+     *
+     * @return list of directories (sorted)
+     * @throws IOException if the directory cannot be read
+     */
+    private static List<Path> enumerateDevicePaths() throws IOException {
+        List<Path> devicePaths = new ArrayList<>();
+
+        try (var entries = Files.newDirectoryStream(SYSFS_USB_DEVICES)) {
+            for (var entry : entries) {
+                // skip interfaces (e.g. "1-1.2:1.0")
+                if (entry.getFileName().toString().indexOf(':') < 0)
+                    devicePaths.add(entry);
+            }
+        }
+
+        // sort for a deterministic order
+        devicePaths.sort(null);
+        return devicePaths;
+    }
+
+    private UsbDevice createDevice(Path sysPath) {
+        var properties = readProperties(sysPath);
+        if (properties == null)
+            return null;
+
+        return createDevice(properties);
+    }
+
+    /**
+     * Re-enumerates the devices and reports the differences as connected and disconnected devices.
+     */
+    private void synchronizeDevices() {
+        List<Path> devicePaths;
+        try {
+            devicePaths = enumerateDevicePaths();
+        } catch (IOException e) {
+            LOG.log(INFO, "failed to re-enumerate USB devices - ignoring", e);
+            return;
+        }
+
+        var presentIds = new HashSet<>();
+        for (var path : devicePaths) {
+            var properties = readProperties(path);
+            if (properties == null || properties.get("DEVNAME") == null)
+                continue;
+
+            // only create instances for devices that are not known yet
+            var id = DEV_ROOT + properties.get("DEVNAME");
+            presentIds.add(id);
+            if (findDevice(id) == null) {
+                var device = createDevice(properties);
+                if (device != null)
+                    addDevice(device);
+            }
+        }
+
+        for (var device : getAllDevices()) {
+            var id = ((UsbDeviceImpl) device).getUniqueId();
+            if (!presentIds.contains(id))
+                closeAndRemoveDevice(id);
+        }
+    }
+
+    /**
+     * Creates a {@code UsbDevice} instance from the uevent properties.
+     * <p>
+     * If the device is missing one of vendor ID, product ID or device path,
+     * {@code null} is returned.
+     * </p>
+     *
+     * @param properties the uevent properties
+     * @return the device instance
+     */
+    private UsbDevice createDevice(Map<String, String> properties) {
+        int vendorId = 0;
+        int productId = 0;
+
+        try {
+            if (!"usb_device".equals(properties.get("DEVTYPE")))
+                return null;
+
+            var devName = properties.get("DEVNAME");
+            if (devName == null)
+                return null;
+
+            // PRODUCT has the format "vendor/product/bcdDevice" (hexadecimal without leading zeros)
+            var product = properties.get("PRODUCT");
+            if (product == null)
+                return null;
+            var parts = product.split("/");
+            if (parts.length < 2)
+                return null;
+
+            vendorId = Integer.parseInt(parts[0], 16);
+            productId = Integer.parseInt(parts[1], 16);
+            if (!isOfInterest(vendorId, productId))
+                return null;
+
+            // create device instance (descriptors and product strings are loaded on first access)
+            return new LinuxUsbDevice(DEV_ROOT + devName, vendorId, productId);
+
+        } catch (Exception e) {
+            LOG.log(INFO, String.format("failed to retrieve information about device 0x%04x/0x%04x - ignoring device", vendorId, productId), e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the properties from the device's {@code uevent} file.
+     *
+     * @param sysPath the device's directory in sysfs
+     * @return the properties, or {@code null} if the file cannot be read
+     */
+    private static Map<String, String> readProperties(Path sysPath) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(sysPath.resolve("uevent"), StandardCharsets.UTF_8);
+        } catch (IOException _) {
+            // the device has likely been disconnected
+            return null;
+        }
+
+        var properties = new HashMap<String, String>();
+        for (var line : lines)
+            addProperty(properties, line);
+        return properties;
+    }
+
+    /**
+     * Parses a uevent message received from the netlink socket.
+     * <p>
+     * Kernel messages consist of a header ("action@devpath") followed by "KEY=value" properties,
+     * all terminated by a null character.
+     * </p>
+     *
+     * @param message the message
+     * @return the properties, or {@code null} if the message is not a kernel uevent
+     */
+    static Map<String, String> parseEvent(byte[] message) {
+        var headerEnd = indexOf(message, 0);
+        if (headerEnd < 0)
+            return null;
+        var header = new String(message, 0, headerEnd, StandardCharsets.UTF_8);
+        if (header.indexOf('@') < 0)
+            return null; // e.g. message from udev daemon ("libudev" header)
+
+        var properties = new HashMap<String, String>();
+        var start = headerEnd + 1;
+        while (start < message.length) {
+            var end = indexOf(message, start);
+            if (end < 0)
+                end = message.length;
+            addProperty(properties, new String(message, start, end - start, StandardCharsets.UTF_8));
+            start = end + 1;
+        }
+        return properties;
+    }
+
+    private static void addProperty(Map<String, String> properties, String keyValue) {
+        var separator = keyValue.indexOf('=');
+        if (separator > 0)
+            properties.put(keyValue.substring(0, separator), keyValue.substring(separator + 1));
+    }
+
+    private static int indexOf(byte[] message, int start) {
+        for (var i = start; i < message.length; i++) {
+            if (message[i] == 0)
+                return i;
+        }
+        return -1;
+    }
+}
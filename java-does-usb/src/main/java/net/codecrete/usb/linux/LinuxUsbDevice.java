@@ -10,10 +10,17 @@ package net.codecrete.usb.linux;
 import net.codecrete.usb.UsbControlTransfer;
 import net.codecrete.usb.UsbDirection;
 import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbInputStream;
+import net.codecrete.usb.UsbOutputStream;
+import net.codecrete.usb.UsbSpeed;
 import net.codecrete.usb.UsbTransferType;
+import net.codecrete.usb.common.EndpointInputStream;
+import net.codecrete.usb.common.EndpointOutputStream;
+import net.codecrete.usb.common.MirroredBuffer;
 import net.codecrete.usb.common.Transfer;
 import net.codecrete.usb.common.UsbDeviceImpl;
 import net.codecrete.usb.common.UsbInterfaceImpl;
+import net.codecrete.usb.linux.gen.errno.errno;
 import net.codecrete.usb.linux.gen.fcntl.fcntl;
 import net.codecrete.usb.linux.gen.unistd.unistd;
 import net.codecrete.usb.linux.gen.usbdevice_fs.usbdevfs_disconnect_claim;
@@ -25,12 +32,13 @@ import net.codecrete.usb.usbstandard.SetupPacket;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static java.lang.foreign.ValueLayout.JAVA_BYTE;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
@@ -53,13 +61,13 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
     LinuxUsbDevice(Object id, int vendorId, int productId) {
         super(id, vendorId, productId);
         asyncTask = LinuxAsyncTask.INSTANCE;
-        loadDescription((String) id);
     }
 
-    private void loadDescription(String path) {
+    @Override
+    protected void loadDescription() {
         byte[] descriptors;
         try {
-            descriptors = Files.readAllBytes(Path.of(path));
+            descriptors = Files.readAllBytes(Path.of((String) uniqueDeviceId));
         } catch (IOException e) {
             throw new UsbException("reading configuration descriptor failed", e);
         }
@@ -71,6 +79,106 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
         setConfigurationDescriptor(descriptorsSegment.asSlice(DeviceDescriptor.LAYOUT.byteSize()));
     }
 
+    @Override
+    protected void loadProductStrings() {
+        var sysPath = getSysfsPath();
+        if (sysPath == null)
+            return;
+
+        setProductStrings(readAttribute(sysPath, "manufacturer"), readAttribute(sysPath, "product"),
+                readAttribute(sysPath, "serial"));
+    }
+
+    @Override
+    protected void loadTopology() {
+        var sysPath = getSysfsPath();
+        if (sysPath == null)
+            return;
+
+        var busNum = readAttribute(sysPath, "busnum");
+        var devPath = readAttribute(sysPath, "devpath");
+        if (busNum == null || devPath == null)
+            return; // device has likely been disconnected
+
+        try {
+            setTopology(Integer.parseInt(busNum), parsePortPath(devPath), parseSpeed(readAttribute(sysPath, "speed")));
+        } catch (NumberFormatException _) {
+            // unexpected format: leave topology unknown
+        }
+    }
+
+    /**
+     * Parses the {@code devpath} attribute into a list of port numbers.
+     * <p>
+     * The attribute contains the port numbers separated by periods (e.g. "1.3").
+     * For root hubs, it is "0".
+     * </p>
+     *
+     * @param devPath the {@code devpath} attribute
+     * @return the port numbers
+     */
+    static List<Integer> parsePortPath(String devPath) {
+        if ("0".equals(devPath))
+            return List.of();
+
+        var ports = devPath.split("\\.");
+        var portPath = new ArrayList<Integer>(ports.length);
+        for (var port : ports)
+            portPath.add(Integer.parseInt(port));
+        return portPath;
+    }
+
+    /**
+     * Parses the {@code speed} attribute (in Mbit/s).
+     *
+     * @param speed the {@code speed} attribute
+     * @return the speed
+     */
+    static UsbSpeed parseSpeed(String speed) {
+        return switch (speed) {
+            case "1.5" -> UsbSpeed.LOW;
+            case "12" -> UsbSpeed.FULL;
+            case "480" -> UsbSpeed.HIGH;
+            case "5000" -> UsbSpeed.SUPER;
+            case "10000" -> UsbSpeed.SUPER_PLUS;
+            case "20000" -> UsbSpeed.SUPER_PLUS_X2;
+            case null, default -> UsbSpeed.UNKNOWN;
+        };
+    }
+
+    /**
+     * Gets the device's directory in sysfs.
+     * <p>
+     * It is derived from the device node ({@code /dev/bus/usb/BBB/DDD}), which has
+     * the major number 189 and a minor number derived from the bus and device number.
+     * </p>
+     *
+     * @return the directory, or {@code null} if the device node has an unexpected name
+     */
+    private Path getSysfsPath() {
+        var devPath = Path.of((String) uniqueDeviceId);
+        var count = devPath.getNameCount();
+        if (count < 2)
+            return null;
+
+        try {
+            var busNumber = Integer.parseInt(devPath.getName(count - 2).toString());
+            var deviceNumber = Integer.parseInt(devPath.getName(count - 1).toString());
+            return Path.of(String.format("/sys/dev/char/189:%d", (busNumber - 1) * 128 + deviceNumber - 1));
+        } catch (NumberFormatException _) {
+            return null;
+        }
+    }
+
+    private static String readAttribute(Path sysPath, String attribute) {
+        try {
+            return Files.readString(sysPath.resolve(attribute), StandardCharsets.UTF_8).stripTrailing();
+        } catch (IOException _) {
+            // attribute is not present or device has been disconnected
+            return null;
+        }
+    }
+
     @Override
     public synchronized void detachStandardDrivers() {
         checkIsClosed("detachStandardDrivers() must not be called while the device is open");
@@ -91,6 +199,7 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
     @Override
     public synchronized void open() {
         checkIsClosed("device is already open");
+        ensureDescriptionLoaded();
 
         try (var arena = Arena.ofConfined()) {
             var pathUtf8 = arena.allocateFrom(uniqueDeviceId.toString());
@@ -259,39 +368,7 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
     }
 
     @Override
-    public void transferOut(int endpointNumber, byte @NotNull [] data, int offset, int length, int timeout) {
-        // Auto arena: a transfer that times out may be abandoned (see UsbDeviceImpl.waitForTransfer),
-        // so the buffer must outlive a possible late completion instead of being freed deterministically.
-        var arena = Arena.ofAuto();
-        var buffer = arena.allocate(length);
-        buffer.copyFrom(MemorySegment.ofArray(data).asSlice(offset, length));
-        var transfer = createSyncTransfer(buffer);
-
-        synchronized (transfer) {
-            submitTransfer(UsbDirection.OUT, endpointNumber, transfer);
-            waitForTransfer(transfer, timeout, UsbDirection.OUT, endpointNumber);
-        }
-    }
-
-    @Override
-    public byte @NotNull [] transferIn(int endpointNumber, int timeout) {
-        var endpoint = getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
-
-        // Auto arena: a transfer that times out may be abandoned (see UsbDeviceImpl.waitForTransfer),
-        // so the buffer must outlive a possible late completion instead of being freed deterministically.
-        var arena = Arena.ofAuto();
-        var buffer = arena.allocate(endpoint.packetSize());
-        var transfer = createSyncTransfer(buffer);
-
-        synchronized (transfer) {
-            submitTransfer(UsbDirection.IN, endpointNumber, transfer);
-            waitForTransfer(transfer, timeout, UsbDirection.IN, endpointNumber);
-        }
-
-        return buffer.asSlice(0, transfer.resultSize()).toArray(JAVA_BYTE);
-    }
-
-    private LinuxTransfer createSyncTransfer(MemorySegment data) {
+    protected Transfer createSyncTransfer(MemorySegment data) {
         var transfer = new LinuxTransfer();
         transfer.setData(data);
         transfer.setDataSize((int) data.byteSize());
@@ -300,6 +377,12 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
         return transfer;
     }
 
+    @Override
+    protected void executeSyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer, int timeout) {
+        submitTransfer(direction, endpointNumber, (LinuxTransfer) transfer);
+        waitForTransfer(transfer, timeout, direction, endpointNumber);
+    }
+
     synchronized void submitTransfer(UsbDirection direction, int endpointNumber, LinuxTransfer transfer) {
         if (endpointNumber != 0) {
             var endpoint = getEndpoint(direction, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
@@ -314,11 +397,29 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
         return new LinuxTransfer();
     }
 
+    @Override
+    protected void submitAsyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer) {
+        submitTransfer(direction, endpointNumber, (LinuxTransfer) transfer);
+    }
+
+    @Override
+    protected MirroredBuffer createMirroredBuffer(long size) {
+        if (!MMap.isMemfdSupported())
+            return super.createMirroredBuffer(size);
+        return LinuxMirroredBuffer.create(size);
+    }
+
     @Override
     protected void throwOSException(int errorCode, String message, Object... args) {
         throwException(errorCode, message, args);
     }
 
+    @Override
+    protected boolean isAbortedResult(int errorCode) {
+        // discarded URBs complete with ENOENT, ECANCELED is used if the async task is stopped
+        return errorCode == errno.ENOENT() || errorCode == errno.ECANCELED();
+    }
+
     @Override
     public void clearHalt(UsbDirection direction, int endpointNumber) {
         var endpoint = getEndpoint(direction, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
@@ -341,17 +442,29 @@ public class LinuxUsbDevice extends UsbDeviceImpl {
     }
 
     @Override
-    public synchronized @NotNull InputStream openInputStream(int endpointNumber, int bufferSize) {
+    public synchronized @NotNull UsbInputStream openInputStream(int endpointNumber, int bufferSize) {
+        return openInputStream(endpointNumber, bufferSize, null);
+    }
+
+    @Override
+    protected synchronized EndpointInputStream openInputStream(int endpointNumber, int bufferSize,
+                                                               UsbTransferType additionalTransferType) {
         // check that endpoint number is valid
-        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, null);
+        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, additionalTransferType);
 
         return new LinuxEndpointInputStream(this, endpointNumber, bufferSize);
     }
 
     @Override
-    public synchronized @NotNull OutputStream openOutputStream(int endpointNumber, int bufferSize) {
+    public synchronized @NotNull UsbOutputStream openOutputStream(int endpointNumber, int bufferSize) {
+        return openOutputStream(endpointNumber, bufferSize, null);
+    }
+
+    @Override
+    protected synchronized EndpointOutputStream openOutputStream(int endpointNumber, int bufferSize,
+                                                                 UsbTransferType additionalTransferType) {
         // check that endpoint number is valid
-        getEndpoint(UsbDirection.OUT, endpointNumber, UsbTransferType.BULK, null);
+        getEndpoint(UsbDirection.OUT, endpointNumber, UsbTransferType.BULK, additionalTransferType);
 
         return new LinuxEndpointOutputStream(this, endpointNumber, bufferSize);
     }
@@ -41,9 +41,6 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
 
     private static final MemorySegment ATTR_ID_VENDOR;
     private static final MemorySegment ATTR_ID_PRODUCT;
-    private static final MemorySegment ATTR_MANUFACTURER;
-    private static final MemorySegment ATTR_PRODUCT;
-    private static final MemorySegment ATTR_SERIAL;
 
     private MemorySegment monitor;
     private int monitorFd;
@@ -57,9 +54,6 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
 
         ATTR_ID_VENDOR = global.allocateFrom("idVendor");
         ATTR_ID_PRODUCT = global.allocateFrom("idProduct");
-        ATTR_MANUFACTURER = global.allocateFrom("manufacturer");
-        ATTR_PRODUCT = global.allocateFrom("product");
-        ATTR_SERIAL = global.allocateFrom("serial");
     }
 
     @SuppressWarnings("java:S1181")
@@ -147,6 +141,8 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
 
     @SuppressWarnings("java:S135")
     private List<UsbDevice> enumeratePresentDevices(MemorySegment udevInstance) {
+        // The device instances do not perform any I/O when created (descriptors and
+        // product strings are loaded on first access). So they are created sequentially.
         List<UsbDevice> result = new ArrayList<>();
         try (var outerCleanup = new ScopeCleanup()) {
 
@@ -182,9 +178,15 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
                     cleanup.add(() -> udev.udev_device_unref(dev));
 
                     // get device details
-                    var device = getDeviceDetails(dev);
-                    if (device != null)
+                    var info = getDeviceInfo(dev);
+                    if (info == null)
+                        continue;
+
+                    var device = createDevice(info);
+                    if (device != null) {
                         result.add(device);
+                        reportEnumeratedDevice(device);
+                    }
                 }
             }
         }
@@ -194,7 +196,11 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
 
     private void onDeviceConnected(MemorySegment udevDevice) {
 
-        var device = getDeviceDetails(udevDevice);
+        var info = getDeviceInfo(udevDevice);
+        if (info == null)
+            return;
+
+        var device = createDevice(info);
         if (device != null)
             addDevice(device);
     }
@@ -209,53 +215,56 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
     }
 
     /**
-     * Retrieves the device details and returns a {@code UsbDevice} instance.
+     * Retrieves the device details.
      * <p>
      * If the device is missing one of vendor ID, product ID or device path,
      * {@code null} is returned.
      * </p>
      *
      * @param udevDevice the device (udev_device*)
-     * @return the device instance
+     * @return the device details
      */
-    @SuppressWarnings("java:S106")
-    private UsbDevice getDeviceDetails(MemorySegment udevDevice) {
-
-        int vendorId = 0;
-        int productId = 0;
-
-        try {
-            // retrieve device attributes
-            String idVendor = getDeviceAttribute(udevDevice, ATTR_ID_VENDOR);
-            if (idVendor == null)
-                return null;
-
-            String idProduct = getDeviceAttribute(udevDevice, ATTR_ID_PRODUCT);
-            if (idProduct == null)
-                return null;
-
-            // get device path
-            var devPath = getDeviceName(udevDevice);
-            if (devPath == null)
-                return null;
-
-            vendorId = Integer.parseInt(idVendor, 16);
-            productId = Integer.parseInt(idProduct, 16);
+    private static DeviceInfo getDeviceInfo(MemorySegment udevDevice) {
+        // retrieve device attributes
+        String idVendor = getDeviceAttribute(udevDevice, ATTR_ID_VENDOR);
+        if (idVendor == null)
+            return null;
 
-            // create device instance
-            var device = new LinuxUsbDevice(devPath, vendorId, productId);
+        String idProduct = getDeviceAttribute(udevDevice, ATTR_ID_PRODUCT);
+        if (idProduct == null)
+            return null;
 
-            device.setProductStrings(getDeviceAttribute(udevDevice, ATTR_MANUFACTURER), getDeviceAttribute(udevDevice
-                    , ATTR_PRODUCT), getDeviceAttribute(udevDevice, ATTR_SERIAL));
+        // get device path
+        var devPath = getDeviceName(udevDevice);
+        if (devPath == null)
+            return null;
 
-            return device;
+        try {
+            return new DeviceInfo(devPath, Integer.parseInt(idVendor, 16), Integer.parseInt(idProduct, 16));
 
-        } catch (Exception e) {
-            LOG.log(INFO, String.format("failed to retrieve information about device 0x%04x/0x%04x - ignoring device", vendorId, productId), e);
+        } catch (NumberFormatException e) {
+            LOG.log(INFO, String.format("invalid vendor/product ID %s/%s - ignoring device", idVendor, idProduct), e);
             return null;
         }
     }
 
+    /**
+     * Creates a {@code UsbDevice} instance.
+     * <p>
+     * If the device is not of interest, {@code null} is returned.
+     * The descriptors and product strings are loaded on first access.
+     * </p>
+     *
+     * @param info the device details
+     * @return the device instance
+     */
+    private UsbDevice createDevice(DeviceInfo info) {
+        if (!isOfInterest(info.vendorId(), info.productId()))
+            return null;
+
+        return new LinuxUsbDevice(info.devPath(), info.vendorId(), info.productId());
+    }
+
     private static String getDeviceAttribute(MemorySegment udevDevice, MemorySegment attribute) {
         var value = udev.udev_device_get_sysattr_value(udevDevice, attribute);
         if (value.address() == 0)
@@ -271,4 +280,7 @@ public class LinuxUsbDeviceRegistry extends UsbDeviceRegistry {
     private static String getDeviceAction(MemorySegment udevDevice) {
         return udev.udev_device_get_action(udevDevice).getString(0);
     }
+
+    private record DeviceInfo(String devPath, int vendorId, int productId) {
+    }
 }
@@ -0,0 +1,95 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.usb.linux;
+
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Memory mapping functions.
+ */
+@SuppressWarnings({"OptionalGetWithoutIsPresent", "java:S100"})
+class MMap {
+
+    private MMap() {
+    }
+
+    static final int PROT_NONE = 0;
+    static final int PROT_READ = 1;
+    static final int PROT_WRITE = 2;
+    static final int MAP_SHARED = 0x01;
+    static final int MAP_PRIVATE = 0x02;
+    static final int MAP_FIXED = 0x10;
+    static final int MAP_ANONYMOUS = 0x20;
+    static final int MFD_CLOEXEC = 1;
+    static final long MAP_FAILED = -1;
+
+    private static final Linker linker = Linker.nativeLinker();
+
+    // memfd_create() requires glibc 2.27 or later
+    private static final MethodHandle memfd_create$MH = linker.defaultLookup().find("memfd_create")
+            .map(address -> linker.downcallHandle(address, FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT),
+                    Linux.ERRNO_STATE))
+            .orElse(null);
+
+    private static final FunctionDescriptor ftruncate$FUNC = FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_LONG);
+    private static final MethodHandle ftruncate$MH = linker.downcallHandle(linker.defaultLookup().find(
+            "ftruncate").get(), ftruncate$FUNC, Linux.ERRNO_STATE);
+
+    private static final FunctionDescriptor mmap$FUNC = FunctionDescriptor.of(ADDRESS, ADDRESS, JAVA_LONG, JAVA_INT,
+            JAVA_INT, JAVA_INT, JAVA_LONG);
+    private static final MethodHandle mmap$MH = linker.downcallHandle(linker.defaultLookup().find(
+            "mmap").get(), mmap$FUNC, Linux.ERRNO_STATE);
+
+    private static final FunctionDescriptor munmap$FUNC = FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG);
+    private static final MethodHandle munmap$MH = linker.downcallHandle(linker.defaultLookup().find(
+            "munmap").get(), munmap$FUNC);
+
+    static boolean isMemfdSupported() {
+        return memfd_create$MH != null;
+    }
+
+    static int memfd_create(MemorySegment name, int flags, MemorySegment errno) {
+        try {
+            return (int) memfd_create$MH.invokeExact(errno, name, flags);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    static int ftruncate(int fd, long length, MemorySegment errno) {
+        try {
+            return (int) ftruncate$MH.invokeExact(errno, fd, length);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    static MemorySegment mmap(MemorySegment addr, long length, int prot, int flags, int fd, long offset,
+                              MemorySegment errno) {
+        try {
+            return (MemorySegment) mmap$MH.invokeExact(errno, addr, length, prot, flags, fd, offset);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    static int munmap(MemorySegment addr, long length) {
+        try {
+            return (int) munmap$MH.invokeExact(addr, length);
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+    }
+}
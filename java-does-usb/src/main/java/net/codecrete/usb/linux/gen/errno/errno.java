@@ -86,6 +86,15 @@ public class errno extends errno$shared {
     public static int EPIPE() {
         return EPIPE;
     }
+    private static final int ENOBUFS = (int)105L;
+    /**
+     * {@snippet lang=c :
+     * #define ENOBUFS 105
+     * }
+     */
+    public static int ENOBUFS() {
+        return ENOBUFS;
+    }
     private static final int ECANCELED = (int)125L;
     /**
      * {@snippet lang=c :
@@ -10,9 +10,13 @@ package net.codecrete.usb.macos;
 import net.codecrete.usb.UsbControlTransfer;
 import net.codecrete.usb.UsbDevice;
 import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbInputStream;
+import net.codecrete.usb.UsbOutputStream;
 import net.codecrete.usb.UsbRecipient;
 import net.codecrete.usb.UsbRequestType;
 import net.codecrete.usb.UsbTransferType;
+import net.codecrete.usb.common.EndpointInputStream;
+import net.codecrete.usb.common.EndpointOutputStream;
 import net.codecrete.usb.common.ScopeCleanup;
 import net.codecrete.usb.common.Transfer;
 import net.codecrete.usb.common.UsbDeviceImpl;
@@ -23,8 +27,6 @@ import net.codecrete.usb.usbstandard.ConfigurationDescriptor;
 import net.codecrete.usb.usbstandard.Constants;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.util.ArrayList;
@@ -446,66 +448,26 @@ public class MacosUsbDevice extends UsbDeviceImpl {
     }
 
     @Override
-    public void transferOut(int endpointNumber, byte @NotNull [] data, int offset, int length, int timeout) {
-
-        var epInfo = getEndpointInfo(endpointNumber, UsbDirection.OUT, UsbTransferType.BULK,
-                UsbTransferType.INTERRUPT);
-
-        // Auto arena: a transfer that times out may be abandoned (see UsbDeviceImpl.waitForTransfer),
-        // so the buffer must outlive a possible late completion instead of being freed deterministically.
-        var arena = Arena.ofAuto();
-        var nativeData = arena.allocate(JAVA_BYTE, length);
-        nativeData.copyFrom(MemorySegment.ofArray(data).asSlice(offset, length));
-
+    protected Transfer createSyncTransfer(MemorySegment data) {
         var transfer = new MacosTransfer();
-        transfer.setData(nativeData);
-        transfer.setDataSize(length);
+        transfer.setData(data);
+        transfer.setDataSize((int) data.byteSize());
         transfer.setCompletion(UsbDeviceImpl::onSyncTransferCompleted);
-
-        synchronized (transfer) {
-            if (timeout <= 0 || epInfo.transferType() == UsbTransferType.BULK) {
-                // no timeout or timeout handled by operating system
-                submitTransferOut(endpointNumber, transfer, timeout);
-                waitForTransfer(transfer, 0, UsbDirection.OUT, endpointNumber);
-
-            } else {
-                // interrupt transfer with timeout
-                submitTransferOut(endpointNumber, transfer, 0);
-                waitForTransfer(transfer, timeout, UsbDirection.OUT, endpointNumber);
-            }
-        }
+        return transfer;
     }
 
     @Override
-    public byte @NotNull [] transferIn(int endpointNumber, int timeout) {
-
-        var epInfo = getEndpointInfo(endpointNumber, UsbDirection.IN, UsbTransferType.BULK,
-                UsbTransferType.INTERRUPT);
-
-        // Auto arena: a transfer that times out may be abandoned (see UsbDeviceImpl.waitForTransfer),
-        // so the buffer must outlive a possible late completion instead of being freed deterministically.
-        var arena = Arena.ofAuto();
-        var nativeData = arena.allocate(JAVA_BYTE, epInfo.packetSize());
-
-        var transfer = new MacosTransfer();
-        transfer.setData(nativeData);
-        transfer.setDataSize(epInfo.packetSize());
-        transfer.setCompletion(UsbDeviceImpl::onSyncTransferCompleted);
-
-        synchronized (transfer) {
-            if (timeout <= 0 || epInfo.transferType() == UsbTransferType.BULK) {
-                // no timeout, or timeout handled by operating system
-                submitTransferIn(endpointNumber, transfer, timeout);
-                waitForTransfer(transfer, 0, UsbDirection.IN, endpointNumber);
-
-            } else {
-                // interrupt transfer with timeout
-                submitTransferIn(endpointNumber, transfer, 0);
-                waitForTransfer(transfer, timeout, UsbDirection.IN, endpointNumber);
-            }
-        }
-
-        return nativeData.asSlice(0, transfer.resultSize()).toArray(JAVA_BYTE);
+    protected void executeSyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer, int timeout) {
+        var epInfo = getEndpointInfo(endpointNumber, direction, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
+
+        // the operating system handles the timeout of bulk transfers only
+        var isTimeoutHandledByOS = timeout <= 0 || epInfo.transferType() == UsbTransferType.BULK;
+        var osTimeout = isTimeoutHandledByOS ? timeout : 0;
+        if (direction == UsbDirection.IN)
+            submitTransferIn(endpointNumber, (MacosTransfer) transfer, osTimeout);
+        else
+            submitTransferOut(endpointNumber, (MacosTransfer) transfer, osTimeout);
+        waitForTransfer(transfer, isTimeoutHandledByOS ? 0 : timeout, direction, endpointNumber);
     }
 
     /**
@@ -598,6 +560,14 @@ public class MacosUsbDevice extends UsbDeviceImpl {
         return new MacosTransfer();
     }
 
+    @Override
+    protected void submitAsyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer) {
+        if (direction == UsbDirection.IN)
+            submitTransferIn(endpointNumber, (MacosTransfer) transfer, 0);
+        else
+            submitTransferOut(endpointNumber, (MacosTransfer) transfer, 0);
+    }
+
     @Override
     public synchronized void abortTransfers(UsbDirection direction, int endpointNumber) {
         var epInfo = getEndpointInfo(endpointNumber, direction, UsbTransferType.BULK,
@@ -619,17 +589,29 @@ public class MacosUsbDevice extends UsbDeviceImpl {
     }
 
     @Override
-    public synchronized @NotNull InputStream openInputStream(int endpointNumber, int bufferSize) {
+    public synchronized @NotNull UsbInputStream openInputStream(int endpointNumber, int bufferSize) {
+        return openInputStream(endpointNumber, bufferSize, null);
+    }
+
+    @Override
+    protected synchronized EndpointInputStream openInputStream(int endpointNumber, int bufferSize,
+                                                               UsbTransferType additionalTransferType) {
         // check that endpoint number is valid
-        getEndpointInfo(endpointNumber, UsbDirection.IN, UsbTransferType.BULK, null);
+        getEndpointInfo(endpointNumber, UsbDirection.IN, UsbTransferType.BULK, additionalTransferType);
 
         return new MacosEndpointInputStream(this, endpointNumber, bufferSize);
     }
 
     @Override
-    public synchronized @NotNull OutputStream openOutputStream(int endpointNumber, int bufferSize) {
+    public synchronized @NotNull UsbOutputStream openOutputStream(int endpointNumber, int bufferSize) {
+        return openOutputStream(endpointNumber, bufferSize, null);
+    }
+
+    @Override
+    protected synchronized EndpointOutputStream openOutputStream(int endpointNumber, int bufferSize,
+                                                                 UsbTransferType additionalTransferType) {
         // check that endpoint number is valid
-        getEndpointInfo(endpointNumber, UsbDirection.OUT, UsbTransferType.BULK, null);
+        getEndpointInfo(endpointNumber, UsbDirection.OUT, UsbTransferType.BULK, additionalTransferType);
 
         return new MacosEndpointOutputStream(this, endpointNumber, bufferSize);
     }
@@ -639,6 +621,11 @@ public class MacosUsbDevice extends UsbDeviceImpl {
         throwException(errorCode, message, args);
     }
 
+    @Override
+    protected boolean isAbortedResult(int errorCode) {
+        return errorCode == IOKit.kIOReturnAborted();
+    }
+
     private static UsbTransferType getTransferType(byte macosTransferType) {
         return switch (macosTransferType) {
             case 1 -> UsbTransferType.ISOCHRONOUS;
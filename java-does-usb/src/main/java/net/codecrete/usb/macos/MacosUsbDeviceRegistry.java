@@ -87,7 +87,7 @@ public class MacosUsbDeviceRegistry extends UsbDeviceRegistry {
 
                 // iterate current devices in order to arm the notifications (and build initial device list)
                 var deviceList = new ArrayList<UsbDevice>();
-                iterateDevices(deviceConnectedIter, device -> deviceList.add(device)); // NOSONAR
+                iterateDevices(deviceConnectedIter, device -> deviceList.add(reportEnumeratedDevice(device)));
                 setInitialDeviceList(deviceList);
 
                 // setup notification for disconnected devices
@@ -185,6 +185,8 @@ public class MacosUsbDeviceRegistry extends UsbDeviceRegistry {
 
             info.vid = vendorId;
             info.pid = productId;
+            if (!isOfInterest(vendorId, productId))
+                return null;
 
             var device = new MacosUsbDevice(deviceIntf, entryID, vendorId, productId);
 
@@ -10,15 +10,17 @@ package net.codecrete.usb.windows;
 import net.codecrete.usb.UsbControlTransfer;
 import net.codecrete.usb.UsbDirection;
 import net.codecrete.usb.UsbException;
+import net.codecrete.usb.UsbInputStream;
+import net.codecrete.usb.UsbOutputStream;
 import net.codecrete.usb.UsbRecipient;
 import net.codecrete.usb.UsbTransferType;
+import net.codecrete.usb.common.EndpointInputStream;
+import net.codecrete.usb.common.EndpointOutputStream;
 import net.codecrete.usb.common.Transfer;
 import net.codecrete.usb.common.UsbDeviceImpl;
 import net.codecrete.usb.usbstandard.SetupPacket;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.util.HashMap;
@@ -52,10 +54,12 @@ import static windows.win32.devices.usb.Apis.WinUsb_SetPipePolicy;
 import static windows.win32.devices.usb.Apis.WinUsb_WritePipe;
 import static windows.win32.devices.usb.WINUSB_PIPE_POLICY.PIPE_TRANSFER_TIMEOUT;
 import static windows.win32.devices.usb.WINUSB_PIPE_POLICY.RAW_IO;
+import static windows.win32.foundation.Constants.STATUS_CANCELLED;
 import static windows.win32.foundation.GENERIC_ACCESS_RIGHTS.GENERIC_READ;
 import static windows.win32.foundation.GENERIC_ACCESS_RIGHTS.GENERIC_WRITE;
 import static windows.win32.foundation.WIN32_ERROR.ERROR_INVALID_PARAMETER;
 import static windows.win32.foundation.WIN32_ERROR.ERROR_IO_PENDING;
+import static windows.win32.foundation.WIN32_ERROR.ERROR_OPERATION_ABORTED;
 import static windows.win32.storage.filesystem.Apis.CreateFileW;
 import static windows.win32.storage.filesystem.FILE_CREATION_DISPOSITION.OPEN_EXISTING;
 import static windows.win32.storage.filesystem.FILE_FLAGS_AND_ATTRIBUTES.FILE_ATTRIBUTE_NORMAL;
@@ -348,46 +352,14 @@ public class WindowsUsbDevice extends UsbDeviceImpl {
         }
     }
 
-    @Override
-    public void transferOut(int endpointNumber, byte @NotNull [] data, int offset, int length, int timeout) {
-        // Auto arena: a transfer that times out may be abandoned (see UsbDeviceImpl.waitForTransfer),
-        // so the buffer must outlive a possible late completion instead of being freed deterministically.
-        var arena = Arena.ofAuto();
-        var buffer = arena.allocate(data.length);
-        buffer.copyFrom(MemorySegment.ofArray(data).asSlice(offset, length));
-        var transfer = createSyncTransfer(buffer);
-
-        synchronized (transfer) {
-            submitTransferOut(endpointNumber, transfer);
-            waitForTransfer(transfer, timeout, UsbDirection.OUT, endpointNumber);
-        }
-    }
-
-    @Override
-    public byte @NotNull [] transferIn(int endpointNumber, int timeout) {
-        var endpoint = getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, UsbTransferType.INTERRUPT);
-
-        // Auto arena: a transfer that times out may be abandoned (see UsbDeviceImpl.waitForTransfer),
-        // so the buffer must outlive a possible late completion instead of being freed deterministically.
-        var arena = Arena.ofAuto();
-        var buffer = arena.allocate(endpoint.packetSize());
-        var transfer = createSyncTransfer(buffer);
-
-        synchronized (transfer) {
-            submitTransferIn(endpointNumber, transfer);
-            waitForTransfer(transfer, timeout, UsbDirection.IN, endpointNumber);
-        }
-
-        return buffer.asSlice(0, transfer.resultSize()).toArray(JAVA_BYTE);
-    }
-
     private WindowsTransfer createSyncControlTransfer() {
         var transfer = new WindowsTransfer();
         transfer.setCompletion(UsbDeviceImpl::onSyncTransferCompleted);
         return transfer;
     }
 
-    private WindowsTransfer createSyncTransfer(MemorySegment data) {
+    @Override
+    protected Transfer createSyncTransfer(MemorySegment data) {
         var transfer = new WindowsTransfer();
         transfer.setData(data);
         transfer.setDataSize((int) data.byteSize());
@@ -395,16 +367,45 @@ public class WindowsUsbDevice extends UsbDeviceImpl {
         return transfer;
     }
 
+    @Override
+    protected void executeSyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer, int timeout) {
+        if (direction == UsbDirection.IN)
+            submitTransferIn(endpointNumber, (WindowsTransfer) transfer);
+        else
+            submitTransferOut(endpointNumber, (WindowsTransfer) transfer);
+        waitForTransfer(transfer, timeout, direction, endpointNumber);
+    }
+
     @Override
     protected Transfer createTransfer() {
         return new WindowsTransfer();
     }
 
+    @Override
+    protected void submitAsyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer) {
+        if (direction == UsbDirection.IN)
+            submitTransferIn(endpointNumber, (WindowsTransfer) transfer);
+        else
+            submitTransferOut(endpointNumber, (WindowsTransfer) transfer);
+    }
+
+    @Override
+    protected void configureForAsyncTransfers(UsbDirection direction, int endpointNumber) {
+        configureForAsyncIo(direction, endpointNumber);
+    }
+
     @Override
     protected void throwOSException(int errorCode, String message, Object... args) {
         throwException(errorCode, message, args);
     }
 
+    @Override
+    protected boolean isAbortedResult(int errorCode) {
+        // WinUsb_AbortPipe() completes transfers with STATUS_CANCELLED (NTSTATUS in OVERLAPPED.Internal),
+        // ERROR_OPERATION_ABORTED is used if the async task is stopped
+        return errorCode == STATUS_CANCELLED || errorCode == ERROR_OPERATION_ABORTED;
+    }
+
     synchronized void submitControlTransfer(UsbDirection direction, UsbControlTransfer setup, WindowsTransfer transfer) {
         checkIsOpen();
         var intfHandle = findControlTransferInterface(setup);
@@ -519,17 +520,29 @@ public class WindowsUsbDevice extends UsbDeviceImpl {
     }
 
     @Override
-    public synchronized @NotNull InputStream openInputStream(int endpointNumber, int bufferSize) {
+    public synchronized @NotNull UsbInputStream openInputStream(int endpointNumber, int bufferSize) {
+        return openInputStream(endpointNumber, bufferSize, null);
+    }
+
+    @Override
+    protected synchronized EndpointInputStream openInputStream(int endpointNumber, int bufferSize,
+                                                               UsbTransferType additionalTransferType) {
         // check that endpoint number is valid
-        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, null);
+        getEndpoint(UsbDirection.IN, endpointNumber, UsbTransferType.BULK, additionalTransferType);
 
         return new WindowsEndpointInputStream(this, endpointNumber, bufferSize);
     }
 
     @Override
-    public synchronized @NotNull OutputStream openOutputStream(int endpointNumber, int bufferSize) {
+    public synchronized @NotNull UsbOutputStream openOutputStream(int endpointNumber, int bufferSize) {
+        return openOutputStream(endpointNumber, bufferSize, null);
+    }
+
+    @Override
+    protected synchronized EndpointOutputStream openOutputStream(int endpointNumber, int bufferSize,
+                                                                 UsbTransferType additionalTransferType) {
         // check that endpoint number is valid
-        getEndpoint(UsbDirection.OUT, endpointNumber, UsbTransferType.BULK, null);
+        getEndpoint(UsbDirection.OUT, endpointNumber, UsbTransferType.BULK, additionalTransferType);
 
         return new WindowsEndpointOutputStream(this, endpointNumber, bufferSize);
     }
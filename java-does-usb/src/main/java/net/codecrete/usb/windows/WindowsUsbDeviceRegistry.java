@@ -10,7 +10,6 @@ package net.codecrete.usb.windows;
 import net.codecrete.usb.UsbDevice;
 import net.codecrete.usb.UsbException;
 import net.codecrete.usb.common.ScopeCleanup;
-import net.codecrete.usb.common.UsbDeviceImpl;
 import net.codecrete.usb.common.UsbDeviceRegistry;
 import net.codecrete.usb.usbstandard.ConfigurationDescriptor;
 import net.codecrete.usb.usbstandard.DeviceDescriptor;
@@ -29,7 +28,9 @@ import java.lang.foreign.MemorySegment;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import static java.lang.System.Logger.Level.INFO;
 import static java.lang.foreign.MemorySegment.NULL;
@@ -83,6 +84,9 @@ public class WindowsUsbDeviceRegistry extends UsbDeviceRegistry {
 
     private static final System.Logger LOG = System.getLogger(WindowsUsbDeviceRegistry.class.getName());
 
+    private static final Pattern DEVICE_PATH_IDS =
+            Pattern.compile("VID_([0-9A-F]{4})&PID_([0-9A-F]{4})", Pattern.CASE_INSENSITIVE);
+
     private static final long REQUEST_DATA_OFFSET
             = USB_DESCRIPTOR_REQUEST.layout().byteOffset(PathElement.groupElement("Data"));
 
@@ -161,8 +165,11 @@ public class WindowsUsbDeviceRegistry extends UsbDeviceRegistry {
                 var instanceId = deviceInfoSet.getStringProperty(DEVPKEY_Device_InstanceId());
                 var devicePath = DeviceInfoSet.getDevicePath(instanceId, GUID_DEVINTERFACE_USB_DEVICE());
 
+                if (!isOfInterest(devicePath))
+                    continue;
+
                 try {
-                    deviceList.add(createDeviceFromDeviceInfo(deviceInfoSet, devicePath, hubHandles));
+                    deviceList.add(reportEnumeratedDevice(createDeviceFromDeviceInfo(deviceInfoSet, devicePath, hubHandles)));
 
                 } catch (Exception e) {
                     LOG.log(INFO, String.format("failed to retrieve information about device %s - ignoring device", devicePath), e);
@@ -173,6 +180,24 @@ public class WindowsUsbDeviceRegistry extends UsbDeviceRegistry {
         }
     }
 
+    /**
+     * Checks if the device might be of interest based on the vendor and product ID in the device path.
+     * <p>
+     * The device path has the form {@code \\?\USB#VID_CAFE&PID_CEAF#...}. If the IDs cannot be
+     * extracted, the device is considered to be of interest.
+     * </p>
+     *
+     * @param devicePath the device path
+     * @return {@code true} if the device might be of interest, {@code false} if it can be ignored
+     */
+    private boolean isOfInterest(String devicePath) {
+        var matcher = DEVICE_PATH_IDS.matcher(devicePath);
+        if (!matcher.find())
+            return true;
+
+        return isOfInterest(Integer.parseInt(matcher.group(1), 16), Integer.parseInt(matcher.group(2), 16));
+    }
+
     private UsbDevice createDeviceFromDeviceInfo(DeviceInfoSet deviceInfoSet, String devicePath,
                                                  Map<String, MemorySegment> hubHandles) {
         try (var arena = Arena.ofConfined()) {
@@ -348,6 +373,9 @@ public class WindowsUsbDeviceRegistry extends UsbDeviceRegistry {
 
     @SuppressWarnings("java:S106")
     private void onDeviceConnected(String devicePath) {
+        if (!isOfInterest(devicePath))
+            return;
+
         try (var cleanup = new ScopeCleanup();
              var deviceInfoSet = DeviceInfoSet.ofPath(devicePath)) {
 
@@ -373,24 +401,17 @@ public class WindowsUsbDeviceRegistry extends UsbDeviceRegistry {
     }
 
     /**
-     * Finds the index of the device in the list.
+     * Normalizes the unique device ID.
      * <p>
-     * This override uses a case-insensitive string comparison as Windows uses different casing
+     * This override converts the ID to lower case as Windows uses different casing
      * when initially enumerating devices and during later monitoring.
      * </p>
      *
-     * @param deviceList the device list
-     * @param deviceId   the unique device ID
-     * @return index, or -1 if not found
+     * @param deviceId the unique device ID
+     * @return the normalized ID
      */
     @Override
-    protected int findDeviceIndex(List<UsbDevice> deviceList, Object deviceId) {
-        var id = deviceId.toString();
-        for (var i = 0; i < deviceList.size(); i++) {
-            var dev = (UsbDeviceImpl) deviceList.get(i);
-            if (id.equalsIgnoreCase(dev.getUniqueId().toString()))
-                return i;
-        }
-        return -1;
+    protected Object normalizeDeviceId(Object deviceId) {
+        return deviceId.toString().toLowerCase(Locale.ROOT);
     }
 }
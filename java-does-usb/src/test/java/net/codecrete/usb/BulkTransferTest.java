@@ -12,12 +12,14 @@ package net.codecrete.usb;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class BulkTransferTest extends TestDeviceBase {
 
@@ -52,6 +54,51 @@ class BulkTransferTest extends TestDeviceBase {
         assertEquals(0, data.length);
     }
 
+    @Test
+    void gatherAndScatter_succeeds() {
+        var packetSize = testDevice.getEndpoint(UsbDirection.IN, config.endpointLoopbackIn()).getPacketSize();
+        var header = ByteBuffer.wrap(generateRandomBytes(6, 44982371));
+        var payload = ByteBuffer.allocateDirect(40).put(generateRandomBytes(40, 8823411)).flip();
+        var crc = ByteBuffer.wrap(new byte[]{0x12, 0x34});
+        testDevice.transferOut(config.endpointLoopbackOut(), new ByteBuffer[]{header, payload, crc}, 0);
+        assertEquals(0, header.remaining() + payload.remaining() + crc.remaining());
+
+        var receivedHeader = ByteBuffer.allocate(6);
+        var receivedPayload = ByteBuffer.allocateDirect(40);
+        var rest = ByteBuffer.allocate(packetSize - 46);
+        var n = testDevice.transferIn(config.endpointLoopbackIn(),
+                new ByteBuffer[]{receivedHeader, receivedPayload, rest}, 0);
+        assertEquals(48, n);
+        assertEquals(header.flip(), receivedHeader.flip());
+        assertEquals(payload.flip(), receivedPayload.flip());
+        assertEquals(crc.flip(), rest.flip());
+    }
+
+    @Test
+    void emptyGatherAndScatter_doNotTransfer() {
+        var empty = ByteBuffer.allocate(10).position(10);
+        testDevice.transferOut(config.endpointLoopbackOut(), new ByteBuffer[]{empty, ByteBuffer.allocate(0)}, 0);
+        testDevice.transferOut(config.endpointLoopbackOut(), new ByteBuffer[0], 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> testDevice.transferIn(config.endpointLoopbackIn(), new ByteBuffer[]{empty}, 0));
+
+        // no ZLP has been sent
+        var sampleData = generateRandomBytes(12, 7623411);
+        writeBytes(sampleData);
+        assertArrayEquals(sampleData, testDevice.transferIn(config.endpointLoopbackIn()));
+    }
+
+    @Test
+    void invalidOffset_throwsWithoutLeakingBuffer() {
+        var inUseBytes = Usb.getBufferPoolStatistics().inUseBytes();
+        var data = new byte[20];
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> testDevice.transferOut(config.endpointLoopbackOut(), data, 10, 20, 0));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> testDevice.transferOut(config.endpointLoopbackOut(), data, -1, 5, 0));
+        assertEquals(inUseBytes, Usb.getBufferPoolStatistics().inUseBytes());
+    }
+
     @Test
     void largeTransfer_succeeds() throws Throwable {
         final var numBytes = 230763;
@@ -0,0 +1,144 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for bulk transfer with channels
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChannelTest extends TestDeviceBase {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void blockingChannels_roundTrip() {
+        final var numBytes = 12345;
+        var sampleData = generateRandomBytes(numBytes, 8873423L);
+
+        var writer = CompletableFuture.runAsync(() -> {
+            try (var channel = testDevice.openWritableChannel(config.endpointLoopbackOut(), 2000)) {
+                var buffer = ByteBuffer.wrap(sampleData);
+                while (buffer.hasRemaining()) {
+                    // write in uneven chunks
+                    var chunk = buffer.slice(buffer.position(), Math.min(777, buffer.remaining()));
+                    buffer.position(buffer.position() + channel.write(chunk));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        var reader = CompletableFuture.supplyAsync(() -> {
+            var buffer = ByteBuffer.allocateDirect(numBytes);
+            try (var channel = testDevice.openReadableChannel(config.endpointLoopbackIn(), 2000)) {
+                while (buffer.hasRemaining())
+                    assertThat(channel.read(buffer)).isPositive();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            var data = new byte[numBytes];
+            buffer.flip().get(data);
+            return data;
+        });
+
+        CompletableFuture.allOf(writer, reader).join();
+        assertArrayEquals(sampleData, reader.resultNow());
+    }
+
+    @Test
+    void closedChannel_throws() throws IOException {
+        var channel = testDevice.openWritableChannel(config.endpointLoopbackOut(), 1000);
+        assertThat(channel.isOpen()).isTrue();
+        channel.close();
+        assertThat(channel.isOpen()).isFalse();
+        assertThrows(ClosedChannelException.class, () -> channel.write(ByteBuffer.allocate(10)));
+    }
+
+    @Test
+    void haltedEndpoint_failsWritableChannel() throws IOException {
+        var endpointOut = config.endpointLoopbackOut();
+        StallTest.haltEndpoint(UsbDirection.OUT, endpointOut);
+        try {
+            var channel = testDevice.openWritableChannel(endpointOut, 1000);
+            // the failure is either reported by write() or by close() when the data is flushed
+            assertThrows(IOException.class, () -> {
+                channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}));
+                channel.close();
+            });
+            channel.close();
+            assertThat(channel.isOpen()).isFalse();
+
+        } finally {
+            testDevice.clearHalt(UsbDirection.OUT, endpointOut);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void asynchronousChannels_roundTrip() throws ExecutionException, InterruptedException, IOException {
+        var sampleData = generateRandomBytes(150, 1209834L);
+
+        try (var outChannel = testDevice.openAsynchronousChannel(UsbDirection.OUT, config.endpointLoopbackOut());
+             var inChannel = testDevice.openAsynchronousChannel(UsbDirection.IN, config.endpointLoopbackIn())) {
+
+            // direct buffer is used as the transfer buffer, heap buffer is copied
+            var received = ByteBuffer.allocateDirect(1024);
+            var readResult = inChannel.read(received);
+            assertThat(outChannel.write(ByteBuffer.wrap(sampleData)).get()).isEqualTo(sampleData.length);
+
+            var numBytes = readResult.get();
+            while (numBytes < sampleData.length)
+                numBytes += inChannel.read(received).get();
+
+            var data = new byte[sampleData.length];
+            received.flip().get(data);
+            assertArrayEquals(sampleData, data);
+        }
+    }
+
+    @Test
+    void asynchronousChannel_rejectsWrongDirection() throws IOException {
+        try (var inChannel = testDevice.openAsynchronousChannel(UsbDirection.IN, config.endpointLoopbackIn())) {
+            var buffer = ByteBuffer.allocate(10);
+            assertThrows(NonWritableChannelException.class, () -> inChannel.write(buffer));
+        }
+    }
+
+    @Test
+    void asynchronousChannel_emptyBuffer_readsNothing() throws IOException, ExecutionException,
+            InterruptedException {
+        try (var inChannel = testDevice.openAsynchronousChannel(UsbDirection.IN, config.endpointLoopbackIn())) {
+            // no transfer has been run yet
+            assertThat(inChannel.read(ByteBuffer.allocate(0)).get()).isZero();
+            assertThat(inChannel.read(ByteBuffer.allocateDirect(10).position(10)).get()).isZero();
+        }
+    }
+
+    @Test
+    void closedAsynchronousChannel_failsPendingRead() throws IOException {
+        var inChannel = testDevice.openAsynchronousChannel(UsbDirection.IN, config.endpointLoopbackIn());
+        var readResult = inChannel.read(ByteBuffer.allocateDirect(512));
+        inChannel.close();
+
+        var exception = assertThrows(ExecutionException.class, () -> readResult.get(2, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(AsynchronousCloseException.class);
+    }
+}
@@ -0,0 +1,78 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for primitive value encoding and decoding
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataStreamTest extends TestDeviceBase {
+
+    @Test
+    void littleEndianValues_areDecoded() throws IOException {
+        var random = new Random(3423890L);
+        var samples = new short[50_001];
+        for (var i = 0; i < samples.length; i++)
+            samples[i] = (short) random.nextInt();
+
+        // encode manually, with a leading byte so the values span transfers
+        var data = ByteBuffer.allocate(1 + 2 * samples.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+        data.put((byte) 0x5a);
+        for (var sample : samples)
+            data.putShort(sample);
+        data.putDouble(Math.PI);
+        var writer = CompletableFuture.runAsync(() -> StreamTest.writeBytes(data.array(), 999));
+
+        try (var is = testDevice.openInputStream(config.endpointLoopbackIn())) {
+            var input = is.asDataInput(ByteOrder.LITTLE_ENDIAN);
+            assertEquals((byte) 0x5a, input.readByte());
+            var received = new short[samples.length];
+            input.readShorts(received, 0, received.length);
+            assertArrayEquals(samples, received);
+            assertEquals(Math.PI, input.readDouble());
+        }
+
+        writer.join();
+    }
+
+    @Test
+    void bigEndianValues_roundTrip() throws IOException {
+        var values = new int[30_001];
+        for (var i = 0; i < values.length; i++)
+            values[i] = i * 0x01020305;
+
+        var writer = CompletableFuture.runAsync(() -> {
+            try (var os = testDevice.openOutputStream(config.endpointLoopbackOut())) {
+                var output = os.asDataOutput(ByteOrder.BIG_ENDIAN);
+                output.writeShort((short) 0x1234);
+                output.writeInts(values, 0, values.length);
+                output.writeLong(-2L);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        var expected = ByteBuffer.allocate(2 + 4 * values.length + 8);
+        expected.putShort((short) 0x1234);
+        for (var value : values)
+            expected.putInt(value);
+        expected.putLong(-2L);
+        assertArrayEquals(expected.array(), StreamTest.readBytes(expected.capacity()));
+
+        writer.join();
+    }
+}
@@ -11,6 +11,8 @@ package net.codecrete.usb;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class DeviceEnumerationTest extends TestDeviceBase {
@@ -46,4 +48,55 @@ class DeviceEnumerationTest extends TestDeviceBase {
         assertThat(device.get().getProductId()).isEqualTo(config.pid());
         assertThat(device.get().getVendorId()).isEqualTo(config.vid());
     }
+
+    @Test
+    void findDevicesVidPid_includesLoopback() {
+        var deviceList = Usb.findDevices(config.vid(), config.pid());
+        assertThat(deviceList).contains(testDevice);
+        assertThat(Usb.findDevices(config.vid(), config.pid() ^ 0xffff)).doesNotContain(testDevice);
+    }
+
+    @Test
+    void findDeviceBySerialNumber_returnsLoopback() {
+        var serialNumber = testDevice.getSerialNumber();
+        assertThat(serialNumber).isNotNull();
+        assertThat(Usb.findDeviceBySerialNumber(serialNumber)).contains(testDevice);
+    }
+
+    @Test
+    void initAsync_afterInitialization_returnsDevices() {
+        var future = Usb.initAsync();
+        assertThat(future).isCompleted();
+        assertThat(future.join()).contains(testDevice);
+    }
+
+    @Test
+    void initAsync_completedByCaller_doesNotAffectEnumeration() {
+        var future = Usb.initAsync();
+        future.obtrudeValue(List.of());
+        assertThat(Usb.initAsync().join()).contains(testDevice);
+    }
+
+    @Test
+    void getDeviceChangesSince_currentVersion_returnsNoChanges() {
+        var version = Usb.getDeviceListVersion();
+        var changes = Usb.getDeviceChangesSince(version);
+        assertThat(changes).isPresent();
+        assertThat(changes.get().version()).isGreaterThanOrEqualTo(version);
+        if (changes.get().version() == version) {
+            assertThat(changes.get().added()).isEmpty();
+            assertThat(changes.get().removed()).isEmpty();
+        }
+    }
+
+    @Test
+    void awaitDeviceChange_noChange_timesOut() throws InterruptedException {
+        var version = Usb.getDeviceListVersion();
+        var start = System.nanoTime();
+        var newVersion = Usb.awaitDeviceChange(version, 100);
+        if (newVersion == version)
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(90_000_000L);
+        else
+            assertThat(newVersion).isGreaterThan(version);
+    }
 }
@@ -0,0 +1,224 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for reactive publisher and subscriber
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FlowTest extends TestDeviceBase {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void publisher_deliversData() {
+        var sampleData = generateRandomBytes(3000, 2309823L);
+        var publisher = testDevice.openPublisher(config.endpointLoopbackIn(), 1024);
+        var subscriber = new CollectingSubscriber(sampleData.length, Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        StreamTest.writeBytes(sampleData, 500);
+
+        assertArrayEquals(sampleData, subscriber.result.join());
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void publisher_honorsDemand() {
+        var sampleData = generateRandomBytes(3000, 98734534L);
+        var publisher = testDevice.openPublisher(config.endpointLoopbackIn(), 1024);
+        // request a single item at a time
+        var subscriber = new CollectingSubscriber(sampleData.length, 1);
+        publisher.subscribe(subscriber);
+
+        StreamTest.writeBytes(sampleData, 500);
+
+        assertArrayEquals(sampleData, subscriber.result.join());
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void secondSubscriber_fails() {
+        var publisher = testDevice.openPublisher(config.endpointLoopbackIn(), 1024);
+        var subscriber1 = new CollectingSubscriber(1, 1);
+        publisher.subscribe(subscriber1);
+        var subscriber2 = new CollectingSubscriber(1, 1);
+        publisher.subscribe(subscriber2);
+
+        var exception = assertThrows(CompletionException.class, () -> subscriber2.result.join());
+        assertThat(exception.getCause()).isInstanceOf(IllegalStateException.class);
+
+        subscriber1.subscribed.join().cancel();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void invalidRequest_fails() {
+        var publisher = testDevice.openPublisher(config.endpointLoopbackIn(), 1024);
+        var subscriber = new CollectingSubscriber(1, 0);
+        publisher.subscribe(subscriber);
+
+        var exception = assertThrows(CompletionException.class, () -> subscriber.result.join());
+        assertThat(exception.getCause()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void haltedEndpoint_failsPublisher() {
+        var endpointIn = config.endpointLoopbackIn();
+        StallTest.haltEndpoint(UsbDirection.IN, endpointIn);
+        try {
+            var publisher = testDevice.openPublisher(endpointIn, 1024);
+            var subscriber = new CollectingSubscriber(1, Long.MAX_VALUE);
+            publisher.subscribe(subscriber);
+
+            var exception = assertThrows(CompletionException.class, () -> subscriber.result.join());
+            assertThat(exception.getCause()).isInstanceOf(IOException.class);
+
+        } finally {
+            testDevice.clearHalt(UsbDirection.IN, endpointIn);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void subscriber_sendsData() {
+        var sampleData = generateRandomBytes(5000, 7263423L);
+        var subscriber = testDevice.openSubscriber(config.endpointLoopbackOut(), 1024);
+
+        var reader = CompletableFuture.supplyAsync(() -> StreamTest.readBytes(sampleData.length));
+
+        try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(subscriber);
+            for (var offset = 0; offset < sampleData.length; offset += 700)
+                publisher.submit(ByteBuffer.wrap(sampleData, offset, Math.min(700, sampleData.length - offset)));
+        }
+
+        subscriber.completion().join();
+        assertArrayEquals(sampleData, reader.join());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void subscriber_sendsFullPacketsAndEmptyItems() {
+        var packetSize = testDevice.getEndpoint(UsbDirection.OUT, config.endpointLoopbackOut()).getPacketSize();
+        var sampleData = generateRandomBytes(3 * packetSize, 3498234L);
+        var subscriber = testDevice.openSubscriber(config.endpointLoopbackOut(), 1024);
+
+        var reader = CompletableFuture.supplyAsync(() -> StreamTest.readBytes(sampleData.length));
+
+        // items of full packets form a continuous stream, empty items are skipped
+        try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(subscriber);
+            publisher.submit(ByteBuffer.allocate(0));
+            for (var offset = 0; offset < sampleData.length; offset += packetSize) {
+                publisher.submit(ByteBuffer.wrap(sampleData, offset, packetSize));
+                publisher.submit(ByteBuffer.allocate(0));
+            }
+        }
+
+        subscriber.completion().join();
+        assertArrayEquals(sampleData, reader.join());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void publisherError_failsSubscriber() {
+        var subscriber = testDevice.openSubscriber(config.endpointLoopbackOut(), 1024);
+        var failure = new IllegalStateException("test");
+
+        try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(subscriber);
+            publisher.closeExceptionally(failure);
+        }
+
+        var exception = assertThrows(CompletionException.class, () -> subscriber.completion().join());
+        assertThat(exception.getCause()).isSameAs(failure);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void haltedEndpoint_failsSubscriber() {
+        var endpointOut = config.endpointLoopbackOut();
+        StallTest.haltEndpoint(UsbDirection.OUT, endpointOut);
+        try {
+            var subscriber = testDevice.openSubscriber(endpointOut, 1024);
+            try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+                publisher.subscribe(subscriber);
+                publisher.submit(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}));
+            }
+
+            assertThrows(CompletionException.class, () -> subscriber.completion().join());
+
+        } finally {
+            testDevice.clearHalt(UsbDirection.OUT, endpointOut);
+        }
+    }
+
+    /**
+     * Subscriber collecting the received data until the expected number of bytes has been received.
+     */
+    static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        final CompletableFuture<Flow.Subscription> subscribed = new CompletableFuture<>();
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        final int expectedLength;
+        final long requestSize;
+        Flow.Subscription subscription;
+
+        CollectingSubscriber(int expectedLength, long requestSize) {
+            this.expectedLength = expectedLength;
+            this.requestSize = requestSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscribed.complete(subscription);
+            subscription.request(requestSize);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            // the buffer is only valid during the call
+            var bytes = new byte[item.remaining()];
+            item.get(bytes);
+            data.write(bytes, 0, bytes.length);
+
+            if (data.size() >= expectedLength)
+                result.complete(data.toByteArray());
+            else if (requestSize != Long.MAX_VALUE)
+                subscription.request(requestSize);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(data.toByteArray());
+        }
+    }
+}
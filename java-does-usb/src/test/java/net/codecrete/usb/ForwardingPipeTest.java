@@ -0,0 +1,47 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for forwarding pipes
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ForwardingPipeTest extends TestDeviceBase {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void echoToLoopback_isForwarded() {
+        Assumptions.assumeTrue(isLoopbackDevice(),
+                "Interrupt transfer only supported by loopback test device");
+
+        var sampleData = generateRandomBytes(12, 7729113L);
+
+        try (var pipe = testDevice.openForwardingPipe(config.endpointEchoIn(), testDevice,
+                config.endpointLoopbackOut(), 1024)) {
+
+            // the echo is sent twice and forwarded to the loopback endpoints
+            testDevice.transferOut(config.endpointEchoOut(), sampleData);
+            var received = StreamTest.readBytes(2 * sampleData.length);
+
+            var expected = new byte[2 * sampleData.length];
+            System.arraycopy(sampleData, 0, expected, 0, sampleData.length);
+            System.arraycopy(sampleData, 0, expected, sampleData.length, sampleData.length);
+            assertArrayEquals(expected, received);
+
+            pipe.close();
+            assertEquals(2L * sampleData.length, pipe.completion().join());
+        }
+    }
+}
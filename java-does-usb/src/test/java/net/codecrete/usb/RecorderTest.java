@@ -0,0 +1,82 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for endpoint recorder
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecorderTest extends TestDeviceBase {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void loopback_isRecorded() throws IOException {
+        var sampleData = generateRandomBytes(200_000, 8234098123L);
+        var path = tempDir.resolve("recording.bin");
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             var recorder = testDevice.startRecording(config.endpointLoopbackIn(), channel, 20_000,
+                     sampleData.length)) {
+
+            var writer = CompletableFuture.runAsync(() -> {
+                var offset = 0;
+                while (offset < sampleData.length) {
+                    var n = Math.min(sampleData.length - offset, 5000);
+                    testDevice.transferOut(config.endpointLoopbackOut(), sampleData, offset, n, 0);
+                    offset += n;
+                }
+            });
+
+            assertEquals(sampleData.length, recorder.completion().join());
+            writer.join();
+            assertEquals(0, recorder.droppedLength());
+        }
+
+        assertArrayEquals(sampleData, Files.readAllBytes(path));
+    }
+
+    @Test
+    void closeWithoutData_succeeds() throws IOException {
+        var path = tempDir.resolve("empty.bin");
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var recorder = testDevice.startRecording(config.endpointLoopbackIn(), channel, 20_000, Long.MAX_VALUE);
+            recorder.close();
+            assertEquals(0, recorder.completion().join());
+        }
+
+        assertEquals(0, Files.size(path));
+    }
+
+    @Test
+    void invalidEndpoint_throws() throws IOException {
+        var path = tempDir.resolve("invalid.bin");
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var endpointOut = config.endpointLoopbackOut();
+            assertThrows(UsbException.class, () -> testDevice.startRecording(endpointOut, channel, 20_000, 1000));
+        }
+    }
+}
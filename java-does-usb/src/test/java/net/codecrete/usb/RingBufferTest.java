@@ -0,0 +1,71 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for ring buffers
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest extends TestDeviceBase {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void loopbackWithShortTransfers_isContiguous() {
+        var sampleData = generateRandomBytes(100_000, 2389127734L);
+        var recordSize = 1000;
+
+        try (var ringBuffer = testDevice.openRingBuffer(config.endpointLoopbackIn(), 4000)) {
+
+            // odd chunk sizes result in short transfers
+            var writer = CompletableFuture.runAsync(() -> {
+                var offset = 0;
+                while (offset < sampleData.length) {
+                    var n = Math.min(sampleData.length - offset, 777);
+                    testDevice.transferOut(config.endpointLoopbackOut(), sampleData, offset, n, 0);
+                    offset += n;
+                }
+            });
+
+            // read records that straddle transfers
+            var received = new byte[sampleData.length];
+            var offset = 0;
+            while (offset < received.length) {
+                var window = ringBuffer.awaitWindow(recordSize, 0);
+                assertTrue(window.byteSize() <= ringBuffer.capacity());
+                var n = (int) Math.min(window.byteSize(), received.length - offset);
+                n -= n % recordSize;
+                MemorySegment.copy(window, JAVA_BYTE, 0, received, offset, n);
+                ringBuffer.consume(n);
+                offset += n;
+            }
+
+            writer.join();
+            assertArrayEquals(sampleData, received);
+        }
+    }
+
+    @Test
+    void tooLargeWindow_fails() {
+        try (var ringBuffer = testDevice.openRingBuffer(config.endpointLoopbackIn(), 1000)) {
+            assertEquals(1000, ringBuffer.capacity());
+            assertEquals(0, ringBuffer.window().byteSize());
+            assertThrows(IllegalArgumentException.class, () -> ringBuffer.awaitWindow(1001, 100));
+        }
+    }
+}
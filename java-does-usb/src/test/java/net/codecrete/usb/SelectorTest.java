@@ -0,0 +1,164 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for selector
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SelectorTest extends TestDeviceBase {
+
+    @Test
+    void emptySelector_selectsNothing() {
+        try (var selector = Usb.openSelector()) {
+            assertThat(selector.selectNow()).isZero();
+            assertThat(selector.select(50)).isZero();
+            assertThat(selector.selectedKeys()).isEmpty();
+        }
+    }
+
+    @Test
+    void bulkRoundTrip_succeeds() throws IOException {
+        var sampleData = generateRandomBytes(5000, 2380923423L);
+
+        try (var selector = Usb.openSelector()) {
+            var outKey = selector.register(testDevice, UsbDirection.OUT, config.endpointLoopbackOut(), 1024);
+            var inKey = selector.register(testDevice, UsbDirection.IN, config.endpointLoopbackIn(), 1024);
+
+            var received = new ByteArrayOutputStream();
+            var buffer = new byte[1000];
+            int writeOffset = 0;
+            boolean isFlushed = false;
+
+            while (received.size() < sampleData.length) {
+                assertThat(selector.select(2000)).isPositive();
+
+                for (var key : selector.selectedKeys()) {
+                    if (key == outKey && key.isWritable()) {
+                        if (writeOffset < sampleData.length) {
+                            writeOffset += key.write(sampleData, writeOffset, sampleData.length - writeOffset);
+                        } else if (!isFlushed) {
+                            isFlushed = key.flush();
+                            // nothing left to write: wait for IN data only
+                            if (isFlushed)
+                                key.interestOps(0);
+                        }
+
+                    } else if (key == inKey && key.isReadable()) {
+                        int n = key.read(buffer, 0, buffer.length);
+                        received.write(buffer, 0, n);
+                    }
+                }
+            }
+
+            assertArrayEquals(sampleData, received.toByteArray());
+        }
+    }
+
+    @Test
+    void interruptEndpoint_isSelectable() throws IOException {
+        Assumptions.assumeTrue(isLoopbackDevice(),
+                "Interrupt transfer only supported by loopback test device");
+
+        var sampleData = generateRandomBytes(12, 9873423);
+
+        try (var selector = Usb.openSelector()) {
+            var inKey = selector.register(testDevice, UsbDirection.IN, config.endpointEchoIn(), 64);
+            assertThat(selector.selectNow()).isZero();
+
+            testDevice.transferOut(config.endpointEchoOut(), sampleData);
+
+            // the device sends the data back twice
+            var received = new ByteArrayOutputStream();
+            var buffer = new byte[64];
+            while (received.size() < 2 * sampleData.length) {
+                assertThat(selector.select(2000)).isPositive();
+                assertThat(selector.selectedKeys()).containsExactly(inKey);
+                int n = inKey.read(buffer, 0, buffer.length);
+                received.write(buffer, 0, n);
+            }
+
+            var bytes = received.toByteArray();
+            assertArrayEquals(sampleData, Arrays.copyOfRange(bytes, 0, sampleData.length));
+            assertArrayEquals(sampleData, Arrays.copyOfRange(bytes, sampleData.length, bytes.length));
+        }
+    }
+
+    @Test
+    void outKey_isImmediatelySelected() {
+        try (var selector = Usb.openSelector()) {
+            var outKey = selector.register(testDevice, UsbDirection.OUT, config.endpointLoopbackOut(), 1024);
+            assertThat(selector.selectNow()).isEqualTo(1);
+            assertThat(selector.selectedKeys()).containsExactly(outKey);
+            outKey.cancel();
+            assertThat(selector.selectNow()).isZero();
+        }
+    }
+
+    @Test
+    void idleOutKeyWithoutWriteInterest_blocks() {
+        try (var selector = Usb.openSelector()) {
+            var outKey = selector.register(testDevice, UsbDirection.OUT, config.endpointLoopbackOut(), 1024, 0);
+            selector.register(testDevice, UsbDirection.IN, config.endpointLoopbackIn(), 1024);
+            assertThat(outKey.interestOps()).isZero();
+            assertThat(outKey.isWritable()).isTrue();
+
+            var start = System.nanoTime();
+            assertThat(selector.select(200)).isZero();
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+
+            outKey.interestOps(UsbSelectionKey.OP_WRITE);
+            assertThat(selector.selectNow()).isEqualTo(1);
+            assertThat(selector.selectedKeys()).containsExactly(outKey);
+
+            // the previously selected key is no longer ready once the interest is removed
+            outKey.interestOps(0);
+            assertThat(selector.selectNow()).isZero();
+        }
+    }
+
+    @Test
+    void invalidInterestOps_throws() {
+        try (var selector = Usb.openSelector()) {
+            assertThrows(IllegalArgumentException.class, () -> selector.register(testDevice, UsbDirection.IN,
+                    config.endpointLoopbackIn(), 1024, UsbSelectionKey.OP_WRITE));
+            var outKey = selector.register(testDevice, UsbDirection.OUT, config.endpointLoopbackOut(), 1024);
+            assertThrows(IllegalArgumentException.class, () -> outKey.interestOps(UsbSelectionKey.OP_READ));
+            assertThat(outKey.interestOps()).isEqualTo(UsbSelectionKey.OP_WRITE);
+        }
+    }
+
+    @Test
+    void closedSelector_cancelsKeys() {
+        var selector = Usb.openSelector();
+        var inKey = selector.register(testDevice, UsbDirection.IN, config.endpointLoopbackIn(), 1024);
+        selector.close();
+
+        assertThat(selector.isOpen()).isFalse();
+        assertThat(inKey.isValid()).isFalse();
+        assertThrows(IOException.class, () -> inKey.read(new byte[10], 0, 10));
+    }
+
+    @Test
+    void invalidEndpoint_throws() {
+        try (var selector = Usb.openSelector()) {
+            assertThrows(UsbException.class,
+                    () -> selector.register(testDevice, UsbDirection.IN, config.endpointLoopbackOut(), 1024));
+        }
+    }
+}
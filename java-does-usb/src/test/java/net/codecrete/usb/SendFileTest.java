@@ -0,0 +1,58 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for sending memory-mapped files
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendFileTest extends TestDeviceBase {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void largeFile_isSent() throws IOException {
+        var sampleData = generateRandomBytes(230_763, 1299823467L);
+        var path = tempDir.resolve("data.bin");
+        Files.write(path, sampleData);
+
+        var reader = CompletableFuture.supplyAsync(() -> StreamTest.readBytes(sampleData.length));
+
+        var progress = new ArrayList<Long>();
+        testDevice.sendFile(config.endpointLoopbackOut(), path, 4, 16_384, progress::add);
+
+        assertArrayEquals(sampleData, reader.join());
+        assertEquals(sampleData.length, progress.getLast());
+        for (var i = 1; i < progress.size(); i++)
+            assertTrue(progress.get(i) > progress.get(i - 1));
+    }
+
+    @Test
+    void missingFile_throws() {
+        var path = tempDir.resolve("missing.bin");
+        var endpointOut = config.endpointLoopbackOut();
+        assertThrows(NoSuchFileException.class, () -> testDevice.sendFile(endpointOut, path, 4, 16_384, null));
+    }
+}
@@ -11,7 +11,11 @@ package net.codecrete.usb;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class StallTest extends TestDeviceBase {
@@ -48,6 +52,24 @@ class StallTest extends TestDeviceBase {
         assertArrayEquals(data, receivedData);
     }
 
+    @Test
+    void stalledInputStream_recovers() throws IOException {
+        var endpointIn = config.endpointLoopbackIn();
+        var endpointOut = config.endpointLoopbackOut();
+        var numStalls = new AtomicInteger();
+
+        try (var is = testDevice.openInputStream(endpointIn)) {
+            is.setStallRecoveryListener(_ -> numStalls.incrementAndGet());
+            haltEndpoint(UsbDirection.IN, endpointIn);
+
+            var data = new byte[]{3, 1, 4, 1, 5, 9, 2, 6};
+            testDevice.transferOut(endpointOut, data);
+            var receivedData = is.readNBytes(data.length);
+            assertArrayEquals(data, receivedData);
+            assertEquals(1, numStalls.get());
+        }
+    }
+
     @Test
     void invalidControlTransfer_throws() {
         var request = new UsbControlTransfer(UsbRequestType.VENDOR, UsbRecipient.INTERFACE, (byte) 0x08,
@@ -55,7 +77,7 @@ class StallTest extends TestDeviceBase {
         assertThrows(UsbStallException.class, () -> testDevice.controlTransferIn(request, 2));
     }
 
-    void haltEndpoint(UsbDirection direction, int endpointNumber) {
+    static void haltEndpoint(UsbDirection direction, int endpointNumber) {
         final var SET_FEATURE = 0x03;
         final var ENDPOINT_HALT = 0x00;
         var endpointAddress = (direction == UsbDirection.IN ? 0x80 : 0x00) | endpointNumber;
@@ -11,8 +11,10 @@ package net.codecrete.usb;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
@@ -21,6 +23,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class StreamTest extends TestDeviceBase {
@@ -81,6 +84,50 @@ class StreamTest extends TestDeviceBase {
         assertArrayEquals(sampleData, reader.resultNow());
     }
 
+    @Test
+    void transferTo_endsWithTimeout() throws IOException {
+        final var numBytes = 23076;
+        var sampleData = generateRandomBytes(numBytes, 8812309467L);
+        var writer = CompletableFuture.runAsync(() -> writeBytes(sampleData, 1000));
+
+        var received = new ByteArrayOutputStream();
+        try (var is = testDevice.openInputStream(config.endpointLoopbackIn())) {
+            is.setReadTimeout(200);
+            assertThrows(InterruptedIOException.class, () -> is.transferTo(received));
+        }
+
+        writer.join();
+        assertArrayEquals(sampleData, received.toByteArray());
+    }
+
+    @Test
+    void idleStreamWithPrefetchTimeout_receivesAllData() throws IOException {
+        final var numBytes = 23076;
+        var sampleData = generateRandomBytes(numBytes, 6201938457L);
+        var received = new byte[numBytes];
+
+        try (var is = testDevice.openInputStream(config.endpointLoopbackIn())) {
+            is.setPrefetchIdleTimeout(50);
+
+            // data arrives after the stream has been idle for longer than the timeout
+            var writer = CompletableFuture.runAsync(() -> {
+                sleep(300);
+                writeBytes(sampleData, 150);
+            });
+
+            var bytesRead = 0;
+            while (bytesRead < numBytes) {
+                var n = is.read(received, bytesRead, numBytes - bytesRead);
+                assertTrue(n > 0);
+                bytesRead += n;
+            }
+
+            writer.join();
+        }
+
+        assertArrayEquals(sampleData, received);
+    }
+
     @Test
     @SuppressWarnings({"java:S2925", "BusyWait"})
     void blockedWriter_canBeAborted() throws InterruptedException {
@@ -180,6 +227,47 @@ class StreamTest extends TestDeviceBase {
         }
     }
 
+    @Test
+    void coalescingDelay_submitsBufferedData() throws IOException {
+        var sampleData = generateRandomBytes(100, 4409823L);
+
+        try (var os = testDevice.openOutputStream(config.endpointLoopbackOut())) {
+            os.setCoalescingDelay(20);
+
+            // small writes without flush are combined and submitted by the timer
+            for (var i = 0; i < sampleData.length; i += 10)
+                os.write(sampleData, i, 10);
+
+            var data = readBytes(sampleData.length);
+            assertArrayEquals(sampleData, data);
+        }
+    }
+
+    @Test
+    void coalescingDelayError_failsNextWrite() throws IOException {
+        var endpointOut = config.endpointLoopbackOut();
+        var data = new byte[]{1, 2, 3, 4};
+        StallTest.haltEndpoint(UsbDirection.OUT, endpointOut);
+
+        try (var os = testDevice.openOutputStream(endpointOut, 1000)) {
+            os.setCoalescingDelay(10);
+
+            // The failure is detected when the timer reuses the failed transfer.
+            // It is reported (and the stream closed) by the next write operation.
+            var exception = assertThrows(IOException.class, () -> {
+                for (var i = 0; i < 10; i++) {
+                    os.write(data);
+                    sleep(100);
+                }
+            });
+            assertInstanceOf(UsbStallException.class, exception.getCause().getCause());
+            assertThrows(IOException.class, () -> os.write(data));
+
+        } finally {
+            testDevice.clearHalt(UsbDirection.OUT, endpointOut);
+        }
+    }
+
     static void writeBytes(byte[] data, int chunkSize) {
         try (var os = testDevice.openOutputStream(config.endpointLoopbackOut())) {
             var numBytes = 0;
@@ -13,9 +13,13 @@ import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TimeoutTest extends TestDeviceBase {
@@ -86,4 +90,28 @@ class TimeoutTest extends TestDeviceBase {
         echo = testDevice.transferIn(config.endpointEchoIn(), 200);
         assertArrayEquals(sampleData, echo);
     }
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.SECONDS)
+    void streamRead_timesOutAndRemainsUsable() throws IOException {
+        try (var inputStream = testDevice.openInputStream(config.endpointLoopbackIn())) {
+            inputStream.setReadTimeout(200);
+            var buffer = new byte[100];
+            assertThrows(InterruptedIOException.class, () -> inputStream.read(buffer));
+
+            var data = generateRandomBytes(20, 2837492873L);
+            testDevice.transferOut(config.endpointLoopbackOut(), data);
+
+            var n = inputStream.read(buffer);
+            assertArrayEquals(data, Arrays.copyOf(buffer, n));
+        }
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.SECONDS)
+    void streamTryRead_returnsImmediately() throws IOException {
+        try (var inputStream = testDevice.openInputStream(config.endpointLoopbackIn())) {
+            assertEquals(0, inputStream.tryRead(new byte[100], 0, 100));
+        }
+    }
 }
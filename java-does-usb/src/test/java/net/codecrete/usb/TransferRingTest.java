@@ -0,0 +1,75 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for transfer rings
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferRingTest extends TestDeviceBase {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void loopbackTransfer_succeeds() {
+        var packetSize = testDevice.getEndpoint(UsbDirection.IN, config.endpointLoopbackIn()).getPacketSize();
+        var transferSize = 8 * packetSize;
+        var sampleData = generateRandomBytes(50_000, 7364892233L);
+
+        try (var inRing = testDevice.openTransferRing(UsbDirection.IN, config.endpointLoopbackIn(), 4, transferSize);
+             var outRing = testDevice.openTransferRing(UsbDirection.OUT, config.endpointLoopbackOut(), 4, transferSize)) {
+
+            var writer = CompletableFuture.runAsync(() -> {
+                var offset = 0;
+                while (offset < sampleData.length) {
+                    var seq = outRing.awaitCompletion(0);
+                    assertEquals(0, outRing.status(seq));
+                    var n = Math.min(sampleData.length - offset, transferSize);
+                    MemorySegment.copy(sampleData, offset, outRing.buffer(seq), JAVA_BYTE, 0, n);
+                    outRing.submit(seq, n);
+                    offset += n;
+                }
+            });
+
+            var received = new byte[sampleData.length];
+            var offset = 0;
+            while (offset < received.length) {
+                var seq = inRing.awaitCompletion(0);
+                assertEquals(0, inRing.status(seq));
+                var n = inRing.length(seq);
+                MemorySegment.copy(inRing.buffer(seq), JAVA_BYTE, 0, received, offset, n);
+                offset += n;
+                inRing.submit(seq);
+            }
+
+            writer.join();
+            assertArrayEquals(sampleData, received);
+        }
+    }
+
+    @Test
+    void resubmitOutOfOrder_fails() {
+        var packetSize = testDevice.getEndpoint(UsbDirection.OUT, config.endpointLoopbackOut()).getPacketSize();
+        try (var outRing = testDevice.openTransferRing(UsbDirection.OUT, config.endpointLoopbackOut(), 2, packetSize)) {
+            var seq0 = outRing.pollCompletion();
+            var seq1 = outRing.pollCompletion();
+            assertEquals(0, seq0);
+            assertEquals(1, seq1);
+            assertThrows(IllegalStateException.class, () -> outRing.submit(seq1, 0));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for device filter
+//
+
+package net.codecrete.usb;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsbDeviceFilterTest {
+
+    @Test
+    void idFilter_matchesIds() {
+        var filter = UsbDeviceFilter.ofIds(0xcafe, 0xceaf).orIds(0x1234, UsbDeviceFilter.ANY_PRODUCT);
+
+        assertThat(filter.matchesIds(0xcafe, 0xceaf)).isTrue();
+        assertThat(filter.matchesIds(0xcafe, 0xceae)).isFalse();
+        assertThat(filter.matchesIds(0x1234, 0x0001)).isTrue();
+        assertThat(filter.matchesIds(0x1235, 0x0001)).isFalse();
+        assertThat(UsbDeviceFilter.any().matchesIds(0x1235, 0x0001)).isTrue();
+    }
+
+    @Test
+    void fullFilter_checksAllConditions() {
+        var filter = UsbDeviceFilter.ofIds(0xcafe, 0xceaf).withClassCode(0xef)
+                .withSerialNumber(Pattern.compile("LAB-\\d+"));
+
+        assertThat(filter.matches(fakeDevice(0xcafe, 0xceaf, 0xef, "LAB-17"))).isTrue();
+        assertThat(filter.matches(fakeDevice(0xcafe, 0xceaf, 0xef, "LAB-17x"))).isFalse();
+        assertThat(filter.matches(fakeDevice(0xcafe, 0xceaf, 0xff, "LAB-17"))).isFalse();
+        assertThat(filter.matches(fakeDevice(0xcafe, 0xceaf, 0xef, null))).isFalse();
+        assertThat(filter.matches(fakeDevice(0xcafe, 0x0001, 0xef, "LAB-17"))).isFalse();
+    }
+
+    private static UsbDevice fakeDevice(int vendorId, int productId, int classCode, String serialNumber) {
+        return (UsbDevice) Proxy.newProxyInstance(UsbDevice.class.getClassLoader(), new Class<?>[]{UsbDevice.class},
+                (_, method, _) -> switch (method.getName()) {
+                    case "getVendorId" -> vendorId;
+                    case "getProductId" -> productId;
+                    case "getClassCode" -> classCode;
+                    case "getSerialNumber" -> serialNumber;
+                    default -> throw new UnsupportedOperationException();
+                });
+    }
+}
@@ -0,0 +1,54 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for computing the declared endpoint bandwidth
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbSpeed;
+import net.codecrete.usb.UsbTransferType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusLoadCalculatorTest {
+
+    @Test
+    void bulkEndpoint_hasNoBandwidth() {
+        var endpoint = new UsbEndpointImpl(1, UsbDirection.IN, UsbTransferType.BULK, 512, 0);
+        assertThat(BusLoadCalculator.getEndpointBandwidth(endpoint, UsbSpeed.HIGH)).isZero();
+    }
+
+    @Test
+    void fullSpeedInterruptEndpoint_usesFrames() {
+        // 64 bytes every 10ms
+        var endpoint = new UsbEndpointImpl(1, UsbDirection.IN, UsbTransferType.INTERRUPT, 64, 10);
+        assertThat(BusLoadCalculator.getEndpointBandwidth(endpoint, UsbSpeed.FULL)).isEqualTo(6400);
+    }
+
+    @Test
+    void fullSpeedIsochronousEndpoint_usesExponent() {
+        // 1023 bytes every 1ms
+        var endpoint = new UsbEndpointImpl(1, UsbDirection.OUT, UsbTransferType.ISOCHRONOUS, 1023, 1);
+        assertThat(BusLoadCalculator.getEndpointBandwidth(endpoint, UsbSpeed.FULL)).isEqualTo(1_023_000);
+    }
+
+    @Test
+    void highSpeedInterruptEndpoint_usesMicroframes() {
+        // 16 bytes every 2^(4-1) microframes = 1ms
+        var endpoint = new UsbEndpointImpl(1, UsbDirection.IN, UsbTransferType.INTERRUPT, 16, 4);
+        assertThat(BusLoadCalculator.getEndpointBandwidth(endpoint, UsbSpeed.HIGH)).isEqualTo(16_000);
+    }
+
+    @Test
+    void highBandwidthIsochronousEndpoint_includesAdditionalTransactions() {
+        // 3 x 1024 bytes every microframe
+        var endpoint = new UsbEndpointImpl(1, UsbDirection.IN, UsbTransferType.ISOCHRONOUS, (2 << 11) | 1024, 1);
+        assertThat(BusLoadCalculator.getEndpointBandwidth(endpoint, UsbSpeed.HIGH)).isEqualTo(3 * 1024 * 8000L);
+    }
+}
@@ -0,0 +1,135 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Fake USB device for testing the device registry without hardware
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbControlTransfer;
+import net.codecrete.usb.UsbDirection;
+import net.codecrete.usb.UsbInputStream;
+import net.codecrete.usb.UsbOutputStream;
+import net.codecrete.usb.UsbTransferType;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * USB device that only supports the descriptive information.
+ * <p>
+ * All operations communicating with the device throw {@link UnsupportedOperationException}.
+ * </p>
+ */
+class FakeUsbDevice extends UsbDeviceImpl {
+
+    FakeUsbDevice(Object id, int vendorId, int productId) {
+        super(id, vendorId, productId);
+        setProductStrings("Fake", "Device " + id, "SN-" + id);
+    }
+
+    @Override
+    public boolean isOpened() {
+        return false;
+    }
+
+    @Override
+    public void open() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+
+    @Override
+    public void claimInterface(int interfaceNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void selectAlternateSetting(int interfaceNumber, int alternateNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void releaseInterface(int interfaceNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte @NotNull [] controlTransferIn(@NotNull UsbControlTransfer setup, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void controlTransferOut(@NotNull UsbControlTransfer setup, byte[] data) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void abortTransfers(UsbDirection direction, int endpointNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clearHalt(UsbDirection direction, int endpointNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @NotNull UsbInputStream openInputStream(int endpointNumber, int bufferSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @NotNull UsbOutputStream openOutputStream(int endpointNumber, int bufferSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected EndpointInputStream openInputStream(int endpointNumber, int bufferSize,
+                                                  UsbTransferType additionalTransferType) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected EndpointOutputStream openOutputStream(int endpointNumber, int bufferSize,
+                                                    UsbTransferType additionalTransferType) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Transfer createTransfer() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Transfer createSyncTransfer(MemorySegment data) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void executeSyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer, int timeout) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void submitAsyncTransfer(UsbDirection direction, int endpointNumber, Transfer transfer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void throwOSException(int errorCode, String message, Object... args) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected boolean isAbortedResult(int errorCode) {
+        return false;
+    }
+}
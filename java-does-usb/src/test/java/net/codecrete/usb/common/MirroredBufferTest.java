@@ -0,0 +1,54 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for mirrored ring buffer
+//
+
+package net.codecrete.usb.common;
+
+import org.junit.jupiter.api.Test;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MirroredBufferTest {
+
+    @Test
+    void wrappedWrite_isReadContiguously() {
+        var buffer = MirroredBuffer.createCopyingBuffer(1000);
+
+        var data = buffer.slice(1900, 300);
+        for (var i = 0; i < 300; i++)
+            data.set(JAVA_BYTE, i, (byte) i);
+        buffer.completeWrite(1900, 300);
+
+        // read first part in a separate range
+        buffer.prepareRead(2000, 200);
+        assertThat(buffer.slice(2000, 200).get(JAVA_BYTE, 0)).isEqualTo((byte) 100);
+
+        buffer.prepareRead(1900, 300);
+        var window = buffer.slice(1900, 300);
+        for (var i = 0; i < 300; i++)
+            assertThat(window.get(JAVA_BYTE, i)).isEqualTo((byte) i);
+    }
+
+    @Test
+    void move_acrossEnd_keepsData() {
+        var buffer = MirroredBuffer.createCopyingBuffer(1000);
+
+        var data = buffer.slice(850, 100);
+        for (var i = 0; i < 100; i++)
+            data.set(JAVA_BYTE, i, (byte) i);
+        buffer.completeWrite(850, 100);
+
+        buffer.move(850, 930, 100);
+
+        buffer.prepareRead(930, 100);
+        var window = buffer.slice(930, 100);
+        for (var i = 0; i < 100; i++)
+            assertThat(window.get(JAVA_BYTE, i)).isEqualTo((byte) i);
+    }
+}
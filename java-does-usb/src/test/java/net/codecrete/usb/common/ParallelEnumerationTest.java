@@ -0,0 +1,84 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for creating devices in parallel during the initial enumeration
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDevice;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelEnumerationTest {
+
+    @Test
+    void createdDevices_keepCandidateOrder() {
+        var candidates = IntStream.range(0, 20).boxed().toList();
+
+        var devices = UsbDeviceRegistry.createDevices(candidates, index -> {
+            // later candidates complete first
+            sleep(20 - index);
+            return fakeDevice(index);
+        }, _ -> {});
+
+        assertThat(devices).extracting(Object::toString)
+                .containsExactlyElementsOf(candidates.stream().map(i -> "device " + i).toList());
+    }
+
+    @Test
+    void failedAndMissingDevices_areSkipped() {
+        var devices = UsbDeviceRegistry.createDevices(List.of(1, 2, 3, 4), index -> {
+            if (index == 2)
+                throw new IllegalStateException("descriptors cannot be read");
+            return index == 3 ? null : fakeDevice(index);
+        }, _ -> {});
+
+        assertThat(devices).extracting(Object::toString).containsExactly("device 1", "device 4");
+    }
+
+    @Test
+    void createdDevices_areReportedInOrderOnCallingThread() {
+        var candidates = IntStream.range(0, 10).boxed().toList();
+        var callingThread = Thread.currentThread();
+        var reported = new ArrayList<String>();
+
+        UsbDeviceRegistry.createDevices(candidates, index -> {
+            sleep(10 - index);
+            return index == 5 ? null : fakeDevice(index);
+        }, device -> {
+            assertThat(Thread.currentThread()).isSameAs(callingThread);
+            reported.add(device.toString());
+        });
+
+        assertThat(reported).containsExactly("device 0", "device 1", "device 2", "device 3", "device 4",
+                "device 6", "device 7", "device 8", "device 9");
+    }
+
+    private static UsbDevice fakeDevice(int index) {
+        return (UsbDevice) Proxy.newProxyInstance(UsbDevice.class.getClassLoader(), new Class<?>[]{UsbDevice.class},
+                (_, method, _) -> {
+                    if (method.getName().equals("toString"))
+                        return "device " + index;
+                    throw new UnsupportedOperationException();
+                });
+    }
+
+    @SuppressWarnings("java:S2925")
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for transfer buffer pool
+//
+
+package net.codecrete.usb.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferBufferPoolTest {
+
+    @Test
+    void acquiredBuffer_hasRequestedSize() {
+        var pool = new TransferBufferPool(1024 * 1024);
+
+        assertThat(pool.acquire(0).byteSize()).isZero();
+        assertThat(pool.acquire(64).byteSize()).isEqualTo(64);
+        assertThat(pool.acquire(2560).byteSize()).isEqualTo(2560);
+        assertThat(pool.acquire(3 * 1024 * 1024).byteSize()).isEqualTo(3 * 1024 * 1024);
+    }
+
+    @Test
+    void releasedBuffer_isReused() {
+        var pool = new TransferBufferPool(1024 * 1024);
+
+        var buffer = pool.acquire(512);
+        pool.release(buffer);
+        var buffer2 = pool.acquire(400);
+
+        assertThat(buffer2.address()).isEqualTo(buffer.address());
+        var statistics = pool.getStatistics();
+        assertThat(statistics.numAcquired()).isEqualTo(2);
+        assertThat(statistics.numReused()).isEqualTo(1);
+        assertThat(statistics.inUseBytes()).isEqualTo(512);
+    }
+
+    @Test
+    void repeatedAcquireAndRelease_doesNotAllocate() {
+        var pool = new TransferBufferPool(1024 * 1024);
+
+        for (var i = 0; i < 3; i++) {
+            var buffers = new MemorySegment[8];
+            for (var j = 0; j < buffers.length; j++)
+                buffers[j] = pool.acquire(16384);
+            for (var buffer : buffers)
+                pool.release(buffer);
+        }
+
+        var statistics = pool.getStatistics();
+        assertThat(statistics.allocatedBytes()).isEqualTo(8 * 16384);
+        assertThat(statistics.inUseBytes()).isZero();
+        assertThat(statistics.idleBytes()).isEqualTo(8 * 16384);
+    }
+
+    @Test
+    void surplusBuffers_areDropped() {
+        var pool = new TransferBufferPool(4096);
+
+        var buffer1 = pool.acquire(4096);
+        var buffer2 = pool.acquire(4096);
+        pool.release(buffer1);
+        pool.release(buffer2);
+
+        assertThat(pool.getStatistics().idleBytes()).isEqualTo(4096);
+
+        pool.setCapacity(0);
+        assertThat(pool.getStatistics().idleBytes()).isZero();
+    }
+}
@@ -0,0 +1,325 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for device registry (using fake devices)
+//
+
+package net.codecrete.usb.common;
+
+import net.codecrete.usb.UsbDeviceChanges;
+import net.codecrete.usb.UsbDeviceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static net.codecrete.usb.UsbDeviceEvent.Type.CONNECTED;
+import static net.codecrete.usb.UsbDeviceEvent.Type.DISCONNECTED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Timeout(value = 5, unit = TimeUnit.SECONDS)
+class UsbDeviceRegistryTest {
+
+    private TestRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TestRegistry();
+        registry.setInitialDeviceList(List.of());
+    }
+
+    @Test
+    void subscriber_receivesEventsInOrder() throws InterruptedException {
+        var events = new LinkedBlockingQueue<UsbDeviceEvent>();
+        registry.subscribe(null, events::add, null);
+
+        var device1 = new FakeUsbDevice("1", 0xcafe, 1);
+        var device2 = new FakeUsbDevice("2", 0xcafe, 2);
+        registry.addDevice(device1);
+        registry.addDevice(device2);
+        registry.closeAndRemoveDevice("1");
+
+        assertThat(take(events)).isEqualTo(new UsbDeviceEvent(CONNECTED, device1));
+        assertThat(take(events)).isEqualTo(new UsbDeviceEvent(CONNECTED, device2));
+        assertThat(take(events)).isEqualTo(new UsbDeviceEvent(DISCONNECTED, device1));
+        assertThat(device1.isConnected()).isFalse();
+    }
+
+    @Test
+    void subscriber_receivesMatchingEventsOnly() throws InterruptedException {
+        var events = new LinkedBlockingQueue<UsbDeviceEvent>();
+        registry.subscribe(device -> device.getProductId() == 2, events::add, null);
+
+        var device2 = new FakeUsbDevice("2", 0xcafe, 2);
+        registry.addDevice(new FakeUsbDevice("1", 0xcafe, 1));
+        registry.addDevice(device2);
+        registry.removeDevice("1");
+        registry.removeDevice("2");
+
+        assertThat(take(events)).isEqualTo(new UsbDeviceEvent(CONNECTED, device2));
+        assertThat(take(events)).isEqualTo(new UsbDeviceEvent(DISCONNECTED, device2));
+        assertThat(events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void closedSubscription_receivesNoEvents() throws InterruptedException {
+        var events = new LinkedBlockingQueue<UsbDeviceEvent>();
+        var subscription = registry.subscribe(null, events::add, null);
+
+        registry.addDevice(new FakeUsbDevice("1", 0xcafe, 1));
+        assertThat(take(events).type()).isEqualTo(CONNECTED);
+
+        subscription.close();
+        registry.removeDevice("1");
+        assertThat(events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void eventPublisher_onlySupportsSubscribing() {
+        var publisher = registry.getEventPublisher();
+        assertThat(publisher).isNotInstanceOf(SubmissionPublisher.class);
+        assertThat(registry.getEventPublisher()).isSameAs(publisher);
+    }
+
+    @Test
+    void eventPublisher_deliversEvents() throws InterruptedException {
+        var subscriber1 = new EventSubscriber();
+        var subscriber2 = new EventSubscriber();
+        registry.getEventPublisher().subscribe(subscriber1);
+        registry.getEventPublisher().subscribe(subscriber2);
+
+        var device = new FakeUsbDevice("1", 0xcafe, 1);
+        registry.addDevice(device);
+        registry.removeDevice("1");
+
+        for (var subscriber : List.of(subscriber1, subscriber2)) {
+            assertThat(take(subscriber.events)).isEqualTo(new UsbDeviceEvent(CONNECTED, device));
+            assertThat(take(subscriber.events)).isEqualTo(new UsbDeviceEvent(DISCONNECTED, device));
+        }
+    }
+
+    @Test
+    void coalescedChanges_areBatched() throws InterruptedException {
+        var changes = new LinkedBlockingQueue<UsbDeviceChanges>();
+        registry.setOnDevicesChanged(changes::add);
+        var device1 = new FakeUsbDevice("1", 0xcafe, 1);
+        registry.addDevice(device1);
+        assertThat(take(changes).added()).containsExactly(device1);
+
+        registry.setCoalescingWindow(100);
+        var device2 = new FakeUsbDevice("2", 0xcafe, 2);
+        var device3 = new FakeUsbDevice("3", 0xcafe, 3);
+        var version = registry.getVersion();
+        registry.addDevice(device2);
+        registry.addDevice(device3);
+        registry.removeDevice("1");
+
+        // the changes are applied at the end of the window
+        assertThat(registry.getAllDevices()).containsExactly(device1);
+        assertThat(registry.findDevice("1")).isNull();
+        assertThat(registry.findDevice("2")).isSameAs(device2);
+        assertThat(registry.getVersion()).isEqualTo(version);
+
+        var batch = take(changes);
+        assertThat(batch.added()).containsExactly(device2, device3);
+        assertThat(batch.removed()).containsExactly(device1);
+        assertThat(batch.version()).isEqualTo(registry.getVersion());
+        assertThat(registry.getAllDevices()).containsExactly(device2, device3);
+        assertThat(changes.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void coalescedRemoval_skipsDisconnectedDeviceImmediately() throws InterruptedException {
+        var events = new LinkedBlockingQueue<UsbDeviceEvent>();
+        registry.subscribe(null, events::add, null);
+        var device = new FakeUsbDevice("1", 0xcafe, 1);
+        registry.addDevice(device);
+        assertThat(take(events).type()).isEqualTo(CONNECTED);
+
+        registry.setCoalescingWindow(200);
+        var version = registry.getVersion();
+        registry.closeAndRemoveDevice("1");
+
+        // the lookups skip the device right away, the device list is updated at the end of the window
+        assertThat(device.isConnected()).isFalse();
+        assertThat(registry.getAllDevices()).isEmpty();
+        assertThat(registry.findDevices(0xcafe, 1)).isEmpty();
+        assertThat(registry.findDevice("1")).isNull();
+        assertThat(registry.findDeviceBySerialNumber("SN-1")).isNull();
+        assertThat(registry.getVersion()).isEqualTo(version);
+        assertThat(events.poll(50, TimeUnit.MILLISECONDS)).isNull();
+
+        assertThat(take(events)).isEqualTo(new UsbDeviceEvent(DISCONNECTED, device));
+        assertThat(registry.getVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    void deviceConnectedAndDisconnectedWithinWindow_isDropped() throws InterruptedException {
+        var changes = new LinkedBlockingQueue<UsbDeviceChanges>();
+        registry.setOnDevicesChanged(changes::add);
+        registry.setCoalescingWindow(100);
+
+        var device2 = new FakeUsbDevice("2", 0xcafe, 2);
+        registry.addDevice(new FakeUsbDevice("1", 0xcafe, 1));
+        registry.closeAndRemoveDevice("1");
+        registry.addDevice(device2);
+
+        var batch = take(changes);
+        assertThat(batch.added()).containsExactly(device2);
+        assertThat(batch.removed()).isEmpty();
+        assertThat(registry.getAllDevices()).containsExactly(device2);
+    }
+
+    @Test
+    void deviceReconnectedWithinWindow_isReplaced() throws InterruptedException {
+        var changes = new LinkedBlockingQueue<UsbDeviceChanges>();
+        registry.setOnDevicesChanged(changes::add);
+        var device = new FakeUsbDevice("1", 0xcafe, 1);
+        registry.addDevice(device);
+        take(changes);
+
+        registry.setCoalescingWindow(100);
+        var reconnectedDevice = new FakeUsbDevice("1", 0xcafe, 1);
+        registry.closeAndRemoveDevice("1");
+        registry.addDevice(reconnectedDevice);
+        assertThat(registry.getAllDevices()).isEmpty();
+
+        // device instances are equal if they have the same ID, so check identity
+        var batch = take(changes);
+        assertThat(batch.removed()).hasSize(1);
+        assertThat(batch.removed().getFirst()).isSameAs(device);
+        assertThat(batch.added()).hasSize(1);
+        assertThat(batch.added().getFirst()).isSameAs(reconnectedDevice);
+        assertThat(registry.getAllDevices().getFirst()).isSameAs(reconnectedDevice);
+    }
+
+    @Test
+    void changesSince_areMerged() {
+        var version = registry.getVersion();
+        var device1 = new FakeUsbDevice("1", 0xcafe, 1);
+        var device2 = new FakeUsbDevice("2", 0xcafe, 2);
+        registry.addDevice(device1);
+        registry.addDevice(device2);
+        registry.removeDevice("1");
+
+        var changes = registry.getChangesSince(version);
+        assertThat(changes.version()).isEqualTo(registry.getVersion());
+        assertThat(changes.added()).containsExactly(device2);
+        assertThat(changes.removed()).isEmpty();
+
+        // reconnected device is a new instance
+        var version2 = registry.getVersion();
+        var reconnectedDevice = new FakeUsbDevice("2", 0xcafe, 2);
+        registry.removeDevice("2");
+        registry.addDevice(reconnectedDevice);
+
+        changes = registry.getChangesSince(version2);
+        assertThat(changes.removed()).hasSize(1);
+        assertThat(changes.removed().getFirst()).isSameAs(device2);
+        assertThat(changes.added()).hasSize(1);
+        assertThat(changes.added().getFirst()).isSameAs(reconnectedDevice);
+
+        changes = registry.getChangesSince(version);
+        assertThat(changes.removed()).isEmpty();
+        assertThat(changes.added()).hasSize(1);
+        assertThat(changes.added().getFirst()).isSameAs(reconnectedDevice);
+
+        changes = registry.getChangesSince(registry.getVersion());
+        assertThat(changes.added()).isEmpty();
+        assertThat(changes.removed()).isEmpty();
+    }
+
+    @Test
+    void changesSince_expiredVersion_returnsNull() {
+        var version = registry.getVersion();
+        for (var i = 0; i < UsbDeviceRegistry.CHANGE_HISTORY_SIZE; i++)
+            registry.addDevice(new FakeUsbDevice(i, 0xcafe, 1));
+
+        assertThat(registry.getChangesSince(version - 1)).isNull();
+        assertThat(registry.getChangesSince(version).added()).hasSize(UsbDeviceRegistry.CHANGE_HISTORY_SIZE);
+    }
+
+    @Test
+    void awaitChange_waitsForTimeout() throws InterruptedException {
+        var version = registry.getVersion();
+        for (var timeout : List.of(1L, 5L, 20L)) {
+            var start = System.nanoTime();
+            assertThat(registry.awaitChange(version, timeout)).isEqualTo(version);
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(timeout));
+        }
+    }
+
+    @Test
+    void awaitChange_returnsOnChange() throws InterruptedException {
+        var version = registry.getVersion();
+        Thread.ofVirtual().start(() -> {
+            sleep(50);
+            registry.addDevice(new FakeUsbDevice("1", 0xcafe, 1));
+        });
+
+        assertThat(registry.awaitChange(version, 3000)).isGreaterThan(version);
+        // already changed
+        assertThat(registry.awaitChange(version, 3000)).isEqualTo(registry.getVersion());
+    }
+
+    @SuppressWarnings("java:S2925")
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        var item = queue.poll(2, TimeUnit.SECONDS);
+        assertThat(item).isNotNull();
+        return item;
+    }
+
+    /**
+     * Registry without background thread. Devices are added and removed by the test.
+     */
+    static class TestRegistry extends UsbDeviceRegistry {
+        @Override
+        protected void monitorDevices() {
+            // devices are added and removed by the test
+        }
+    }
+
+    /**
+     * Flow subscriber collecting the events.
+     */
+    static class EventSubscriber implements Flow.Subscriber<UsbDeviceEvent> {
+        final BlockingQueue<UsbDeviceEvent> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(UsbDeviceEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // not expected
+        }
+
+        @Override
+        public void onComplete() {
+            // not expected
+        }
+    }
+}
@@ -0,0 +1,37 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for parsing the sysfs topology attributes
+//
+
+package net.codecrete.usb.linux;
+
+import net.codecrete.usb.UsbSpeed;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceTopologyTest {
+
+    @Test
+    void rootHubPortPath_isEmpty() {
+        assertThat(LinuxUsbDevice.parsePortPath("0")).isEmpty();
+    }
+
+    @Test
+    void nestedPortPath_isParsed() {
+        assertThat(LinuxUsbDevice.parsePortPath("1.4.2")).containsExactly(1, 4, 2);
+    }
+
+    @Test
+    void speed_isParsed() {
+        assertThat(LinuxUsbDevice.parseSpeed("1.5")).isEqualTo(UsbSpeed.LOW);
+        assertThat(LinuxUsbDevice.parseSpeed("480")).isEqualTo(UsbSpeed.HIGH);
+        assertThat(LinuxUsbDevice.parseSpeed("10000")).isEqualTo(UsbSpeed.SUPER_PLUS);
+        assertThat(LinuxUsbDevice.parseSpeed("42")).isEqualTo(UsbSpeed.UNKNOWN);
+        assertThat(LinuxUsbDevice.parseSpeed(null)).isEqualTo(UsbSpeed.UNKNOWN);
+    }
+}
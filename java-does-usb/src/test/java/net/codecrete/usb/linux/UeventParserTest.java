@@ -0,0 +1,56 @@
+//
+// Java Does USB
+// Copyright (c) 2026 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+// Unit test for parsing netlink uevent messages
+//
+
+package net.codecrete.usb.linux;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UeventParserTest {
+
+    @Test
+    void kernelEvent_isParsed() {
+        var message = ("add@/devices/pci0000:00/0000:00:14.0/usb1/1-2\0ACTION=add\0"
+                + "DEVPATH=/devices/pci0000:00/0000:00:14.0/usb1/1-2\0SUBSYSTEM=usb\0"
+                + "DEVNAME=bus/usb/001/007\0DEVTYPE=usb_device\0PRODUCT=cafe/ceaf/100\0SEQNUM=4711\0")
+                .getBytes(StandardCharsets.UTF_8);
+
+        var properties = LinuxSysfsDeviceRegistry.parseEvent(message);
+
+        assertThat(properties)
+                .containsEntry("ACTION", "add")
+                .containsEntry("SUBSYSTEM", "usb")
+                .containsEntry("DEVNAME", "bus/usb/001/007")
+                .containsEntry("DEVTYPE", "usb_device")
+                .containsEntry("PRODUCT", "cafe/ceaf/100")
+                .hasSize(7);
+    }
+
+    @Test
+    void messageWithoutTerminator_isParsed() {
+        var message = "remove@/devices/usb1/1-2\0ACTION=remove\0DEVNAME=bus/usb/001/007"
+                .getBytes(StandardCharsets.UTF_8);
+
+        var properties = LinuxSysfsDeviceRegistry.parseEvent(message);
+
+        assertThat(properties)
+                .containsEntry("ACTION", "remove")
+                .containsEntry("DEVNAME", "bus/usb/001/007");
+    }
+
+    @Test
+    void udevDaemonMessage_isIgnored() {
+        var message = "libudev\0þíÊþ".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertThat(LinuxSysfsDeviceRegistry.parseEvent(message)).isNull();
+    }
+}
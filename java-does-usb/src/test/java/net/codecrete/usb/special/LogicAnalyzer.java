@@ -14,16 +14,19 @@ import net.codecrete.usb.Usb;
 import net.codecrete.usb.UsbControlTransfer;
 import net.codecrete.usb.UsbDevice;
 import net.codecrete.usb.UsbDirection;
-import net.codecrete.usb.UsbException;
 import net.codecrete.usb.UsbRecipient;
+import net.codecrete.usb.UsbRecorder;
 import net.codecrete.usb.UsbRequestType;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -73,11 +76,11 @@ public class LogicAnalyzer implements Closeable {
     private volatile boolean stopped;
     /// Filename for saving sample data
     private String filename;
-    /// Variable is updated while new data is received
-    private volatile long activityValue;
+    /// Recorder saving the samples (while recording)
+    private volatile UsbRecorder recorder;
     /// Indicates a dry run (to suppress output)
     private boolean isDryRun;
-    /// Buffer size for input stream (good for approx. 0.2s of data)
+    /// Buffer size for recorder (good for approx. 0.2s of data)
     private int bufferSize;
 
     public static void main(String[] args) {
@@ -186,27 +189,33 @@ public class LogicAnalyzer implements Closeable {
 
     void saveSamples() {
 
-        // retrieve the sample data from the bulk endpoint
-        int expectedSize = (int) (((long) duration * effSampleRate + 500) / 1000);
-
-        byte[] sampleData = new byte[expectedSize];
-
-        int size = 0;
-        try (var is = device.openInputStream(EP, bufferSize)) {
+        // record the sample data from the bulk endpoint directly to the file
+        long expectedSize = ((long) duration * effSampleRate + 500) / 1000;
+
+        long size = 0;
+        long dropped = 0;
+        try {
+            var path = filename != null ? Path.of(filename) : Files.createTempFile("samples", ".bin");
+            try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 var rec = device.startRecording(EP, channel, bufferSize, expectedSize)) {
+                recorder = rec;
+                try {
+                    rec.completion().join();
+                } catch (CompletionException e) {
+                    if (!stopped && !bufferOverrunDetected)
+                        throw e;
+                }
+                size = rec.recordedLength();
+                dropped = rec.droppedLength();
 
-            while (size < expectedSize) {
-                int n = is.read(sampleData, size, sampleData.length - size);
-                if (n <= 0)
-                    break;
-                size += n;
-                activityValue = size;
+            } finally {
+                recorder = null;
+                if (filename == null)
+                    Files.deleteIfExists(path);
             }
 
-        } catch (UsbException e) {
-            if (!stopped && !bufferOverrunDetected)
-                throw e;
-
-        } catch (IOException e) {
+        } catch (IOException | CompletionException e) {
             System.err.println("Retrieving samples failed");
             e.printStackTrace(System.err);
             return;
@@ -221,16 +230,8 @@ public class LogicAnalyzer implements Closeable {
         }
 
         if (!isDryRun)
-            System.out.printf("%,d samples retrieved with %,d sample/s%n", size, effSampleRate);
-
-        if (filename != null) {
-            try {
-                Files.write(Path.of(filename), sampleData);
-            } catch (IOException e) {
-                System.err.printf("Saving samples to %s failed%n", filename);
-                e.printStackTrace(System.err);
-            }
-        }
+            System.out.printf("%,d samples retrieved with %,d sample/s (%,d samples dropped)%n",
+                    size, effSampleRate, dropped);
     }
 
     void stopAcquisition() {
@@ -241,7 +242,7 @@ public class LogicAnalyzer implements Closeable {
 
     void detectBufferOverrun() {
         sleep(10);
-        // if the 'activityValue' hasn't changed within 20ms, the logic analyzer
+        // if the received length hasn't changed within 20ms, the logic analyzer
         // has stopped sending data (likely due to a buffer overrun)
         long lastValue = 0;
         while (true) {
@@ -250,6 +251,7 @@ public class LogicAnalyzer implements Closeable {
             if (stopped)
                 break;
 
+            var activityValue = receivedLength();
             if (lastValue == activityValue) {
                 bufferOverrunDetected = true;
                 stopAcquisition();
@@ -260,6 +262,11 @@ public class LogicAnalyzer implements Closeable {
         }
     }
 
+    long receivedLength() {
+        var rec = recorder;
+        return rec != null ? rec.recordedLength() + rec.droppedLength() : 0;
+    }
+
     void checkFirmware() {
         if (device.getManufacturer() != null) {
             System.out.println("Device ready");